@@ -0,0 +1,59 @@
+package com.github.cloudecho.protobuf.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.cloudecho.protobuf.converter.BytecodeBeanConverter;
+import com.github.cloudecho.protobuf.converter.SimpleBeanConverter;
+import com.github.cloudecho.protobuf.converter.SimpleProtobufMessageConverter;
+
+/**
+ * {@code BeanConverter}: bean -&gt; properties, and back
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BeanConverterBenchmark {
+  @Param({"FLAT", "NESTED", "REPEATED", "WRAPPER"})
+  public Shape shape;
+
+  @Param({"simple", "bytecode"})
+  public String converter;
+
+  private SimpleBeanConverter beanConverter;
+  private Map<String, ?> properties;
+  private Object bean;
+
+  @Setup
+  public void setUp() {
+    beanConverter = "bytecode".equals(converter) ? new BytecodeBeanConverter() : new SimpleBeanConverter();
+    SimpleProtobufMessageConverter messageConverter = new SimpleProtobufMessageConverter();
+    bean = messageConverter.toBean(shape.beanType, shape.message.get(), beanConverter);
+    properties = beanConverter.toProperties(bean);
+  }
+
+  @Benchmark
+  public Map<String, ?> toProperties() {
+    return beanConverter.toProperties(bean);
+  }
+
+  @Benchmark
+  public Object toBean() {
+    return beanConverter.toBean(shape.beanType, properties);
+  }
+}
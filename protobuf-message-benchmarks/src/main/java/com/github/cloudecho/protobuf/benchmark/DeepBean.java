@@ -0,0 +1,40 @@
+package com.github.cloudecho.protobuf.benchmark;
+
+public class DeepBean {
+  private int level;
+  private String name;
+  private Long aLongObject;
+  private DeepBean child;
+
+  public int getLevel() {
+    return level;
+  }
+
+  public void setLevel(int level) {
+    this.level = level;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public Long getaLongObject() {
+    return aLongObject;
+  }
+
+  public void setaLongObject(Long aLongObject) {
+    this.aLongObject = aLongObject;
+  }
+
+  public DeepBean getChild() {
+    return child;
+  }
+
+  public void setChild(DeepBean child) {
+    this.child = child;
+  }
+}
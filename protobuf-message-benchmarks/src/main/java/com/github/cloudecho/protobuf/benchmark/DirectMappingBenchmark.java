@@ -0,0 +1,63 @@
+package com.github.cloudecho.protobuf.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.cloudecho.protobuf.converter.SimpleBeanMessageMapper;
+import com.google.protobuf.Message;
+
+/**
+ * Message -&gt; bean and back without properties maps: {@code SimpleBeanMessageMapper}
+ * and the hand-written baseline
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DirectMappingBenchmark {
+  @Param({"FLAT", "NESTED", "REPEATED", "WRAPPER"})
+  public Shape shape;
+
+  private final SimpleBeanMessageMapper mapper = new SimpleBeanMessageMapper();
+  private Message message;
+  private Object bean;
+
+  @Setup
+  public void setUp() {
+    message = shape.message.get();
+    bean = shape.handWrittenToBean.apply(message);
+  }
+
+  @Benchmark
+  public Object mapperToBean() {
+    return mapper.toBean(shape.beanType, message);
+  }
+
+  @Benchmark
+  public Message mapperBuildMessage() {
+    return mapper.buildMessage(shape.messageType, bean);
+  }
+
+  @Benchmark
+  public Object handWrittenToBean() {
+    return shape.handWrittenToBean.apply(message);
+  }
+
+  @Benchmark
+  public Message handWrittenBuildMessage() {
+    return shape.handWrittenToMessage.apply(bean);
+  }
+}
@@ -0,0 +1,89 @@
+package com.github.cloudecho.protobuf.benchmark;
+
+import com.github.cloudecho.protobuf.benchmark.proto.DeepMessage;
+import com.github.cloudecho.protobuf.benchmark.proto.FlatMessage;
+import com.github.cloudecho.protobuf.benchmark.proto.NestedMessage;
+import com.github.cloudecho.protobuf.benchmark.proto.RepeatedMessage;
+import com.github.cloudecho.protobuf.benchmark.proto.Status;
+import com.github.cloudecho.protobuf.benchmark.proto.WrapperMessage;
+import com.google.protobuf.BoolValue;
+import com.google.protobuf.DoubleValue;
+import com.google.protobuf.FloatValue;
+import com.google.protobuf.Int32Value;
+import com.google.protobuf.Int64Value;
+import com.google.protobuf.StringValue;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.UInt32Value;
+import com.google.protobuf.UInt64Value;
+
+/**
+ * The messages converted by the benchmarks, with the same values as the ones of
+ * {@code SimpleProtobufMessageConverterTest} where the fields are alike
+ */
+public final class Fixtures {
+  public static final int DEEP_LEVELS = 8;
+  public static final int REPEATED_SCALARS = 100;
+  public static final int REPEATED_MESSAGES = 50;
+
+  private Fixtures() {
+  }
+
+  public static FlatMessage flatMessage() {
+    return FlatMessage.newBuilder()
+        .setAnInt(99)
+        .setALong(101L)
+        .setRatio(0.5)
+        .setScore(1.5f)
+        .setEnabled(true)
+        .setString("a string value")
+        .setDescription("a description value")
+        .setStatus(Status.ACTIVE)
+        .build();
+  }
+
+  public static DeepMessage deepMessage() {
+    DeepMessage message = null;
+    for (int level = DEEP_LEVELS - 1; level >= 0; level--) {
+      DeepMessage.Builder builder = DeepMessage.newBuilder()
+          .setLevel(level)
+          .setName("level-" + level)
+          .setALongObject(Int64Value.of(100L + level));
+      if (message != null) {
+        builder.setChild(message);
+      }
+      message = builder.build();
+    }
+    return message;
+  }
+
+  public static RepeatedMessage repeatedMessage() {
+    RepeatedMessage.Builder builder = RepeatedMessage.newBuilder();
+    for (int i = 0; i < REPEATED_SCALARS; i++) {
+      builder.addStringList("str" + i);
+      builder.addLongList(i);
+    }
+    for (int i = 0; i < REPEATED_MESSAGES; i++) {
+      builder.addNestedDtos(NestedMessage.newBuilder()
+          .setNestedInt(300 + i)
+          .setNestedInteger(Int32Value.of(301 + i))
+          .setNestedLong(302 + i)
+          .setNestedLongObject(Int64Value.of(303 + i))
+          .setNestedString("nested string value-" + i));
+    }
+    return builder.build();
+  }
+
+  public static WrapperMessage wrapperMessage() {
+    return WrapperMessage.newBuilder()
+        .setInteger(Int32Value.of(100))
+        .setALongObject(Int64Value.of(102L))
+        .setADouble(DoubleValue.of(0.5))
+        .setAFloat(FloatValue.of(1.5f))
+        .setABoolean(BoolValue.of(true))
+        .setString(StringValue.of("a string value"))
+        .setUnsignedInt(UInt32Value.of(200))
+        .setUnsignedLong(UInt64Value.of(202L))
+        .setDate(Timestamp.newBuilder().setSeconds(100))
+        .build();
+  }
+}
@@ -0,0 +1,76 @@
+package com.github.cloudecho.protobuf.benchmark;
+
+public class FlatBean {
+  private int anInt;
+  private long aLong;
+  private double ratio;
+  private float score;
+  private Boolean enabled;
+  private String string;
+  private String description;
+  private Integer status;
+
+  public int getAnInt() {
+    return anInt;
+  }
+
+  public void setAnInt(int anInt) {
+    this.anInt = anInt;
+  }
+
+  public long getaLong() {
+    return aLong;
+  }
+
+  public void setaLong(long aLong) {
+    this.aLong = aLong;
+  }
+
+  public double getRatio() {
+    return ratio;
+  }
+
+  public void setRatio(double ratio) {
+    this.ratio = ratio;
+  }
+
+  public float getScore() {
+    return score;
+  }
+
+  public void setScore(float score) {
+    this.score = score;
+  }
+
+  public Boolean getEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(Boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public String getString() {
+    return string;
+  }
+
+  public void setString(String string) {
+    this.string = string;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public void setDescription(String description) {
+    this.description = description;
+  }
+
+  public Integer getStatus() {
+    return status;
+  }
+
+  public void setStatus(Integer status) {
+    this.status = status;
+  }
+}
@@ -0,0 +1,232 @@
+package com.github.cloudecho.protobuf.benchmark;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.github.cloudecho.protobuf.benchmark.proto.DeepMessage;
+import com.github.cloudecho.protobuf.benchmark.proto.FlatMessage;
+import com.github.cloudecho.protobuf.benchmark.proto.NestedMessage;
+import com.github.cloudecho.protobuf.benchmark.proto.RepeatedMessage;
+import com.github.cloudecho.protobuf.benchmark.proto.WrapperMessage;
+import com.google.protobuf.BoolValue;
+import com.google.protobuf.DoubleValue;
+import com.google.protobuf.FloatValue;
+import com.google.protobuf.Int32Value;
+import com.google.protobuf.Int64Value;
+import com.google.protobuf.StringValue;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.UInt32Value;
+import com.google.protobuf.UInt64Value;
+
+/**
+ * The baseline: the getters, setters and builders called by hand, with the same results as the converters
+ */
+public final class HandWrittenMapper {
+  private HandWrittenMapper() {
+  }
+
+  public static FlatBean toBean(FlatMessage message) {
+    FlatBean bean = new FlatBean();
+    bean.setAnInt(message.getAnInt());
+    bean.setaLong(message.getALong());
+    bean.setRatio(message.getRatio());
+    bean.setScore(message.getScore());
+    bean.setEnabled(message.getEnabled());
+    if (!message.getString().isEmpty()) {
+      bean.setString(message.getString());
+    }
+    if (!message.getDescription().isEmpty()) {
+      bean.setDescription(message.getDescription());
+    }
+    bean.setStatus(message.getStatusValue());
+    return bean;
+  }
+
+  public static FlatMessage toMessage(FlatBean bean) {
+    FlatMessage.Builder builder = FlatMessage.newBuilder()
+        .setAnInt(bean.getAnInt())
+        .setALong(bean.getaLong())
+        .setRatio(bean.getRatio())
+        .setScore(bean.getScore());
+    if (bean.getEnabled() != null) {
+      builder.setEnabled(bean.getEnabled());
+    }
+    if (bean.getString() != null) {
+      builder.setString(bean.getString());
+    }
+    if (bean.getDescription() != null) {
+      builder.setDescription(bean.getDescription());
+    }
+    if (bean.getStatus() != null) {
+      builder.setStatusValue(bean.getStatus());
+    }
+    return builder.build();
+  }
+
+  public static DeepBean toBean(DeepMessage message) {
+    DeepBean bean = new DeepBean();
+    bean.setLevel(message.getLevel());
+    if (!message.getName().isEmpty()) {
+      bean.setName(message.getName());
+    }
+    if (message.hasALongObject()) {
+      bean.setaLongObject(message.getALongObject().getValue());
+    }
+    if (message.hasChild()) {
+      bean.setChild(toBean(message.getChild()));
+    }
+    return bean;
+  }
+
+  public static DeepMessage toMessage(DeepBean bean) {
+    DeepMessage.Builder builder = DeepMessage.newBuilder()
+        .setLevel(bean.getLevel());
+    if (bean.getName() != null) {
+      builder.setName(bean.getName());
+    }
+    if (bean.getaLongObject() != null) {
+      builder.setALongObject(Int64Value.of(bean.getaLongObject()));
+    }
+    if (bean.getChild() != null) {
+      builder.setChild(toMessage(bean.getChild()));
+    }
+    return builder.build();
+  }
+
+  public static RepeatedBean toBean(RepeatedMessage message) {
+    RepeatedBean bean = new RepeatedBean();
+    if (message.getStringListCount() > 0) {
+      bean.setStringList(new ArrayList<>(message.getStringListList()));
+    }
+    if (message.getLongListCount() > 0) {
+      bean.setLongList(new ArrayList<>(message.getLongListList()));
+    }
+    if (message.getNestedDtosCount() > 0) {
+      NestedBean[] nestedDtos = new NestedBean[message.getNestedDtosCount()];
+      for (int i = 0; i < nestedDtos.length; i++) {
+        nestedDtos[i] = toBean(message.getNestedDtos(i));
+      }
+      bean.setNestedDtos(nestedDtos);
+    }
+    return bean;
+  }
+
+  public static RepeatedMessage toMessage(RepeatedBean bean) {
+    RepeatedMessage.Builder builder = RepeatedMessage.newBuilder();
+    if (bean.getStringList() != null) {
+      builder.addAllStringList(bean.getStringList());
+    }
+    if (bean.getLongList() != null) {
+      builder.addAllLongList(bean.getLongList());
+    }
+    if (bean.getNestedDtos() != null) {
+      List<NestedMessage> nestedDtos = new ArrayList<>(bean.getNestedDtos().length);
+      for (NestedBean nestedDto : bean.getNestedDtos()) {
+        nestedDtos.add(toMessage(nestedDto));
+      }
+      builder.addAllNestedDtos(nestedDtos);
+    }
+    return builder.build();
+  }
+
+  public static NestedBean toBean(NestedMessage message) {
+    NestedBean bean = new NestedBean();
+    bean.setNestedInt(message.getNestedInt());
+    if (message.hasNestedInteger()) {
+      bean.setNestedInteger(message.getNestedInteger().getValue());
+    }
+    bean.setNestedLong(message.getNestedLong());
+    if (message.hasNestedLongObject()) {
+      bean.setNestedLongObject(message.getNestedLongObject().getValue());
+    }
+    if (!message.getNestedString().isEmpty()) {
+      bean.setNestedString(message.getNestedString());
+    }
+    return bean;
+  }
+
+  public static NestedMessage toMessage(NestedBean bean) {
+    NestedMessage.Builder builder = NestedMessage.newBuilder()
+        .setNestedInt(bean.getNestedInt())
+        .setNestedLong(bean.getNestedLong());
+    if (bean.getNestedInteger() != null) {
+      builder.setNestedInteger(Int32Value.of(bean.getNestedInteger()));
+    }
+    if (bean.getNestedLongObject() != null) {
+      builder.setNestedLongObject(Int64Value.of(bean.getNestedLongObject()));
+    }
+    if (bean.getNestedString() != null) {
+      builder.setNestedString(bean.getNestedString());
+    }
+    return builder.build();
+  }
+
+  public static WrapperBean toBean(WrapperMessage message) {
+    WrapperBean bean = new WrapperBean();
+    if (message.hasInteger()) {
+      bean.setInteger(message.getInteger().getValue());
+    }
+    if (message.hasALongObject()) {
+      bean.setaLongObject(message.getALongObject().getValue());
+    }
+    if (message.hasADouble()) {
+      bean.setaDouble(message.getADouble().getValue());
+    }
+    if (message.hasAFloat()) {
+      bean.setaFloat(message.getAFloat().getValue());
+    }
+    if (message.hasABoolean()) {
+      bean.setaBoolean(message.getABoolean().getValue());
+    }
+    if (message.hasString()) {
+      bean.setString(message.getString().getValue());
+    }
+    if (message.hasUnsignedInt()) {
+      bean.setUnsignedInt(message.getUnsignedInt().getValue());
+    }
+    if (message.hasUnsignedLong()) {
+      bean.setUnsignedLong(message.getUnsignedLong().getValue());
+    }
+    if (message.hasDate()) {
+      Timestamp date = message.getDate();
+      bean.setDate(new Date(date.getSeconds() * 1000 + date.getNanos() / 1000000));
+    }
+    return bean;
+  }
+
+  public static WrapperMessage toMessage(WrapperBean bean) {
+    WrapperMessage.Builder builder = WrapperMessage.newBuilder();
+    if (bean.getInteger() != null) {
+      builder.setInteger(Int32Value.of(bean.getInteger()));
+    }
+    if (bean.getaLongObject() != null) {
+      builder.setALongObject(Int64Value.of(bean.getaLongObject()));
+    }
+    if (bean.getaDouble() != null) {
+      builder.setADouble(DoubleValue.of(bean.getaDouble()));
+    }
+    if (bean.getaFloat() != null) {
+      builder.setAFloat(FloatValue.of(bean.getaFloat()));
+    }
+    if (bean.getaBoolean() != null) {
+      builder.setABoolean(BoolValue.of(bean.getaBoolean()));
+    }
+    if (bean.getString() != null) {
+      builder.setString(StringValue.of(bean.getString()));
+    }
+    if (bean.getUnsignedInt() != null) {
+      builder.setUnsignedInt(UInt32Value.of(bean.getUnsignedInt()));
+    }
+    if (bean.getUnsignedLong() != null) {
+      builder.setUnsignedLong(UInt64Value.of(bean.getUnsignedLong()));
+    }
+    if (bean.getDate() != null) {
+      long millis = bean.getDate().getTime();
+      builder.setDate(Timestamp.newBuilder()
+          .setSeconds(millis / 1000)
+          .setNanos((int) ((millis % 1000) * 1000000)));
+    }
+    return builder.build();
+  }
+}
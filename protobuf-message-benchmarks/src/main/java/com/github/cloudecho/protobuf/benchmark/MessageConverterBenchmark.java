@@ -0,0 +1,74 @@
+package com.github.cloudecho.protobuf.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.cloudecho.protobuf.converter.DescriptorProtobufMessageConverter;
+import com.github.cloudecho.protobuf.converter.SimpleBeanConverter;
+import com.github.cloudecho.protobuf.converter.SimpleProtobufMessageConverter;
+import com.google.protobuf.Message;
+
+/**
+ * {@code ProtobufMessageConverter}: message -&gt; properties -&gt; bean, and back
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageConverterBenchmark {
+  @Param({"FLAT", "NESTED", "REPEATED", "WRAPPER"})
+  public Shape shape;
+
+  @Param({"simple", "descriptor"})
+  public String converter;
+
+  private SimpleProtobufMessageConverter messageConverter;
+  private final SimpleBeanConverter beanConverter = new SimpleBeanConverter();
+  private Message message;
+  private Map<String, ?> properties;
+  private Object bean;
+
+  @Setup
+  public void setUp() {
+    messageConverter = "descriptor".equals(converter)
+        ? new DescriptorProtobufMessageConverter()
+        : new SimpleProtobufMessageConverter();
+    message = shape.message.get();
+    properties = messageConverter.toProperties(message);
+    bean = messageConverter.toBean(shape.beanType, message, beanConverter);
+  }
+
+  @Benchmark
+  public Map<String, ?> toProperties() {
+    return messageConverter.toProperties(message);
+  }
+
+  @Benchmark
+  public Message.Builder newMessageBuilder() {
+    return messageConverter.newMessageBuilder(shape.messageType, properties);
+  }
+
+  @Benchmark
+  public Object toBean() {
+    return messageConverter.toBean(shape.beanType, message, beanConverter);
+  }
+
+  @Benchmark
+  public Message buildMessage() {
+    return messageConverter.buildMessage(shape.messageType, bean, beanConverter);
+  }
+}
@@ -0,0 +1,49 @@
+package com.github.cloudecho.protobuf.benchmark;
+
+public class NestedBean {
+  private int nestedInt;
+  private Integer nestedInteger;
+  private long nestedLong;
+  private Long nestedLongObject;
+  private String nestedString;
+
+  public int getNestedInt() {
+    return nestedInt;
+  }
+
+  public void setNestedInt(int nestedInt) {
+    this.nestedInt = nestedInt;
+  }
+
+  public Integer getNestedInteger() {
+    return nestedInteger;
+  }
+
+  public void setNestedInteger(Integer nestedInteger) {
+    this.nestedInteger = nestedInteger;
+  }
+
+  public long getNestedLong() {
+    return nestedLong;
+  }
+
+  public void setNestedLong(long nestedLong) {
+    this.nestedLong = nestedLong;
+  }
+
+  public Long getNestedLongObject() {
+    return nestedLongObject;
+  }
+
+  public void setNestedLongObject(Long nestedLongObject) {
+    this.nestedLongObject = nestedLongObject;
+  }
+
+  public String getNestedString() {
+    return nestedString;
+  }
+
+  public void setNestedString(String nestedString) {
+    this.nestedString = nestedString;
+  }
+}
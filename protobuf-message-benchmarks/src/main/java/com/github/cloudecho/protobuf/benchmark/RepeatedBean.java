@@ -0,0 +1,33 @@
+package com.github.cloudecho.protobuf.benchmark;
+
+import java.util.List;
+
+public class RepeatedBean {
+  private List<String> stringList;
+  private List<Long> longList;
+  private NestedBean[] nestedDtos;
+
+  public List<String> getStringList() {
+    return stringList;
+  }
+
+  public void setStringList(List<String> stringList) {
+    this.stringList = stringList;
+  }
+
+  public List<Long> getLongList() {
+    return longList;
+  }
+
+  public void setLongList(List<Long> longList) {
+    this.longList = longList;
+  }
+
+  public NestedBean[] getNestedDtos() {
+    return nestedDtos;
+  }
+
+  public void setNestedDtos(NestedBean[] nestedDtos) {
+    this.nestedDtos = nestedDtos;
+  }
+}
@@ -0,0 +1,46 @@
+package com.github.cloudecho.protobuf.benchmark;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.github.cloudecho.protobuf.benchmark.proto.DeepMessage;
+import com.github.cloudecho.protobuf.benchmark.proto.FlatMessage;
+import com.github.cloudecho.protobuf.benchmark.proto.RepeatedMessage;
+import com.github.cloudecho.protobuf.benchmark.proto.WrapperMessage;
+import com.google.protobuf.Message;
+
+/**
+ * The message shapes benchmarked, each with its bean type and the hand-written baseline
+ */
+public enum Shape {
+  FLAT(FlatMessage.class, FlatBean.class, Fixtures::flatMessage,
+      m -> HandWrittenMapper.toBean((FlatMessage) m),
+      b -> HandWrittenMapper.toMessage((FlatBean) b)),
+  NESTED(DeepMessage.class, DeepBean.class, Fixtures::deepMessage,
+      m -> HandWrittenMapper.toBean((DeepMessage) m),
+      b -> HandWrittenMapper.toMessage((DeepBean) b)),
+  REPEATED(RepeatedMessage.class, RepeatedBean.class, Fixtures::repeatedMessage,
+      m -> HandWrittenMapper.toBean((RepeatedMessage) m),
+      b -> HandWrittenMapper.toMessage((RepeatedBean) b)),
+  WRAPPER(WrapperMessage.class, WrapperBean.class, Fixtures::wrapperMessage,
+      m -> HandWrittenMapper.toBean((WrapperMessage) m),
+      b -> HandWrittenMapper.toMessage((WrapperBean) b));
+
+  public final Class<? extends Message> messageType;
+  public final Class<?> beanType;
+  public final Supplier<? extends Message> message;
+  public final Function<Message, Object> handWrittenToBean;
+  public final Function<Object, Message> handWrittenToMessage;
+
+  Shape(Class<? extends Message> messageType,
+        Class<?> beanType,
+        Supplier<? extends Message> message,
+        Function<Message, Object> handWrittenToBean,
+        Function<Object, Message> handWrittenToMessage) {
+    this.messageType = messageType;
+    this.beanType = beanType;
+    this.message = message;
+    this.handWrittenToBean = handWrittenToBean;
+    this.handWrittenToMessage = handWrittenToMessage;
+  }
+}
@@ -0,0 +1,87 @@
+package com.github.cloudecho.protobuf.benchmark;
+
+import java.util.Date;
+
+public class WrapperBean {
+  private Integer integer;
+  private Long aLongObject;
+  private Double aDouble;
+  private Float aFloat;
+  private Boolean aBoolean;
+  private String string;
+  private Integer unsignedInt;
+  private Long unsignedLong;
+  private Date date;
+
+  public Integer getInteger() {
+    return integer;
+  }
+
+  public void setInteger(Integer integer) {
+    this.integer = integer;
+  }
+
+  public Long getaLongObject() {
+    return aLongObject;
+  }
+
+  public void setaLongObject(Long aLongObject) {
+    this.aLongObject = aLongObject;
+  }
+
+  public Double getaDouble() {
+    return aDouble;
+  }
+
+  public void setaDouble(Double aDouble) {
+    this.aDouble = aDouble;
+  }
+
+  public Float getaFloat() {
+    return aFloat;
+  }
+
+  public void setaFloat(Float aFloat) {
+    this.aFloat = aFloat;
+  }
+
+  public Boolean getaBoolean() {
+    return aBoolean;
+  }
+
+  public void setaBoolean(Boolean aBoolean) {
+    this.aBoolean = aBoolean;
+  }
+
+  public String getString() {
+    return string;
+  }
+
+  public void setString(String string) {
+    this.string = string;
+  }
+
+  public Integer getUnsignedInt() {
+    return unsignedInt;
+  }
+
+  public void setUnsignedInt(Integer unsignedInt) {
+    this.unsignedInt = unsignedInt;
+  }
+
+  public Long getUnsignedLong() {
+    return unsignedLong;
+  }
+
+  public void setUnsignedLong(Long unsignedLong) {
+    this.unsignedLong = unsignedLong;
+  }
+
+  public Date getDate() {
+    return date;
+  }
+
+  public void setDate(Date date) {
+    this.date = date;
+  }
+}
@@ -0,0 +1,25 @@
+package com.github.cloudecho.protobuf.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import com.google.protobuf.Message;
+
+/**
+ * Declare the protobuf message type of a java bean. <br>
+ * With {@code protobuf-message-processor} on the annotation processor path, a
+ * {@link com.github.cloudecho.protobuf.converter.MessageMapper} named {@code <BeanName>MessageMapper}
+ * is generated next to the annotated bean at compile time.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface ProtobufMessage {
+  /**
+   * The protobuf message type
+   */
+  Class<? extends Message> value();
+}
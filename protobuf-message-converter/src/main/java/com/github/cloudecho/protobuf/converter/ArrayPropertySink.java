@@ -0,0 +1,155 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.protobuf.Descriptors;
+
+/**
+ * A {@link PropertySink} keeping the properties of a message type in flat arrays, one slot per field. <br>
+ * The primitive values are kept unboxed, and the arrays are reused across the messages by {@link #clear()},
+ * so converting a message of numeric fields into this sink allocates nothing.
+ * The properties which are not fields of the message type are ignored.
+ * <p>
+ * The values are got by field number, the slots of the numbers up to
+ * {@link WireFieldTable#MAX_DENSE_FIELD_NUMBER} are looked up in an array, the larger ones in a map.
+ */
+public class ArrayPropertySink implements PropertySink {
+  private final Map<String, Integer> slotsByKey = new HashMap<>();
+  private final int[] dense;
+  private final Map<Integer, Integer> sparse = new HashMap<>();
+  private final Object[] values;
+  private final long[] longs;
+  private final double[] doubles;
+  private final boolean[] present;
+
+  public ArrayPropertySink(ConversionPlan plan) {
+    int maxDense = 0;
+    for (Descriptors.FieldDescriptor field : plan.getFields().values()) {
+      if (field.getNumber() <= WireFieldTable.MAX_DENSE_FIELD_NUMBER) {
+        maxDense = Math.max(maxDense, field.getNumber());
+      }
+    }
+    this.dense = new int[maxDense + 1];
+    Arrays.fill(dense, -1);
+    for (Map.Entry<String, Descriptors.FieldDescriptor> entry : plan.getFields().entrySet()) {
+      int slot = slotsByKey.size();
+      int number = entry.getValue().getNumber();
+      slotsByKey.put(entry.getKey(), slot);
+      if (number <= WireFieldTable.MAX_DENSE_FIELD_NUMBER) {
+        dense[number] = slot;
+      } else {
+        sparse.put(number, slot);
+      }
+    }
+    int size = slotsByKey.size();
+    this.values = new Object[size];
+    this.longs = new long[size];
+    this.doubles = new double[size];
+    this.present = new boolean[size];
+  }
+
+  private int slotOf(String key) {
+    Integer slot = slotsByKey.get(key);
+    return slot == null ? -1 : slot;
+  }
+
+  private int slotOf(int fieldNumber) {
+    if (fieldNumber >= 0 && fieldNumber < dense.length) {
+      return dense[fieldNumber];
+    }
+    Integer slot = sparse.get(fieldNumber);
+    return slot == null ? -1 : slot;
+  }
+
+  @Override
+  public void put(String key, Object value) {
+    int n = slotOf(key);
+    if (n >= 0) {
+      values[n] = value;
+      present[n] = true;
+    }
+  }
+
+  @Override
+  public void putInt(String key, int value) {
+    putLong(key, value);
+  }
+
+  @Override
+  public void putLong(String key, long value) {
+    int n = slotOf(key);
+    if (n >= 0) {
+      longs[n] = value;
+      present[n] = true;
+    }
+  }
+
+  @Override
+  public void putFloat(String key, float value) {
+    putDouble(key, value);
+  }
+
+  @Override
+  public void putDouble(String key, double value) {
+    int n = slotOf(key);
+    if (n >= 0) {
+      doubles[n] = value;
+      present[n] = true;
+    }
+  }
+
+  @Override
+  public void putBoolean(String key, boolean value) {
+    putLong(key, value ? 1 : 0);
+  }
+
+  /**
+   * Whether the field of the given number is written since the last {@link #clear()}
+   */
+  public boolean has(int fieldNumber) {
+    int slot = slotOf(fieldNumber);
+    return slot >= 0 && present[slot];
+  }
+
+  /**
+   * The value of a non-primitive field, e.g. a string or a nested properties map,
+   * {@code null} if the message type has no field of the number
+   */
+  public Object get(int fieldNumber) {
+    int slot = slotOf(fieldNumber);
+    return slot < 0 ? null : values[slot];
+  }
+
+  /**
+   * The value of an integral field, i.e. int, long or enum number, a bool field is either 1 or 0
+   */
+  public long getLong(int fieldNumber) {
+    int slot = slotOf(fieldNumber);
+    return slot < 0 ? 0 : longs[slot];
+  }
+
+  /**
+   * The value of a float or double field
+   */
+  public double getDouble(int fieldNumber) {
+    int slot = slotOf(fieldNumber);
+    return slot < 0 ? 0 : doubles[slot];
+  }
+
+  public boolean getBoolean(int fieldNumber) {
+    return getLong(fieldNumber) != 0;
+  }
+
+  /**
+   * Remove all the values, so that the sink is ready for the next message of the same type. <br>
+   * The primitive values are reset to zero, as the ones of the fields never written.
+   */
+  public void clear() {
+    Arrays.fill(values, null);
+    Arrays.fill(longs, 0);
+    Arrays.fill(doubles, 0);
+    Arrays.fill(present, false);
+  }
+}
@@ -0,0 +1,372 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+import com.google.protobuf.Message;
+
+/**
+ * A {@link ProtobufMessageConverter} which runs the conversions on an executor and returns {@code CompletableFuture}s,
+ * e.g. to keep the conversion of large messages off the event-loop threads of a non-blocking server. <br>
+ * At most {@code maxInFlight} conversions run at the same time, the others wait in a queue without blocking
+ * the caller, so the futures of a reactive stream can be composed in order,
+ * e.g. {@code flux.flatMapSequential(m -> Mono.fromFuture(converter.toBeanAsync(...)))}.
+ * The queue is unbounded by default, the callers apply the backpressure, e.g. by the demand of the stream;
+ * with {@code maxPending} the conversions beyond it fail with a {@link RejectedExecutionException} instead.
+ * <p>
+ * The default executor runs the conversions on virtual threads if the JVM has them (JDK 21+),
+ * otherwise on the common fork-join pool. The synchronous methods are run by the delegate on the calling thread.
+ */
+public class AsyncProtobufMessageConverter implements ProtobufMessageConverter {
+  private final ProtobufMessageConverter delegate;
+  private final Executor executor;
+  private final int maxInFlight;
+  private final int maxPending;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final Queue<Conversion<?>> pending = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pendingCount = new AtomicInteger();
+
+  public AsyncProtobufMessageConverter(ProtobufMessageConverter delegate) {
+    this(delegate, defaultExecutor(), Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @param executor    The executor of the conversions
+   * @param maxInFlight The maximum count of the conversions running at the same time,
+   *                    a batch is split into at most that many conversions
+   */
+  public AsyncProtobufMessageConverter(ProtobufMessageConverter delegate, Executor executor, int maxInFlight) {
+    this(delegate, executor, maxInFlight, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @param maxPending The maximum count of the conversions waiting for a slot, the futures of the ones
+   *                   submitted beyond it fail with a {@link RejectedExecutionException}
+   */
+  public AsyncProtobufMessageConverter(ProtobufMessageConverter delegate, Executor executor, int maxInFlight,
+                                       int maxPending) {
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+    }
+    if (maxPending < 1) {
+      throw new IllegalArgumentException("maxPending must be positive: " + maxPending);
+    }
+    this.delegate = delegate;
+    this.executor = executor;
+    this.maxInFlight = maxInFlight;
+    this.maxPending = maxPending;
+  }
+
+  /**
+   * The virtual-thread-per-task executor if the JVM has virtual threads, otherwise the common fork-join pool
+   */
+  public static Executor defaultExecutor() {
+    return DefaultExecutorHolder.EXECUTOR;
+  }
+
+  @Override
+  public Map<String, ?> toProperties(Message message) {
+    return delegate.toProperties(message);
+  }
+
+  @Override
+  public <T extends Message> Message.Builder newMessageBuilder(Class<T> messageType, Map<String, ?> properties) {
+    return delegate.newMessageBuilder(messageType, properties);
+  }
+
+  @Override
+  public <T extends Message> Message.Builder
+  newMessageBuilder(Class<T> messageType, Object bean, BeanConverter beanConverter) {
+    return delegate.newMessageBuilder(messageType, bean, beanConverter);
+  }
+
+  @Override
+  public <T> T toBean(Class<T> beanType, Message message, BeanConverter beanConverter) {
+    return delegate.toBean(beanType, message, beanConverter);
+  }
+
+  @Override
+  public <T> List<T> toBeans(Class<T> beanType, List<? extends Message> messages, BeanConverter beanConverter) {
+    return delegate.toBeans(beanType, messages, beanConverter);
+  }
+
+  @Override
+  public <M extends Message, T> DelimitedMessageIterator<M, T>
+  toBeanIterator(Class<M> messageType, Class<T> beanType, InputStream input, BeanConverter beanConverter) {
+    return delegate.toBeanIterator(messageType, beanType, input, beanConverter);
+  }
+
+  @Override
+  public <M extends Message, T> Stream<T>
+  toBeanStream(Class<M> messageType, Class<T> beanType, InputStream input, BeanConverter beanConverter) {
+    return delegate.toBeanStream(messageType, beanType, input, beanConverter);
+  }
+
+  @Override
+  public <M extends Message, T> Stream<T>
+  toBeanStream(Class<M> messageType, Class<T> beanType, ReadableByteChannel channel, BeanConverter beanConverter) {
+    return delegate.toBeanStream(messageType, beanType, channel, beanConverter);
+  }
+
+  @Override
+  public <T extends Message> T buildMessage(Class<T> messageType, Map<String, ?> properties) {
+    return delegate.buildMessage(messageType, properties);
+  }
+
+  @Override
+  public <T extends Message> T buildMessage(Class<T> messageType, Object bean, BeanConverter beanConverter) {
+    return delegate.buildMessage(messageType, bean, beanConverter);
+  }
+
+  @Override
+  public <T extends Message> List<T>
+  buildMessages(Class<T> messageType, List<?> beans, BeanConverter beanConverter) {
+    return delegate.buildMessages(messageType, beans, beanConverter);
+  }
+
+  public CompletableFuture<Map<String, ?>> toPropertiesAsync(Message message) {
+    return submit(() -> delegate.toProperties(message));
+  }
+
+  public <T> CompletableFuture<T> toBeanAsync(Class<T> beanType, Message message, BeanConverter beanConverter) {
+    return submit(() -> delegate.toBean(beanType, message, beanConverter));
+  }
+
+  public <T extends Message> CompletableFuture<T> buildMessageAsync(Class<T> messageType, Map<String, ?> properties) {
+    return submit(() -> delegate.buildMessage(messageType, properties));
+  }
+
+  public <T extends Message> CompletableFuture<T>
+  buildMessageAsync(Class<T> messageType, Object bean, BeanConverter beanConverter) {
+    return submit(() -> delegate.buildMessage(messageType, bean, beanConverter));
+  }
+
+  /**
+   * Convert the messages in batches, at most {@code maxInFlight} of them
+   *
+   * @return The future of the beans, in the same order as the messages
+   */
+  public <T> CompletableFuture<List<T>>
+  toBeansAsync(Class<T> beanType, List<? extends Message> messages, BeanConverter beanConverter) {
+    return convertAllAsync(messages, batch -> delegate.toBeans(beanType, batch, beanConverter));
+  }
+
+  /**
+   * Build the messages in batches, at most {@code maxInFlight} of them
+   *
+   * @return The future of the messages, in the same order as the beans
+   */
+  public <T extends Message> CompletableFuture<List<T>>
+  buildMessagesAsync(Class<T> messageType, List<?> beans, BeanConverter beanConverter) {
+    return convertAllAsync(beans, batch -> delegate.buildMessages(messageType, batch, beanConverter));
+  }
+
+  /**
+   * Convert the messages of the iterator lazily, up to {@code maxInFlight} messages ahead of the consumer. <br>
+   * The beans are returned in the same order as the messages, {@code next()} waits for the conversion of
+   * the next message, so the iterator is meant to be consumed by a worker thread, e.g. a virtual thread.
+   */
+  public <T> Iterator<T>
+  toBeanIterator(Class<T> beanType, Iterator<? extends Message> messages, BeanConverter beanConverter) {
+    return new OrderedIterator<>(messages, message -> toBeanAsync(beanType, message, beanConverter));
+  }
+
+  public ProtobufMessageConverter getDelegate() {
+    return delegate;
+  }
+
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  /**
+   * The count of the conversions running
+   */
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  /**
+   * The count of the conversions waiting for a slot
+   */
+  public int getPending() {
+    return pendingCount.get();
+  }
+
+  /**
+   * Split the sources into at most {@code maxInFlight} batches, each batch is converted by a conversion
+   *
+   * @return The future of the results, in the same order as the sources
+   */
+  @SuppressWarnings("unchecked")
+  protected <S, R> CompletableFuture<List<R>>
+  convertAllAsync(List<? extends S> sources, Function<List<? extends S>, List<? extends R>> converter) {
+    List<? extends S> list = sources instanceof RandomAccess ? sources : new ArrayList<>(sources);
+    int n = list.size();
+    if (n == 0) {
+      return CompletableFuture.completedFuture(new ArrayList<>());
+    }
+    int batchSize = (n + maxInFlight - 1) / maxInFlight;
+    Object[] results = new Object[n];
+    List<CompletableFuture<?>> batches = new ArrayList<>((n + batchSize - 1) / batchSize);
+    for (int from = 0; from < n; from += batchSize) {
+      int start = from;
+      int end = Math.min(n, from + batchSize);
+      batches.add(submit(() -> {
+        List<? extends R> converted = converter.apply(list.subList(start, end));
+        for (int i = 0; i < converted.size(); i++) {
+          results[start + i] = converted.get(i);
+        }
+        return null;
+      }));
+    }
+    return CompletableFuture.allOf(batches.toArray(new CompletableFuture[0]))
+        .thenApply(v -> (List<R>) Arrays.asList(results));
+  }
+
+  /**
+   * Queue a conversion, it is run on the executor as soon as less than {@code maxInFlight} conversions are running.
+   * If {@code maxPending} conversions are waiting already, the future fails without queueing it.
+   */
+  protected <R> CompletableFuture<R> submit(Supplier<? extends R> supplier) {
+    Conversion<R> conversion = new Conversion<>(supplier);
+    if (pendingCount.incrementAndGet() > maxPending) {
+      pendingCount.decrementAndGet();
+      conversion.result.completeExceptionally(new RejectedExecutionException(
+          "too many conversions pending, maxPending: " + maxPending));
+      return conversion.result;
+    }
+    pending.add(conversion);
+    drain();
+    return conversion.result;
+  }
+
+  private void drain() {
+    while (!pending.isEmpty()) {
+      int running = inFlight.get();
+      if (running >= maxInFlight) {
+        return;
+      }
+      if (!inFlight.compareAndSet(running, running + 1)) {
+        continue;
+      }
+      Conversion<?> conversion = pending.poll();
+      if (conversion == null) {
+        inFlight.decrementAndGet();
+        continue;
+      }
+      pendingCount.decrementAndGet();
+      try {
+        executor.execute(conversion);
+      } catch (RejectedExecutionException ex) {
+        inFlight.decrementAndGet();
+        conversion.result.completeExceptionally(ex);
+      }
+    }
+  }
+
+  private final class Conversion<R> implements Runnable {
+    private final Supplier<? extends R> supplier;
+    private final CompletableFuture<R> result = new CompletableFuture<>();
+
+    Conversion(Supplier<? extends R> supplier) {
+      this.supplier = supplier;
+    }
+
+    /**
+     * The slot is released before the future is completed, the dependent actions of the future do not hold it
+     */
+    @Override
+    public void run() {
+      R value = null;
+      Throwable failure = null;
+      try {
+        value = supplier.get();
+      } catch (Throwable ex) {
+        failure = ex;
+      }
+      inFlight.decrementAndGet();
+      drain();
+      if (failure == null) {
+        result.complete(value);
+      } else {
+        result.completeExceptionally(failure);
+      }
+    }
+  }
+
+  /**
+   * Keep up to {@code maxInFlight} futures ahead of the consumer, and return their results in order
+   */
+  private final class OrderedIterator<S, R> implements Iterator<R> {
+    private final Iterator<? extends S> sources;
+    private final Function<? super S, CompletableFuture<R>> converter;
+    private final ArrayDeque<CompletableFuture<R>> ahead = new ArrayDeque<>();
+
+    OrderedIterator(Iterator<? extends S> sources, Function<? super S, CompletableFuture<R>> converter) {
+      this.sources = sources;
+      this.converter = converter;
+    }
+
+    @Override
+    public boolean hasNext() {
+      fill();
+      return !ahead.isEmpty();
+    }
+
+    @Override
+    public R next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      try {
+        return ahead.poll().join();
+      } catch (CompletionException ex) {
+        if (ex.getCause() instanceof MessageConvertException) {
+          throw (MessageConvertException) ex.getCause();
+        }
+        throw new MessageConvertException(ex.getCause());
+      }
+    }
+
+    private void fill() {
+      while (ahead.size() < maxInFlight && sources.hasNext()) {
+        ahead.add(converter.apply(sources.next()));
+      }
+    }
+  }
+
+  private static final class DefaultExecutorHolder {
+    static final Executor EXECUTOR = createDefaultExecutor();
+
+    private static Executor createDefaultExecutor() {
+      try {
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (ReflectiveOperationException | LinkageError ex) {
+        return ForkJoinPool.commonPool();
+      }
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.github.cloudecho.protobuf.converter;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+import com.google.protobuf.Message;
+
+/**
+ * Map java beans and protobuf messages to each other directly, i.e. without the intermediate properties map
+ * used by {@link ProtobufMessageConverter#toBean(Class, Message, BeanConverter)} and
+ * {@link ProtobufMessageConverter#buildMessage(Class, Object, BeanConverter)}.
+ */
+public interface BeanMessageMapper {
+  /**
+   * Convert a protobuf message to a java bean
+   *
+   * @param beanType The target bean type
+   * @param message  A protobuf message
+   * @param <T>      The type of the target bean
+   * @return The target bean
+   */
+  <T> T toBean(Class<T> beanType, Message message)
+      throws MessageConvertException;
+
+  /**
+   * Create a {@code Message.Builder} with the given bean
+   *
+   * @param messageType The type of the target object to be populated
+   * @param bean        The given bean
+   * @param <T>         The type of the protobuf message
+   * @return The {@code Message.Builder} populated with the given bean
+   */
+  <T extends Message> Message.Builder
+  newMessageBuilder(Class<T> messageType, Object bean)
+      throws MessageConvertException;
+
+  /**
+   * Build a protobuf message with the given bean
+   *
+   * @param messageType The type of the target object to be populated
+   * @param bean        The given bean
+   * @param <T>         The type of protobuf message
+   * @return The populated protobuf message object
+   */
+  @SuppressWarnings("unchecked")
+  default <T extends Message> T
+  buildMessage(Class<T> messageType, Object bean)
+      throws MessageConvertException {
+    return (T) newMessageBuilder(messageType, bean).build();
+  }
+}
@@ -0,0 +1,178 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cglib.reflect.FastClass;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+
+/**
+ * A {@link BeanConverter} which generates a dedicated accessor class for each bean type at first use. <br>
+ * The getters, setters and the no-arg constructor are called through the index-based dispatch of the
+ * generated class rather than {@link Method#invoke}. Bean types for which no accessor class can be
+ * generated (e.g. non-public classes) are handled by {@link SimpleBeanConverter}.
+ */
+public class BytecodeBeanConverter extends SimpleBeanConverter {
+  private static final Logger logger = LoggerFactory.getLogger(BytecodeBeanConverter.class);
+
+  private static final Object[] NO_ARGS = new Object[0];
+  private static final Class<?>[] NO_PARAMETER_TYPES = new Class<?>[0];
+
+  @Override
+  protected <T> T toBean0(Class<T> beanType, Map<String, ?> properties) {
+    Optional<BeanAccessor> accessor = getBeanAccessor(beanType);
+    if (!accessor.isPresent()) {
+      return super.toBean0(beanType, properties);
+    }
+
+    BeanAccessor a = accessor.get();
+    T bean = a.constructorIndex < 0 ? newInstance(beanType) : a.newInstance(beanType);
+    Object[] args = new Object[1];
+    for (Map.Entry<String, ?> entry : properties.entrySet()) {
+      Object v = entry.getValue();
+      if (v == null) {
+        continue;
+      }
+      BeanProperty property = a.writers.get(entry.getKey());
+      if (property == null) {
+        setProperty(beanType, bean, entry.getKey(), v);
+        continue;
+      }
+      args[0] = toPropertyValue(property.type, property.genericType, v);
+      a.invoke(property.setterIndex, bean, args);
+    }
+    return bean;
+  }
+
+  @Override
+  protected <T> Map<String, ?> toProperties0(T bean) {
+    Optional<BeanAccessor> accessor = getBeanAccessor(bean.getClass());
+    if (!accessor.isPresent()) {
+      return super.toProperties0(bean);
+    }
+
+    BeanAccessor a = accessor.get();
+    Map<String, Object> result = new HashMap<>();
+    for (BeanProperty property : a.readers) {
+      Object value = a.invoke(property.getterIndex, bean, NO_ARGS);
+      if (value != null) {
+        result.put(property.propertyKey, toPropertiesMapValue(value));
+      }
+    }
+    return result;
+  }
+
+  protected final ClassValueCache<Optional<BeanAccessor>> BEAN_ACCESSOR_CACHE =
+      new ClassValueCache<>(this::getBeanAccessor0);
+
+  @Override
+  protected Map<String, ClassValueCache<?>> getCaches() {
+    Map<String, ClassValueCache<?>> caches = super.getCaches();
+    caches.put("BEAN_ACCESSOR_CACHE", BEAN_ACCESSOR_CACHE);
+    return caches;
+  }
+
+  protected Optional<BeanAccessor> getBeanAccessor(Class<?> beanType) {
+    return BEAN_ACCESSOR_CACHE.get(beanType);
+  }
+
+  protected Optional<BeanAccessor> getBeanAccessor0(Class<?> beanType) {
+    if (!Modifier.isPublic(beanType.getModifiers())) {
+      return Optional.empty();
+    }
+    FastClass fastClass;
+    try {
+      FastClass.Generator generator = new FastClass.Generator();
+      generator.setType(beanType);
+      generator.setClassLoader(beanType.getClassLoader());
+      // define the accessor class next to the bean type, no need to open java.lang on JDK 9+
+      generator.setContextClass(beanType);
+      fastClass = generator.create();
+    } catch (RuntimeException | LinkageError ex) {
+      logger.debug("Cannot generate accessor class, bean type: {}", beanType.getName(), ex);
+      return Optional.empty();
+    }
+
+    BeanAccessor accessor = new BeanAccessor(fastClass, fastClass.getIndex(NO_PARAMETER_TYPES));
+    for (Method m : beanType.getMethods()) {
+      if (!isGetter(m)) {
+        continue;
+      }
+      String propertyKey = toPropertiesMapKey(m.getName());
+      BeanProperty property = new BeanProperty(propertyKey, m.getReturnType(), m.getGenericReturnType());
+      property.getterIndex = fastClass.getIndex(m.getName(), NO_PARAMETER_TYPES);
+      if (property.getterIndex < 0) {
+        return Optional.empty();
+      }
+      accessor.readers.add(property);
+
+      // the same getter and setter as SimpleBeanConverter resolves by the property key
+      Optional<Method> setter = getterMethod(beanType, propertyKey)
+          .filter(m::equals)
+          .flatMap(g -> setterMethod(beanType, g));
+      if (setter.isPresent()) {
+        property.setterIndex = fastClass.getIndex(setter.get().getName(), setter.get().getParameterTypes());
+        if (property.setterIndex >= 0) {
+          accessor.writers.put(propertyKey, property);
+        }
+      }
+    }
+    logger.debug("accessor class generated: {}, bean type: {}", fastClass.getClass().getName(), beanType.getName());
+    return Optional.of(accessor);
+  }
+
+  protected static class BeanAccessor {
+    final FastClass fastClass;
+    final int constructorIndex;
+    final List<BeanProperty> readers = new ArrayList<>();
+    final Map<String, BeanProperty> writers = new HashMap<>();
+
+    BeanAccessor(FastClass fastClass, int constructorIndex) {
+      this.fastClass = fastClass;
+      this.constructorIndex = constructorIndex;
+    }
+
+    Object invoke(int index, Object bean, Object[] args) {
+      try {
+        return fastClass.invoke(index, bean, args);
+      } catch (InvocationTargetException ex) {
+        throw new MessageConvertException(ex.getCause());
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T newInstance(Class<T> beanType) {
+      try {
+        return (T) fastClass.newInstance(constructorIndex, NO_ARGS);
+      } catch (InvocationTargetException ex) {
+        throw new MessageConvertException(
+            String.format("Creating instance of \"%s\" fail", beanType.getName()),
+            ex.getCause());
+      }
+    }
+  }
+
+  protected static class BeanProperty {
+    final String propertyKey;
+    final Class<?> type;
+    final Type genericType;
+    int getterIndex = -1;
+    int setterIndex = -1;
+
+    BeanProperty(String propertyKey, Class<?> type, Type genericType) {
+      this.propertyKey = propertyKey;
+      this.type = type;
+      this.genericType = genericType;
+    }
+  }
+}
@@ -0,0 +1,234 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.protobuf.Message;
+
+/**
+ * A {@link ProtobufMessageConverter} which memoizes the properties of the converted messages in a bounded cache,
+ * e.g. for the reference data converted again and again. The messages are immutable, so are the cached properties:
+ * the maps and the lists are unmodifiable all the way down, and the beans are populated from them at each call. <br>
+ * The mutable values, i.e. {@code Date}, {@code byte[]} and {@code ByteBuffer}, are copied for each caller
+ * along with the maps and lists containing them, the other values and containers are shared.
+ * {@link SimpleProtobufMessageConverter.BytesMode#BYTE_STRING} shares immutable bytes without copying.
+ * <p>
+ * The messages are built by the delegate as they are, the builders are mutable.
+ */
+public class CachingProtobufMessageConverter implements ProtobufMessageConverter {
+  /**
+   * The default maximum count of the cached messages
+   */
+  public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+
+  /**
+   * Weigh a cached entry by the count of its properties, for {@link CacheBuilder#maximumWeight}
+   */
+  public static final Weigher<Object, Object> PROPERTY_COUNT_WEIGHER = (key, value) ->
+      value instanceof Frozen ? Math.max(1, ((Frozen) value).properties.size()) : 1;
+
+  public enum KeyMode {
+    /**
+     * The same message instance hits, the keys are weakly referenced and compared by {@code ==} (the default)
+     */
+    IDENTITY,
+    /**
+     * An equal message hits, the keys are compared by the content hash memoized in the message and by {@code equals}
+     */
+    EQUALITY
+  }
+
+  private final ProtobufMessageConverter delegate;
+  private final Cache<Message, Frozen> properties;
+
+  public CachingProtobufMessageConverter(ProtobufMessageConverter delegate) {
+    this(delegate, DEFAULT_MAXIMUM_SIZE);
+  }
+
+  public CachingProtobufMessageConverter(ProtobufMessageConverter delegate, long maximumSize) {
+    this(delegate, CacheBuilder.newBuilder().maximumSize(maximumSize), KeyMode.IDENTITY);
+  }
+
+  /**
+   * @param cacheBuilder The cache spec, e.g. {@code maximumWeight} with {@link #PROPERTY_COUNT_WEIGHER},
+   *                     or {@code expireAfterWrite}. The stats are always recorded.
+   */
+  public CachingProtobufMessageConverter(ProtobufMessageConverter delegate,
+                                         CacheBuilder<Object, Object> cacheBuilder, KeyMode keyMode) {
+    this.delegate = delegate;
+    if (keyMode == KeyMode.IDENTITY) {
+      cacheBuilder.weakKeys();
+    }
+    this.properties = cacheBuilder.recordStats().build();
+  }
+
+  /**
+   * The cached properties of the message, unmodifiable, with the mutable values copied
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public Map<String, ?> toProperties(Message message) {
+    Frozen frozen;
+    try {
+      frozen = properties.get(message, () -> {
+        Map<String, ?> result = (Map<String, ?>) freeze(delegate.toProperties(message));
+        return new Frozen(result, hasMutableValue(result));
+      });
+    } catch (ExecutionException | UncheckedExecutionException ex) {
+      if (ex.getCause() instanceof MessageConvertException) {
+        throw (MessageConvertException) ex.getCause();
+      }
+      throw new MessageConvertException(ex.getCause());
+    }
+    return frozen.mutable ? (Map<String, ?>) thaw(frozen.properties) : frozen.properties;
+  }
+
+  @Override
+  public <T extends Message> Message.Builder newMessageBuilder(Class<T> messageType, Map<String, ?> properties) {
+    return delegate.newMessageBuilder(messageType, properties);
+  }
+
+  @Override
+  public <T extends Message> Message.Builder
+  newMessageBuilder(Class<T> messageType, Object bean, BeanConverter beanConverter) {
+    return delegate.newMessageBuilder(messageType, bean, beanConverter);
+  }
+
+  public ProtobufMessageConverter getDelegate() {
+    return delegate;
+  }
+
+  /**
+   * The hit and miss counts, the load time and the evictions
+   */
+  public CacheStats stats() {
+    return properties.stats();
+  }
+
+  /**
+   * The approximate count of the cached messages
+   */
+  public long size() {
+    return properties.size();
+  }
+
+  public void invalidate(Message message) {
+    properties.invalidate(message);
+  }
+
+  public void invalidateAll() {
+    properties.invalidateAll();
+  }
+
+  /**
+   * An unmodifiable deep copy of the properties, the values other than maps and lists are shared. <br>
+   * The keys of the nested maps are kept as they are, e.g. the integers of a {@code map<int32, ...>} field.
+   */
+  protected Map<?, ?> freeze(Map<?, ?> map) {
+    Map<Object, Object> result = new LinkedHashMap<>(MapPropertySink.capacityFor(map.size()));
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      result.put(entry.getKey(), freezeValue(entry.getValue()));
+    }
+    return Collections.unmodifiableMap(result);
+  }
+
+  protected Object freezeValue(Object value) {
+    if (value instanceof Map) {
+      return freeze((Map<?, ?>) value);
+    }
+    if (value instanceof List) {
+      List<?> list = (List<?>) value;
+      List<Object> result = new ArrayList<>(list.size());
+      for (Object element : list) {
+        result.add(freezeValue(element));
+      }
+      return Collections.unmodifiableList(result);
+    }
+    return value;
+  }
+
+  protected boolean isMutableValue(Object value) {
+    return value instanceof Date || value instanceof byte[] || value instanceof ByteBuffer;
+  }
+
+  protected boolean hasMutableValue(Object value) {
+    if (value instanceof Map) {
+      return ((Map<?, ?>) value).values().stream().anyMatch(this::hasMutableValue);
+    } else if (value instanceof List) {
+      return ((List<?>) value).stream().anyMatch(this::hasMutableValue);
+    }
+    return isMutableValue(value);
+  }
+
+  /**
+   * A copy of the frozen properties for a caller, only the maps and lists containing mutable values are copied
+   */
+  protected Map<?, ?> thaw(Map<?, ?> map) {
+    Map<Object, Object> result = null;
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      Object value = thawValue(entry.getValue());
+      if (value != entry.getValue() && result == null) {
+        result = new LinkedHashMap<>(map);
+      }
+      if (result != null) {
+        result.put(entry.getKey(), value);
+      }
+    }
+    return result == null ? map : Collections.unmodifiableMap(result);
+  }
+
+  /**
+   * Copy a mutable value, i.e. {@code Date}, {@code byte[]}, or a read-only {@code ByteBuffer} of which
+   * the position and limit are not shared, otherwise the value itself
+   */
+  protected Object thawValue(Object value) {
+    if (value instanceof Date) {
+      return ((Date) value).clone();
+    } else if (value instanceof byte[]) {
+      return ((byte[]) value).clone();
+    } else if (value instanceof ByteBuffer) {
+      return ((ByteBuffer) value).asReadOnlyBuffer();
+    } else if (value instanceof Map) {
+      return thaw((Map<?, ?>) value);
+    } else if (value instanceof List) {
+      List<?> list = (List<?>) value;
+      List<Object> result = null;
+      for (int i = 0; i < list.size(); i++) {
+        Object element = thawValue(list.get(i));
+        if (element != list.get(i) && result == null) {
+          result = new ArrayList<>(list);
+        }
+        if (result != null) {
+          result.set(i, element);
+        }
+      }
+      return result == null ? list : Collections.unmodifiableList(result);
+    }
+    return value;
+  }
+
+  /**
+   * The frozen properties of a message, and whether they contain mutable values to be copied for each caller
+   */
+  private static final class Frozen {
+    final Map<String, ?> properties;
+    final boolean mutable;
+
+    Frozen(Map<String, ?> properties, boolean mutable) {
+      this.properties = properties;
+      this.mutable = mutable;
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * A cache of class metadata, looked up through {@link ClassValue}. <br>
+ * A lookup neither builds nor hashes a key string. The metadata of the classes of the loader of the cache,
+ * or of its ancestors, is held by the cache, weakly keyed by class, and the classes hold weak references to it only:
+ * the metadata often references the converter owning the cache, which must not make the converter reachable
+ * from the classes (JDK-8136353). So a discarded converter is collected along with its metadata.
+ * <p>
+ * The metadata of the classes of the other loaders, e.g. the ones of a web application, is held by the classes
+ * themselves: it often references its class, so held by the cache it would keep the loader from being collected.
+ * A discarded loader is collected along with the metadata, while the metadata keeps the converter reachable
+ * as long as the classes are loaded.
+ * <p>
+ * The requests and the loads are counted only after {@link #recordStats} is turned on, the lookups cost nothing
+ * extra otherwise. The entries of the per-class maps of {@link #ofMaps()}, looked up by {@link #getEntry},
+ * are counted apart from the classes.
+ *
+ * @param <V> The metadata type
+ */
+public final class ClassValueCache<V> {
+  private final Function<Class<?>, ? extends V> loader;
+  private final ConcurrentMap<Class<?>, V> values = new MapMaker().weakKeys().makeMap();
+  /**
+   * The classes of the other loaders, of which the metadata is held by the classes, for {@link #size()}
+   */
+  private final Set<Class<?>> foreignTypes = Collections.newSetFromMap(new MapMaker().weakKeys().makeMap());
+  private final ClassValue<Supplier<V>> references;
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder entryRequests = new LongAdder();
+  private final LongAdder entryLoads = new LongAdder();
+  private volatile boolean recordStats;
+
+  public ClassValueCache(Function<Class<?>, ? extends V> loader) {
+    this.loader = loader;
+    this.references = new ClassValue<Supplier<V>>() {
+      @Override
+      protected Supplier<V> computeValue(Class<?> type) {
+        if (isForeign(type)) {
+          V value = loadForeign(type);
+          return () -> value;
+        }
+        return new WeakReference<>(load(type))::get;
+      }
+    };
+  }
+
+  /**
+   * A cache holding a concurrent map per class, e.g. the methods of a class by name, see {@link #getEntry}
+   */
+  public static <K, E> ClassValueCache<ConcurrentMap<K, E>> ofMaps() {
+    return new ClassValueCache<>(type -> new ConcurrentHashMap<>());
+  }
+
+  /**
+   * The metadata of the class, loaded at the first call
+   */
+  public V get(Class<?> type) {
+    if (recordStats) {
+      requests.increment();
+    }
+    V value = references.get(type).get();
+    return value != null ? value : load(type);
+  }
+
+  /**
+   * The entry of the per-class map of the class, loaded at the first call
+   */
+  public static <K, E> E getEntry(ClassValueCache<ConcurrentMap<K, E>> cache, Class<?> type, K key,
+                                  Function<? super K, ? extends E> loader) {
+    ConcurrentMap<K, E> entries = cache.get(type);
+    boolean recordStats = cache.recordStats;
+    if (recordStats) {
+      cache.entryRequests.increment();
+    }
+    E entry = entries.get(key);
+    if (entry == null) {
+      entry = loader.apply(key);
+      E existing = entries.putIfAbsent(key, entry);
+      if (existing != null) {
+        entry = existing;
+      } else if (recordStats) {
+        cache.entryLoads.increment();
+      }
+    }
+    return entry;
+  }
+
+  private V load(Class<?> type) {
+    return values.computeIfAbsent(type, t -> {
+      if (recordStats) {
+        loads.increment();
+      }
+      return loader.apply(t);
+    });
+  }
+
+  private V loadForeign(Class<?> type) {
+    if (recordStats) {
+      loads.increment();
+    }
+    V value = loader.apply(type);
+    foreignTypes.add(type);
+    return value;
+  }
+
+  /**
+   * Whether the class is loaded by neither the loader of the cache nor one of its ancestors,
+   * i.e. it may be unloaded while the cache is in use
+   */
+  private static boolean isForeign(Class<?> type) {
+    ClassLoader typeLoader = type.getClassLoader();
+    if (typeLoader == null) {
+      return false;
+    }
+    for (ClassLoader l = ClassValueCache.class.getClassLoader(); l != null; l = l.getParent()) {
+      if (l == typeLoader) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Discard the metadata of the class, it is loaded again at the next {@link #get} call
+   */
+  public void invalidate(Class<?> type) {
+    values.remove(type);
+    foreignTypes.remove(type);
+    references.remove(type);
+  }
+
+  public void recordStats(boolean recordStats) {
+    this.recordStats = recordStats;
+  }
+
+  /**
+   * The class lookups, since the stats are recorded
+   */
+  public long requestCount() {
+    return requests.sum();
+  }
+
+  /**
+   * The class loads, i.e. the misses, since the stats are recorded
+   */
+  public long loadCount() {
+    return loads.sum();
+  }
+
+  /**
+   * The class lookups served without a load, since the stats are recorded
+   */
+  public long hitCount() {
+    return Math.max(0, requests.sum() - loads.sum());
+  }
+
+  /**
+   * The entry lookups of the per-class maps, since the stats are recorded
+   */
+  public long entryRequestCount() {
+    return entryRequests.sum();
+  }
+
+  /**
+   * The entry loads of the per-class maps, since the stats are recorded
+   */
+  public long entryLoadCount() {
+    return entryLoads.sum();
+  }
+
+  public long entryHitCount() {
+    return Math.max(0, entryRequests.sum() - entryLoads.sum());
+  }
+
+  /**
+   * The count of the classes of which the metadata is cached
+   */
+  public long size() {
+    return values.size() + foreignTypes.size();
+  }
+}
@@ -0,0 +1,60 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.util.Map;
+
+/**
+ * A listener of the conversions, e.g. to report them to a metrics registry. <br>
+ * The converters only measure the conversions when a listener other than {@link #NOOP} is set.
+ * Nested messages and beans are reported as well as the outermost ones.
+ */
+public interface ConversionMetrics {
+  /**
+   * The default listener, nothing is measured
+   */
+  ConversionMetrics NOOP = new ConversionMetrics() {
+  };
+
+  enum Operation {
+    /**
+     * {@link ProtobufMessageConverter#toProperties}
+     */
+    MESSAGE_TO_PROPERTIES,
+    /**
+     * {@link ProtobufMessageConverter#newMessageBuilder(Class, Map)}
+     */
+    PROPERTIES_TO_MESSAGE,
+    /**
+     * {@link BeanConverter#toBean}
+     */
+    PROPERTIES_TO_BEAN,
+    /**
+     * {@link BeanConverter#toProperties}
+     */
+    BEAN_TO_PROPERTIES
+  }
+
+  /**
+   * A conversion completed
+   *
+   * @param type       The message type or the bean type
+   * @param nanos      The elapsed time
+   * @param fieldCount The count of the properties converted
+   */
+  default void converted(Operation operation, Class<?> type, long nanos, int fieldCount) {
+  }
+
+  /**
+   * A conversion failed, the exception is thrown to the caller after this call
+   *
+   * @param type  The message type or the bean type
+   * @param nanos The elapsed time
+   */
+  default void failed(Operation operation, Class<?> type, long nanos, RuntimeException error) {
+  }
+
+  /**
+   * The metadata caches of a converter, by name, called when the listener is set to the converter
+   */
+  default void bindCaches(Object converter, Map<String, ClassValueCache<?>> caches) {
+  }
+}
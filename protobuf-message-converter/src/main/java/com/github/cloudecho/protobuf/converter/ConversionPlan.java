@@ -0,0 +1,422 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+
+/**
+ * The conversion plan of a protobuf message type, compiled once and executed by
+ * {@link SimpleProtobufMessageConverter} on every conversion.
+ */
+public class ConversionPlan {
+  private final Class<? extends Message> messageType;
+  private final List<FieldReader> readers;
+  private final Map<String, FieldWriter> writers;
+  private final Map<String, Descriptors.FieldDescriptor> fields;
+  private final Map<String, Integer> readerIndexes;
+
+  public ConversionPlan(Class<? extends Message> messageType,
+                        List<FieldReader> readers,
+                        Map<String, FieldWriter> writers) {
+    this(messageType, readers, writers, Collections.emptyMap());
+  }
+
+  public ConversionPlan(Class<? extends Message> messageType,
+                        List<FieldReader> readers,
+                        Map<String, FieldWriter> writers,
+                        Map<String, Descriptors.FieldDescriptor> fields) {
+    this.messageType = messageType;
+    this.readers = Collections.unmodifiableList(readers);
+    this.writers = Collections.unmodifiableMap(writers);
+    this.fields = Collections.unmodifiableMap(fields);
+    this.readerIndexes = new HashMap<>();
+    for (int i = 0; i < readers.size(); i++) {
+      readerIndexes.putIfAbsent(readers.get(i).getPropertyKey(), i);
+    }
+  }
+
+  public Class<? extends Message> getMessageType() {
+    return messageType;
+  }
+
+  /**
+   * The readers of the message attributes, used for converting a message to properties
+   */
+  public List<FieldReader> getReaders() {
+    return readers;
+  }
+
+  /**
+   * The index of the reader of the given property key in {@link #getReaders()}
+   *
+   * @return The index, or {@code -1} if the property key is not known by this plan
+   */
+  public int indexOf(String propertyKey) {
+    Integer index = readerIndexes.get(propertyKey);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * The writer of the given property key, used for populating a {@code Message.Builder}
+   *
+   * @return The writer, or {@code null} if the property key is not known by this plan
+   */
+  public FieldWriter getWriter(String propertyKey) {
+    return writers.get(propertyKey);
+  }
+
+  public Map<String, FieldWriter> getWriters() {
+    return writers;
+  }
+
+  /**
+   * The field of the given property key
+   *
+   * @return The field, or {@code null} if the property key is not known by this plan
+   */
+  public Descriptors.FieldDescriptor getField(String propertyKey) {
+    return fields.get(propertyKey);
+  }
+
+  /**
+   * The field number of the given property key, or {@code -1} if the property key is not known by this plan
+   */
+  public int getFieldNumber(String propertyKey) {
+    Descriptors.FieldDescriptor field = fields.get(propertyKey);
+    return field == null ? -1 : field.getNumber();
+  }
+
+  public Map<String, Descriptors.FieldDescriptor> getFields() {
+    return fields;
+  }
+
+  /**
+   * The primitive type of a property value which is read or written without boxing
+   */
+  public enum PrimitiveKind {
+    /**
+     * Not primitive, the value is boxed if any
+     */
+    NONE,
+    INT,
+    LONG,
+    FLOAT,
+    DOUBLE,
+    BOOLEAN
+  }
+
+  /**
+   * Read a message attribute and convert it to property value
+   */
+  public static class FieldReader {
+    private final String propertyKey;
+    private final Method getter;
+    private final Function<Object, Object> accessor;
+    private final Predicate<Object> presence;
+    private final Function<Object, Object> valueConverter;
+    private final PrimitiveKind primitiveKind;
+    private final Object primitiveAccessor;
+
+    public FieldReader(String propertyKey,
+                       Method getter,
+                       Function<Object, Object> accessor,
+                       Predicate<Object> presence,
+                       Function<Object, Object> valueConverter) {
+      this(propertyKey, getter, accessor, presence, valueConverter, PrimitiveKind.NONE, null);
+    }
+
+    private FieldReader(String propertyKey,
+                        Method getter,
+                        Function<Object, Object> accessor,
+                        Predicate<Object> presence,
+                        Function<Object, Object> valueConverter,
+                        PrimitiveKind primitiveKind,
+                        Object primitiveAccessor) {
+      this.propertyKey = propertyKey;
+      this.getter = getter;
+      this.accessor = accessor;
+      this.presence = presence;
+      this.valueConverter = valueConverter;
+      this.primitiveKind = primitiveKind;
+      this.primitiveAccessor = primitiveAccessor;
+    }
+
+    /**
+     * A copy of this reader, which reads the property value by the given accessor without boxing
+     */
+    public FieldReader withIntAccessor(ToIntFunction<Object> intAccessor) {
+      return withPrimitiveAccessor(PrimitiveKind.INT, intAccessor);
+    }
+
+    public FieldReader withLongAccessor(ToLongFunction<Object> longAccessor) {
+      return withPrimitiveAccessor(PrimitiveKind.LONG, longAccessor);
+    }
+
+    public FieldReader withFloatAccessor(MethodAccessors.ToFloatFunction<Object> floatAccessor) {
+      return withPrimitiveAccessor(PrimitiveKind.FLOAT, floatAccessor);
+    }
+
+    public FieldReader withDoubleAccessor(ToDoubleFunction<Object> doubleAccessor) {
+      return withPrimitiveAccessor(PrimitiveKind.DOUBLE, doubleAccessor);
+    }
+
+    public FieldReader withBooleanAccessor(Predicate<Object> booleanAccessor) {
+      return withPrimitiveAccessor(PrimitiveKind.BOOLEAN, booleanAccessor);
+    }
+
+    private FieldReader withPrimitiveAccessor(PrimitiveKind kind, Object primitiveAccessor) {
+      return new FieldReader(propertyKey, getter, accessor, presence, valueConverter, kind, primitiveAccessor);
+    }
+
+    public String getPropertyKey() {
+      return propertyKey;
+    }
+
+    public Method getGetter() {
+      return getter;
+    }
+
+    /**
+     * Whether the attribute is present in the given message. <br>
+     * It is always {@code true} if the has-method does not exist.
+     */
+    public boolean isPresent(Message message) {
+      return presence == null || presence.test(message);
+    }
+
+    /**
+     * The raw attribute value of the given message
+     */
+    public Object get(Message message) {
+      return accessor.apply(message);
+    }
+
+    /**
+     * Convert the raw attribute value to property value, may be {@code null}
+     */
+    public Object convert(Object value) {
+      return value == null ? null : valueConverter.apply(value);
+    }
+
+    /**
+     * The primitive type of the property value, {@link PrimitiveKind#NONE} if it is read by {@link #get} only
+     */
+    public PrimitiveKind getPrimitiveKind() {
+      return primitiveKind;
+    }
+
+    /**
+     * The property value of the given message, if the primitive kind is {@link PrimitiveKind#INT}
+     */
+    @SuppressWarnings("unchecked")
+    public int getInt(Message message) {
+      return ((ToIntFunction<Object>) primitiveAccessor).applyAsInt(message);
+    }
+
+    @SuppressWarnings("unchecked")
+    public long getLong(Message message) {
+      return ((ToLongFunction<Object>) primitiveAccessor).applyAsLong(message);
+    }
+
+    @SuppressWarnings("unchecked")
+    public float getFloat(Message message) {
+      return ((MethodAccessors.ToFloatFunction<Object>) primitiveAccessor).applyAsFloat(message);
+    }
+
+    @SuppressWarnings("unchecked")
+    public double getDouble(Message message) {
+      return ((ToDoubleFunction<Object>) primitiveAccessor).applyAsDouble(message);
+    }
+
+    @SuppressWarnings("unchecked")
+    public boolean getBoolean(Message message) {
+      return ((Predicate<Object>) primitiveAccessor).test(message);
+    }
+  }
+
+  /**
+   * Convert a property value to message value and set it to a {@code Message.Builder}
+   */
+  public static class FieldWriter {
+    private final String propertyKey;
+    private final Method setter;
+    private final Type targetType;
+    private final BiConsumer<Object, Object> accessor;
+    private final Function<Object, Object> valueConverter;
+    private final PrimitiveKind primitiveKind;
+    private final Object primitiveAccessor;
+
+    public FieldWriter(String propertyKey,
+                       Method setter,
+                       Type targetType,
+                       BiConsumer<Object, Object> accessor,
+                       Function<Object, Object> valueConverter) {
+      this(propertyKey, setter, targetType, accessor, valueConverter, PrimitiveKind.NONE, null);
+    }
+
+    private FieldWriter(String propertyKey,
+                        Method setter,
+                        Type targetType,
+                        BiConsumer<Object, Object> accessor,
+                        Function<Object, Object> valueConverter,
+                        PrimitiveKind primitiveKind,
+                        Object primitiveAccessor) {
+      this.propertyKey = propertyKey;
+      this.setter = setter;
+      this.targetType = targetType;
+      this.accessor = accessor;
+      this.valueConverter = valueConverter;
+      this.primitiveKind = primitiveKind;
+      this.primitiveAccessor = primitiveAccessor;
+    }
+
+    /**
+     * A copy of this writer, which sets the primitive values by the given accessor without boxing
+     */
+    public FieldWriter withIntAccessor(ObjIntConsumer<Object> intAccessor) {
+      return withPrimitiveAccessor(PrimitiveKind.INT, intAccessor);
+    }
+
+    public FieldWriter withLongAccessor(ObjLongConsumer<Object> longAccessor) {
+      return withPrimitiveAccessor(PrimitiveKind.LONG, longAccessor);
+    }
+
+    public FieldWriter withFloatAccessor(MethodAccessors.ObjFloatConsumer<Object> floatAccessor) {
+      return withPrimitiveAccessor(PrimitiveKind.FLOAT, floatAccessor);
+    }
+
+    public FieldWriter withDoubleAccessor(ObjDoubleConsumer<Object> doubleAccessor) {
+      return withPrimitiveAccessor(PrimitiveKind.DOUBLE, doubleAccessor);
+    }
+
+    public FieldWriter withBooleanAccessor(MethodAccessors.ObjBooleanConsumer<Object> booleanAccessor) {
+      return withPrimitiveAccessor(PrimitiveKind.BOOLEAN, booleanAccessor);
+    }
+
+    private FieldWriter withPrimitiveAccessor(PrimitiveKind kind, Object primitiveAccessor) {
+      return new FieldWriter(propertyKey, setter, targetType, accessor, valueConverter, kind, primitiveAccessor);
+    }
+
+    public String getPropertyKey() {
+      return propertyKey;
+    }
+
+    public Method getSetter() {
+      return setter;
+    }
+
+    public Type getTargetType() {
+      return targetType;
+    }
+
+    /**
+     * Convert the given property value to message value
+     *
+     * @return The message value, or {@code null} if nothing to be set
+     */
+    public Object convert(Object value) {
+      return value == null ? null : valueConverter.apply(value);
+    }
+
+    /**
+     * Set the given message value, which is converted already, to the builder
+     */
+    public void set(Message.Builder builder, Object messageValue) {
+      accessor.accept(builder, messageValue);
+    }
+
+    public PrimitiveKind getPrimitiveKind() {
+      return primitiveKind;
+    }
+
+    /**
+     * Set a primitive value to the builder. <br>
+     * It is narrowed or widened to the primitive kind of this writer in the same way as
+     * {@link Number#intValue()} and so on, or boxed and converted if this writer has no primitive accessor.
+     */
+    public void setInt(Message.Builder builder, int value) {
+      if (!setNumber(builder, value, value, true)) {
+        setBoxed(builder, value);
+      }
+    }
+
+    public void setLong(Message.Builder builder, long value) {
+      if (!setNumber(builder, value, value, true)) {
+        setBoxed(builder, value);
+      }
+    }
+
+    public void setFloat(Message.Builder builder, float value) {
+      if (!setNumber(builder, 0, value, false)) {
+        setBoxed(builder, value);
+      }
+    }
+
+    public void setDouble(Message.Builder builder, double value) {
+      if (!setNumber(builder, 0, value, false)) {
+        setBoxed(builder, value);
+      }
+    }
+
+    /**
+     * Set a number narrowed or widened to the primitive kind of this writer
+     *
+     * @param integral Whether the number is the {@code longValue}, otherwise the {@code doubleValue}
+     * @return {@code false} if this writer has no numeric primitive accessor
+     */
+    @SuppressWarnings("unchecked")
+    private boolean setNumber(Message.Builder builder, long longValue, double doubleValue, boolean integral) {
+      switch (primitiveKind) {
+        case INT:
+          ((ObjIntConsumer<Object>) primitiveAccessor).accept(builder,
+              integral ? (int) longValue : (int) doubleValue);
+          return true;
+        case LONG:
+          ((ObjLongConsumer<Object>) primitiveAccessor).accept(builder,
+              integral ? longValue : (long) doubleValue);
+          return true;
+        case FLOAT:
+          ((MethodAccessors.ObjFloatConsumer<Object>) primitiveAccessor).accept(builder,
+              integral ? (float) longValue : (float) doubleValue);
+          return true;
+        case DOUBLE:
+          ((ObjDoubleConsumer<Object>) primitiveAccessor).accept(builder,
+              integral ? (double) longValue : doubleValue);
+          return true;
+        default:
+          return false;
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void setBoolean(Message.Builder builder, boolean value) {
+      if (primitiveKind == PrimitiveKind.BOOLEAN) {
+        ((MethodAccessors.ObjBooleanConsumer<Object>) primitiveAccessor).accept(builder, value);
+      } else {
+        setBoxed(builder, value);
+      }
+    }
+
+    private void setBoxed(Message.Builder builder, Object value) {
+      Object messageValue = convert(value);
+      if (messageValue != null) {
+        set(builder, messageValue);
+      }
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.Internal;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+
+/**
+ * A lazy iterator over length-delimited messages, i.e. the ones written by {@link Message#writeDelimitedTo}. <br>
+ * The messages are parsed one at a time when the iterator is advanced, with a single {@link CodedInputStream}
+ * reused across the messages, so the memory used does not grow with the length of the input.
+ *
+ * @param <M> The message type
+ * @param <T> The element type, e.g. a bean converted from the message
+ */
+public class DelimitedMessageIterator<M extends Message, T> implements Iterator<T>, Closeable {
+  private final InputStream input;
+  private final CodedInputStream codedInput;
+  private final Parser<M> parser;
+  private final Function<? super M, ? extends T> converter;
+  private T next;
+  private boolean done;
+
+  @SuppressWarnings("unchecked")
+  public DelimitedMessageIterator(Class<M> messageType, InputStream input, Function<? super M, ? extends T> converter) {
+    this.input = input;
+    this.codedInput = CodedInputStream.newInstance(input);
+    this.parser = (Parser<M>) Internal.getDefaultInstance(messageType).getParserForType();
+    this.converter = converter;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null && !done) {
+      M message = readMessage();
+      if (message == null) {
+        done = true;
+      } else {
+        next = converter.apply(message);
+      }
+    }
+    return next != null;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    T result = next;
+    next = null;
+    return result;
+  }
+
+  /**
+   * A sequential stream of the remaining elements, closing the stream closes the input
+   */
+  public Stream<T> stream() {
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+        .onClose(this::close);
+  }
+
+  /**
+   * Read the next message, or {@code null} at the end of the input
+   */
+  protected M readMessage() {
+    try {
+      if (codedInput.isAtEnd()) {
+        return null;
+      }
+      int size = codedInput.readRawVarint32();
+      int oldLimit = codedInput.pushLimit(size);
+      M message = parser.parseFrom(codedInput);
+      codedInput.popLimit(oldLimit);
+      // the size limit applies to the whole input otherwise
+      codedInput.resetSizeCounter();
+      return message;
+    } catch (IOException ex) {
+      throw new MessageConvertException("read delimited message fail", ex);
+    }
+  }
+
+  @Override
+  public void close() {
+    done = true;
+    next = null;
+    try {
+      input.close();
+    } catch (IOException ex) {
+      throw new MessageConvertException(ex);
+    }
+  }
+}
@@ -0,0 +1,290 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.StringUtils;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.Message;
+import com.google.protobuf.Timestamp;
+
+/**
+ * A {@link ProtobufMessageConverter} that reads messages through their
+ * {@link Descriptors.Descriptor} instead of looking up and invoking the generated getters.
+ * <p>
+ * The resulting properties map follows the same naming and value rules as
+ * {@link SimpleProtobufMessageConverter#toProperties(Message)}.
+ * <p>
+ * No generated class is required for a {@link DynamicMessage}: it is converted by its descriptor only,
+ * e.g. a message type of a {@link DescriptorRegistry} loaded at runtime.
+ */
+public class DescriptorProtobufMessageConverter extends SimpleProtobufMessageConverter {
+  protected static final String WRAPPER_VALUE_FIELD = "value";
+  protected static final String MAP_KEY_FIELD = "key";
+  protected static final String MAP_VALUE_FIELD = "value";
+
+  /**
+   * The fields of the message types by property key, the descriptors loaded at runtime go away along with them
+   */
+  private final Cache<Descriptors.Descriptor, Map<String, Descriptors.FieldDescriptor>> fieldsCache =
+      CacheBuilder.newBuilder().weakKeys().build();
+
+  @Override
+  public Map<String, Object> toProperties(Message message) {
+    if (message instanceof DynamicMessage) {
+      return toProperties(message, new HashMap<>(
+          MapPropertySink.capacityFor(message.getDescriptorForType().getFields().size())));
+    }
+    return super.toProperties(message);
+  }
+
+  @Override
+  protected Map<String, Object> toProperties(ConversionPlan plan, Message message) {
+    return toProperties(message, newPropertiesMap(plan));
+  }
+
+  /**
+   * Create a {@code DynamicMessage.Builder} of the message type with the given properties
+   *
+   * @param type       The message type, e.g. found in a {@link DescriptorRegistry}
+   * @param properties The given properties map
+   * @return The {@code DynamicMessage.Builder} populated with the given properties
+   */
+  public DynamicMessage.Builder newMessageBuilder(Descriptors.Descriptor type, Map<String, ?> properties) {
+    DynamicMessage.Builder builder = DynamicMessage.newBuilder(type);
+    buildMessageFields(builder, properties);
+    return builder;
+  }
+
+  public DynamicMessage buildMessage(Descriptors.Descriptor type, Map<String, ?> properties) {
+    return newMessageBuilder(type, properties).build();
+  }
+
+  /**
+   * Set the properties to the builder by its descriptor, the unknown properties are skipped
+   */
+  protected void buildMessageFields(Message.Builder builder, Map<String, ?> properties) {
+    Map<String, Descriptors.FieldDescriptor> fields = getFields(builder.getDescriptorForType());
+    for (Map.Entry<String, ?> entry : properties.entrySet()) {
+      Descriptors.FieldDescriptor field = fields.get(entry.getKey());
+      if (field == null || entry.getValue() == null) {
+        continue;
+      }
+      try {
+        buildMessageField(builder, field, entry.getValue());
+      } catch (MessageConvertException ex) {
+        throw ex;
+      } catch (RuntimeException ex) {
+        throw new MessageConvertException(String.format("build field \"%s\" fail, value: %s",
+            field.getFullName(), entry.getValue()), ex);
+      }
+    }
+  }
+
+  protected void buildMessageField(Message.Builder builder, Descriptors.FieldDescriptor field, Object value) {
+    if (field.isMapField()) {
+      if (!(value instanceof Map)) {
+        throw new MessageConvertException(String.format("Expect a Map value of the map field \"%s\" but got %s",
+            field.getFullName(), value.getClass().getName()));
+      }
+      Descriptors.Descriptor entryType = field.getMessageType();
+      Descriptors.FieldDescriptor keyField = entryType.findFieldByName(MAP_KEY_FIELD);
+      Descriptors.FieldDescriptor valueField = entryType.findFieldByName(MAP_VALUE_FIELD);
+      for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+        if (e.getKey() == null || e.getValue() == null) {
+          continue;
+        }
+        Message.Builder entry = builder.newBuilderForField(field);
+        entry.setField(keyField, toFieldValue(entry, keyField, e.getKey()));
+        entry.setField(valueField, toFieldValue(entry, valueField, e.getValue()));
+        builder.addRepeatedField(field, entry.build());
+      }
+    } else if (field.isRepeated()) {
+      Iterable<?> elements = value instanceof Object[] ? Arrays.asList((Object[]) value) : (Iterable<?>) value;
+      for (Object element : elements) {
+        if (element != null) {
+          builder.addRepeatedField(field, toFieldValue(builder, field, element));
+        }
+      }
+    } else {
+      builder.setField(field, toFieldValue(builder, field, value));
+    }
+  }
+
+  /**
+   * Convert a non-null property value to the value of {@link Message.Builder#setField}
+   */
+  protected Object toFieldValue(Message.Builder builder, Descriptors.FieldDescriptor field, Object value) {
+    switch (field.getJavaType()) {
+      case INT:
+        return toNumber(value).intValue();
+      case LONG:
+        return toNumber(value).longValue();
+      case FLOAT:
+        return toNumber(value).floatValue();
+      case DOUBLE:
+        return toNumber(value).doubleValue();
+      case BOOLEAN:
+        return value instanceof String ? Boolean.valueOf((String) value) : toBool(value);
+      case STRING:
+        return toStringValue(value);
+      case BYTE_STRING:
+        return toByteString(value);
+      case ENUM:
+        return toEnumValue(field.getEnumType(), value);
+      case MESSAGE:
+        return toMessageFieldValue(builder, field, value);
+      default:
+        throw new MessageConvertException("Unknown field type: " + field.getJavaType());
+    }
+  }
+
+  /**
+   * Build a nested message by the builder of the field: a well-known type from its value,
+   * or another message type from a properties map
+   */
+  @SuppressWarnings("unchecked")
+  protected Object toMessageFieldValue(Message.Builder builder, Descriptors.FieldDescriptor field, Object value) {
+    if (value instanceof Message) {
+      return value;
+    }
+    Descriptors.Descriptor type = field.getMessageType();
+    Message.Builder nested = builder.newBuilderForField(field);
+    if (TIMESTAMP_TYPE.equals(type.getFullName())) {
+      Timestamp timestamp = toTimestamp(value);
+      nested.setField(type.findFieldByNumber(Timestamp.SECONDS_FIELD_NUMBER), timestamp.getSeconds());
+      nested.setField(type.findFieldByNumber(Timestamp.NANOS_FIELD_NUMBER), timestamp.getNanos());
+    } else if (WRAPPERS_FILE.equals(type.getFile().getName())) {
+      Descriptors.FieldDescriptor valueField = type.findFieldByName(WRAPPER_VALUE_FIELD);
+      nested.setField(valueField, toFieldValue(nested, valueField, value));
+    } else if (value instanceof Map) {
+      buildMessageFields(nested, (Map<String, ?>) value);
+    } else {
+      throw new MessageConvertException(
+          String.format("Expect a Map<String,?> value but got %s, message type: %s",
+              value.getClass().getName(), type.getFullName()));
+    }
+    return nested.build();
+  }
+
+  /**
+   * The fields of the message type by property key, and by field name if it is a different one
+   */
+  protected Map<String, Descriptors.FieldDescriptor> getFields(Descriptors.Descriptor type) {
+    Map<String, Descriptors.FieldDescriptor> fields = fieldsCache.getIfPresent(type);
+    if (fields == null) {
+      fields = new HashMap<>();
+      for (Descriptors.FieldDescriptor field : type.getFields()) {
+        fields.put(field.getName(), field);
+      }
+      for (Descriptors.FieldDescriptor field : type.getFields()) {
+        fields.put(toPropertyKey(field), field);
+      }
+      fieldsCache.put(type, fields);
+    }
+    return fields;
+  }
+
+  /**
+   * Convert the fields of the message by its descriptor into the given map
+   */
+  protected Map<String, Object> toProperties(Message message, Map<String, Object> result) {
+    Descriptors.Descriptor descriptor = message.getDescriptorForType();
+    List<Descriptors.FieldDescriptor> fields = descriptor.getFields();
+    for (Descriptors.FieldDescriptor field : fields) {
+      if (field.isRepeated()) {
+        if (message.getRepeatedFieldCount(field) == 0) {
+          continue;
+        }
+      } else if (field.hasPresence() && !message.hasField(field)) {
+        continue;
+      }
+
+      Object value = toPropertyValue(field, message.getField(field));
+      if (value == null) {
+        continue;
+      }
+      result.put(toPropertyKey(field), value);
+    }
+    return result;
+  }
+
+  /**
+   * Convert the field value returned by {@link Message#getField} to property value
+   */
+  protected Object toPropertyValue(Descriptors.FieldDescriptor field, Object value) {
+    if (field.isMapField()) {
+      return toMapPropertyValue(field, (List<?>) value);
+    } else if (field.isRepeated()) {
+      List<?> items = (List<?>) value;
+      List<Object> v = new ArrayList<>(items.size());
+      for (Object item : items) {
+        v.add(toSingularPropertyValue(field, item));
+      }
+      return v;
+    }
+    return toSingularPropertyValue(field, value);
+  }
+
+  protected Object toSingularPropertyValue(Descriptors.FieldDescriptor field, Object value) {
+    switch (field.getJavaType()) {
+      case STRING:
+        String v = (String) value;
+        return StringUtils.hasLength(v) ? v : null;
+      case BYTE_STRING:
+        return unwrap((ByteString) value);
+      case ENUM:
+        return ((Descriptors.EnumValueDescriptor) value).getNumber();
+      case MESSAGE:
+        return toMessagePropertyValue((Message) value);
+      default:
+        return value;
+    }
+  }
+
+  /**
+   * Unwrap the well-known types (Timestamp and the wrappers), or convert a nested message to properties map
+   */
+  protected Object toMessagePropertyValue(Message value) {
+    Descriptors.Descriptor descriptor = value.getDescriptorForType();
+    if (TIMESTAMP_TYPE.equals(descriptor.getFullName())) {
+      return toDate(value);
+    } else if (WRAPPERS_FILE.equals(descriptor.getFile().getName())) {
+      return value.getField(descriptor.findFieldByName(WRAPPER_VALUE_FIELD));
+    }
+    return toProperties(value);
+  }
+
+  protected Date toDate(Message timestamp) {
+    if (timestamp instanceof Timestamp) {
+      return toDate((Timestamp) timestamp);
+    }
+    Descriptors.Descriptor descriptor = timestamp.getDescriptorForType();
+    long seconds = (Long) timestamp.getField(descriptor.findFieldByNumber(Timestamp.SECONDS_FIELD_NUMBER));
+    int nanos = (Integer) timestamp.getField(descriptor.findFieldByNumber(Timestamp.NANOS_FIELD_NUMBER));
+    return new Date(seconds * 1000 + nanos / 1000000);
+  }
+
+  protected Map<Object, Object> toMapPropertyValue(Descriptors.FieldDescriptor field, List<?> entries) {
+    Descriptors.Descriptor entryType = field.getMessageType();
+    Descriptors.FieldDescriptor keyField = entryType.findFieldByName(MAP_KEY_FIELD);
+    Descriptors.FieldDescriptor valueField = entryType.findFieldByName(MAP_VALUE_FIELD);
+    Map<Object, Object> result = new HashMap<>();
+    for (Object e : entries) {
+      Message entry = (Message) e;
+      // a value converted to null, e.g. an empty string, is null as toPropertyValueOf(Map, ...) does
+      result.put(entry.getField(keyField), toSingularPropertyValue(valueField, entry.getField(valueField)));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,160 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+import com.google.protobuf.AnyProto;
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DurationProto;
+import com.google.protobuf.EmptyProto;
+import com.google.protobuf.FieldMaskProto;
+import com.google.protobuf.StructProto;
+import com.google.protobuf.TimestampProto;
+import com.google.protobuf.WrappersProto;
+
+/**
+ * The message types loaded at runtime, e.g. from a {@code FileDescriptorSet} written by
+ * {@code protoc --descriptor_set_out --include_imports}, for the conversion of {@code DynamicMessage}
+ * by {@link DescriptorProtobufMessageConverter}. <br>
+ * The well-known files, e.g. {@code google/protobuf/timestamp.proto}, are resolved to the ones of the generated
+ * classes, so that their descriptors are the same instances as {@code Timestamp.getDescriptor()}.
+ */
+public class DescriptorRegistry {
+  protected static final List<Descriptors.FileDescriptor> WELL_KNOWN_FILES = Arrays.asList(
+      AnyProto.getDescriptor(),
+      DescriptorProtos.getDescriptor(),
+      DurationProto.getDescriptor(),
+      EmptyProto.getDescriptor(),
+      FieldMaskProto.getDescriptor(),
+      StructProto.getDescriptor(),
+      TimestampProto.getDescriptor(),
+      WrappersProto.getDescriptor()
+  );
+
+  private final Map<String, Descriptors.FileDescriptor> files = new ConcurrentHashMap<>();
+  private final Map<String, Descriptors.Descriptor> messageTypes = new ConcurrentHashMap<>();
+
+  public DescriptorRegistry() {
+    for (Descriptors.FileDescriptor file : WELL_KNOWN_FILES) {
+      add(file);
+    }
+  }
+
+  public static DescriptorRegistry of(DescriptorProtos.FileDescriptorSet fileDescriptorSet) {
+    return new DescriptorRegistry().add(fileDescriptorSet);
+  }
+
+  /**
+   * Read a serialized {@code FileDescriptorSet}, the input is not closed
+   */
+  public static DescriptorRegistry parseFrom(InputStream input) {
+    try {
+      return of(DescriptorProtos.FileDescriptorSet.parseFrom(input));
+    } catch (IOException ex) {
+      throw new MessageConvertException("read file descriptor set fail", ex);
+    }
+  }
+
+  /**
+   * Build and add the files of the set, a dependency is either in the set or added already
+   */
+  public DescriptorRegistry add(DescriptorProtos.FileDescriptorSet fileDescriptorSet) {
+    Map<String, DescriptorProtos.FileDescriptorProto> protos = new HashMap<>();
+    for (DescriptorProtos.FileDescriptorProto proto : fileDescriptorSet.getFileList()) {
+      protos.put(proto.getName(), proto);
+    }
+    for (String name : protos.keySet()) {
+      build(name, protos, new HashSet<>());
+    }
+    return this;
+  }
+
+  /**
+   * Add the message types of the file, the nested ones included, along with the dependencies of the file
+   */
+  public DescriptorRegistry add(Descriptors.FileDescriptor file) {
+    if (files.putIfAbsent(file.getName(), file) != null) {
+      return this;
+    }
+    for (Descriptors.FileDescriptor dependency : file.getDependencies()) {
+      add(dependency);
+    }
+    for (Descriptors.Descriptor type : file.getMessageTypes()) {
+      addMessageType(type);
+    }
+    return this;
+  }
+
+  /**
+   * The message type of the full name or the type URL, e.g. {@code type.googleapis.com/test.TestMessage}
+   *
+   * @return The message type, or {@code null} if it is not known
+   */
+  public Descriptors.Descriptor find(String typeName) {
+    return messageTypes.get(typeName.substring(typeName.lastIndexOf('/') + 1));
+  }
+
+  /**
+   * The message type of the full name or the type URL
+   *
+   * @throws MessageConvertException if the message type is not known
+   */
+  public Descriptors.Descriptor get(String typeName) {
+    Descriptors.Descriptor result = find(typeName);
+    if (result == null) {
+      throw new MessageConvertException("Unknown message type: " + typeName);
+    }
+    return result;
+  }
+
+  public Set<String> getMessageTypeNames() {
+    return Collections.unmodifiableSet(messageTypes.keySet());
+  }
+
+  public Descriptors.FileDescriptor getFile(String name) {
+    return files.get(name);
+  }
+
+  private Descriptors.FileDescriptor build(String name, Map<String, DescriptorProtos.FileDescriptorProto> protos,
+                                           Set<String> building) {
+    Descriptors.FileDescriptor file = files.get(name);
+    if (file != null) {
+      return file;
+    }
+    DescriptorProtos.FileDescriptorProto proto = protos.get(name);
+    if (proto == null) {
+      throw new MessageConvertException("Missing dependency of the file descriptor set: " + name);
+    }
+    if (!building.add(name)) {
+      throw new MessageConvertException("Cyclic dependency of the file descriptor set: " + name);
+    }
+    Descriptors.FileDescriptor[] dependencies = new Descriptors.FileDescriptor[proto.getDependencyCount()];
+    for (int i = 0; i < dependencies.length; i++) {
+      dependencies[i] = build(proto.getDependency(i), protos, building);
+    }
+    try {
+      file = Descriptors.FileDescriptor.buildFrom(proto, dependencies);
+    } catch (Descriptors.DescriptorValidationException ex) {
+      throw new MessageConvertException("Invalid file descriptor: " + name, ex);
+    }
+    add(file);
+    return file;
+  }
+
+  private void addMessageType(Descriptors.Descriptor type) {
+    messageTypes.put(type.getFullName(), type);
+    for (Descriptors.Descriptor nested : type.getNestedTypes()) {
+      addMessageType(nested);
+    }
+  }
+}
@@ -0,0 +1,464 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+import com.google.protobuf.BytesValue;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DoubleValue;
+import com.google.protobuf.FloatValue;
+import com.google.protobuf.Message;
+
+/**
+ * A pull reader of JSON, which sets the members of a JSON object to a {@code Message.Builder} as they are read,
+ * without building the properties maps. <br>
+ * The values are converted in the same way as the ones of the properties map by
+ * {@link SimpleProtobufMessageConverter#newMessageBuilder(Class, Map)}, e.g. epoch millis -&gt; {@code Timestamp},
+ * numbers -&gt; the wrapper types. The nested objects are read into the sub-builders,
+ * and the base64 strings of the bytes fields and the non-finite floating point strings are decoded,
+ * which are the forms written by {@link JsonPropertySink}.
+ * The members of unknown keys are skipped.
+ * <p>
+ * The input must be a single object, only whitespace may follow it. The objects and arrays are nested up to
+ * {@link #DEFAULT_MAX_DEPTH} levels by default, as the recursion limit of {@code CodedInputStream}.
+ */
+public class JsonMessageReader {
+  public static final int DEFAULT_MAX_DEPTH = 100;
+
+  private final SimpleProtobufMessageConverter converter;
+  private final Reader reader;
+  private final int maxDepth;
+  private int depth;
+  private final char[] buffer = new char[8192];
+  private final StringBuilder text = new StringBuilder();
+  private int pos;
+  private int limit;
+  private long offset;
+
+  /**
+   * The last number read, either integral or not
+   */
+  private boolean integral;
+  private long longValue;
+  private double doubleValue;
+
+  public JsonMessageReader(SimpleProtobufMessageConverter converter, Reader reader) {
+    this(converter, reader, DEFAULT_MAX_DEPTH);
+  }
+
+  /**
+   * @param maxDepth The maximum nesting levels of the objects and arrays, the top-level object included
+   */
+  public JsonMessageReader(SimpleProtobufMessageConverter converter, Reader reader, int maxDepth) {
+    this.converter = converter;
+    this.reader = reader;
+    this.maxDepth = maxDepth;
+  }
+
+  /**
+   * Read a JSON object into a new builder of the message type
+   */
+  public <T extends Message> Message.Builder read(Class<T> messageType) {
+    MessageBuilderSink sink = converter.newMessageSink(messageType);
+    try {
+      readObject(sink);
+      expectEnd();
+    } catch (IOException ex) {
+      throw new MessageConvertException("read json fail", ex);
+    }
+    return sink.getBuilder();
+  }
+
+  protected void readObject(MessageBuilderSink sink) throws IOException {
+    expect('{');
+    enter();
+    if (peek() == '}') {
+      pos++;
+      depth--;
+      return;
+    }
+    do {
+      String key = readString();
+      expect(':');
+      readMember(sink, key);
+    } while (nextSeparator('}'));
+    depth--;
+  }
+
+  protected void readMember(MessageBuilderSink sink, String key) throws IOException {
+    ConversionPlan plan = sink.getPlan();
+    Descriptors.FieldDescriptor field = plan.getField(key);
+    if (field == null && plan.getWriter(key) == null) {
+      readValue();
+      return;
+    }
+    char c = peek();
+    if (c == '{' && isNestedMessage(field) && !field.isRepeated()) {
+      Message.Builder builder = sink.getBuilder().getFieldBuilder(field);
+      readObject(converter.newMessageSink(builder));
+    } else if (c == '[' && field != null && field.isRepeated() && isNestedMessage(field)) {
+      readMessageList(sink.getBuilder(), field);
+    } else if (c == '[') {
+      pos++;
+      enter();
+      List<Object> elements = new ArrayList<>();
+      if (peek() == ']') {
+        pos++;
+      } else {
+        do {
+          elements.add(toFieldValue(field, readValue()));
+        } while (nextSeparator(']'));
+      }
+      depth--;
+      sink.put(key, elements);
+    } else if (c == 't' || c == 'f') {
+      sink.putBoolean(key, readLiteral() == Boolean.TRUE);
+    } else if (c == 'n') {
+      readLiteral();
+    } else if (c == '-' || (c >= '0' && c <= '9')) {
+      readNumber();
+      if (integral) {
+        sink.putLong(key, longValue);
+      } else {
+        sink.putDouble(key, doubleValue);
+      }
+    } else {
+      sink.put(key, toFieldValue(field, readValue()));
+    }
+  }
+
+  protected void readMessageList(Message.Builder builder, Descriptors.FieldDescriptor field) throws IOException {
+    expect('[');
+    enter();
+    if (peek() == ']') {
+      pos++;
+      depth--;
+      return;
+    }
+    do {
+      if (peek() == 'n') {
+        readLiteral();
+        continue;
+      }
+      Message.Builder element = builder.newBuilderForField(field);
+      readObject(converter.newMessageSink(element));
+      builder.addRepeatedField(field, element.build());
+    } while (nextSeparator(']'));
+    depth--;
+  }
+
+  /**
+   * Whether the field is a message read into a sub-builder, rather than a well-known type converted from a value
+   */
+  protected boolean isNestedMessage(Descriptors.FieldDescriptor field) {
+    return field != null
+        && field.getJavaType() == Descriptors.FieldDescriptor.JavaType.MESSAGE
+        && !field.isMapField()
+        && !converter.isWellKnownType(field.getMessageType());
+  }
+
+  /**
+   * Decode the base64 string of a bytes field, and the {@code "NaN"}, {@code "Infinity"} or {@code "-Infinity"}
+   * of a float or double field, the values of a map field included
+   */
+  protected Object toFieldValue(Descriptors.FieldDescriptor field, Object value) {
+    if (field == null) {
+      return value;
+    }
+    if (value instanceof Map && field.isMapField()) {
+      Descriptors.FieldDescriptor valueField = field.getMessageType().findFieldByNumber(2);
+      Map<Object, Object> result = new LinkedHashMap<>();
+      for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+        result.put(e.getKey(), toFieldValue(valueField, e.getValue()));
+      }
+      return result;
+    }
+    if (!(value instanceof String)) {
+      return value;
+    }
+    Descriptors.FieldDescriptor.JavaType javaType = field.getJavaType();
+    String typeName = javaType == Descriptors.FieldDescriptor.JavaType.MESSAGE
+        ? field.getMessageType().getFullName() : null;
+    if (javaType == Descriptors.FieldDescriptor.JavaType.BYTE_STRING
+        || BytesValue.getDescriptor().getFullName().equals(typeName)) {
+      try {
+        return Base64.getDecoder().decode((String) value);
+      } catch (IllegalArgumentException ex) {
+        throw new MessageConvertException(
+            String.format("Invalid base64 value of bytes field \"%s\"", field.getFullName()), ex);
+      }
+    }
+    if (javaType == Descriptors.FieldDescriptor.JavaType.DOUBLE
+        || DoubleValue.getDescriptor().getFullName().equals(typeName)) {
+      return toNonFinite(field, (String) value);
+    }
+    if (javaType == Descriptors.FieldDescriptor.JavaType.FLOAT
+        || FloatValue.getDescriptor().getFullName().equals(typeName)) {
+      return (float) toNonFinite(field, (String) value);
+    }
+    return value;
+  }
+
+  /**
+   * The non-finite double written as a string by {@link JsonPropertySink}
+   */
+  protected double toNonFinite(Descriptors.FieldDescriptor field, String value) {
+    switch (value) {
+      case "NaN":
+        return Double.NaN;
+      case "Infinity":
+        return Double.POSITIVE_INFINITY;
+      case "-Infinity":
+        return Double.NEGATIVE_INFINITY;
+      default:
+        throw new MessageConvertException(
+            String.format("Invalid value of floating point field \"%s\": %s", field.getFullName(), value));
+    }
+  }
+
+  /**
+   * Read any JSON value, the objects and the arrays are read as maps and lists
+   */
+  protected Object readValue() throws IOException {
+    char c = peek();
+    switch (c) {
+      case '{': {
+        pos++;
+        enter();
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (peek() != '}') {
+          do {
+            String key = readString();
+            expect(':');
+            result.put(key, readValue());
+          } while (nextSeparator('}'));
+        } else {
+          pos++;
+        }
+        depth--;
+        return result;
+      }
+      case '[': {
+        pos++;
+        enter();
+        List<Object> result = new ArrayList<>();
+        if (peek() != ']') {
+          do {
+            result.add(readValue());
+          } while (nextSeparator(']'));
+        } else {
+          pos++;
+        }
+        depth--;
+        return result;
+      }
+      case '"':
+        return readString();
+      case 't':
+      case 'f':
+      case 'n':
+        return readLiteral();
+      default:
+        readNumber();
+        return integral ? (Object) longValue : (Object) doubleValue;
+    }
+  }
+
+  protected String readString() throws IOException {
+    expect('"');
+    text.setLength(0);
+    while (true) {
+      char c = next();
+      if (c == '"') {
+        return text.toString();
+      } else if (c != '\\') {
+        text.append(c);
+        continue;
+      }
+      c = next();
+      switch (c) {
+        case 'n':
+          text.append('\n');
+          break;
+        case 'r':
+          text.append('\r');
+          break;
+        case 't':
+          text.append('\t');
+          break;
+        case 'b':
+          text.append('\b');
+          break;
+        case 'f':
+          text.append('\f');
+          break;
+        case 'u':
+          int code = 0;
+          for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(next(), 16);
+            if (digit < 0) {
+              throw syntaxError("invalid unicode escape");
+            }
+            code = (code << 4) | digit;
+          }
+          text.append((char) code);
+          break;
+        default:
+          // \" \\ \/
+          text.append(c);
+      }
+    }
+  }
+
+  /**
+   * Read a number into {@link #longValue} if it is integral and in the range of long, otherwise {@link #doubleValue}
+   */
+  protected void readNumber() throws IOException {
+    peek();
+    text.setLength(0);
+    boolean negative = false;
+    boolean overflow = false;
+    long value = 0;
+    integral = true;
+    while (true) {
+      if (pos == limit && !fill()) {
+        break;
+      }
+      char c = buffer[pos];
+      if (c >= '0' && c <= '9') {
+        // accumulated negatively, so that Long.MIN_VALUE fits
+        int digit = c - '0';
+        if (value < Long.MIN_VALUE / 10 || (value == Long.MIN_VALUE / 10 && digit > 8)) {
+          overflow = true;
+        } else {
+          value = value * 10 - digit;
+        }
+      } else if (c == '-' && text.length() == 0) {
+        negative = true;
+      } else if (c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+        integral = false;
+      } else {
+        break;
+      }
+      text.append(c);
+      pos++;
+    }
+    if (text.length() == 0 || (negative && text.length() == 1)) {
+      throw syntaxError("invalid number");
+    }
+    if (integral && !overflow && (negative || value != Long.MIN_VALUE)) {
+      longValue = negative ? value : -value;
+      return;
+    }
+    integral = false;
+    try {
+      doubleValue = Double.parseDouble(text.toString());
+    } catch (NumberFormatException ex) {
+      throw syntaxError("invalid number " + text);
+    }
+  }
+
+  /**
+   * Read {@code true}, {@code false} or {@code null}
+   */
+  protected Boolean readLiteral() throws IOException {
+    char c = peek();
+    String literal = c == 't' ? "true" : c == 'f' ? "false" : "null";
+    for (int i = 0; i < literal.length(); i++) {
+      if (next() != literal.charAt(i)) {
+        throw syntaxError("expect " + literal);
+      }
+    }
+    return c == 'n' ? null : c == 't';
+  }
+
+  /**
+   * Consume a comma, or the closing char of an object or array
+   *
+   * @return Whether a comma is consumed, i.e. more members follow
+   */
+  private boolean nextSeparator(char closing) throws IOException {
+    char c = peek();
+    pos++;
+    if (c == ',') {
+      return true;
+    } else if (c == closing) {
+      return false;
+    }
+    throw syntaxError("expect ',' or '" + closing + "'");
+  }
+
+  /**
+   * Enter a nested object or array
+   */
+  private void enter() {
+    if (++depth > maxDepth) {
+      throw syntaxError("nested too deep, the limit is " + maxDepth);
+    }
+  }
+
+  /**
+   * Consume the whitespace following the top-level object, up to the end of the input
+   */
+  private void expectEnd() throws IOException {
+    while (pos < limit || fill()) {
+      char c = buffer[pos];
+      if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+        throw syntaxError("unexpected input after the object");
+      }
+      pos++;
+    }
+  }
+
+  private void expect(char expected) throws IOException {
+    if (peek() != expected) {
+      throw syntaxError("expect '" + expected + "'");
+    }
+    pos++;
+  }
+
+  /**
+   * The next non-whitespace char, which is not consumed
+   */
+  private char peek() throws IOException {
+    while (true) {
+      if (pos == limit && !fill()) {
+        throw syntaxError("unexpected end of input");
+      }
+      char c = buffer[pos];
+      if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+        return c;
+      }
+      pos++;
+    }
+  }
+
+  private char next() throws IOException {
+    if (pos == limit && !fill()) {
+      throw syntaxError("unexpected end of input");
+    }
+    return buffer[pos++];
+  }
+
+  private boolean fill() throws IOException {
+    offset += limit;
+    pos = 0;
+    limit = 0;
+    int n = reader.read(buffer);
+    if (n <= 0) {
+      return false;
+    }
+    limit = n;
+    return true;
+  }
+
+  private MessageConvertException syntaxError(String message) {
+    return new MessageConvertException(String.format("Malformed json at %d: %s", offset + pos, message));
+  }
+}
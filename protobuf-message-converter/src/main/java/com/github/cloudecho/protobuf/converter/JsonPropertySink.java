@@ -0,0 +1,296 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+import com.google.protobuf.ByteString;
+
+/**
+ * A {@link PropertySink} writing the properties as JSON to a {@code Writer}, without building the properties maps. <br>
+ * The nested messages and the repeated fields are streamed as JSON objects and arrays,
+ * the values are written in the same form as the ones of the properties map: {@code Date} -&gt; epoch millis,
+ * {@code byte[]} or a view of bytes -&gt; base64 string, the non-finite numbers -&gt; strings.
+ * <p>
+ * The sink writes a JSON object per {@link #beginMessage} and {@link #endMessage()},
+ * see {@link SimpleProtobufMessageConverter#writeJson}. It does not flush or close the writer.
+ */
+public class JsonPropertySink implements PropertySink {
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final Writer writer;
+  private final char[] digits = new char[20];
+  /**
+   * Whether a member is written at the depth, i.e. a comma is expected before the next one
+   */
+  private boolean[] separated = new boolean[8];
+  private int depth;
+
+  public JsonPropertySink(Writer writer) {
+    this.writer = writer;
+  }
+
+  @Override
+  public void put(String key, Object value) {
+    try {
+      writeKey(key);
+      writeValue(value);
+    } catch (IOException ex) {
+      throw new MessageConvertException("write json fail", ex);
+    }
+  }
+
+  @Override
+  public void putInt(String key, int value) {
+    putLong(key, value);
+  }
+
+  @Override
+  public void putLong(String key, long value) {
+    try {
+      writeKey(key);
+      writeLong(value);
+    } catch (IOException ex) {
+      throw new MessageConvertException("write json fail", ex);
+    }
+  }
+
+  @Override
+  public void putFloat(String key, float value) {
+    try {
+      writeKey(key);
+      if (Float.isNaN(value) || Float.isInfinite(value)) {
+        writeString(Float.toString(value));
+      } else {
+        writer.write(Float.toString(value));
+      }
+    } catch (IOException ex) {
+      throw new MessageConvertException("write json fail", ex);
+    }
+  }
+
+  @Override
+  public void putDouble(String key, double value) {
+    try {
+      writeKey(key);
+      writeDouble(value);
+    } catch (IOException ex) {
+      throw new MessageConvertException("write json fail", ex);
+    }
+  }
+
+  @Override
+  public void putBoolean(String key, boolean value) {
+    try {
+      writeKey(key);
+      writer.write(value ? "true" : "false");
+    } catch (IOException ex) {
+      throw new MessageConvertException("write json fail", ex);
+    }
+  }
+
+  @Override
+  public boolean beginMessage(String key) {
+    begin(key, '{');
+    return true;
+  }
+
+  @Override
+  public void endMessage() {
+    end('}');
+  }
+
+  @Override
+  public boolean beginList(String key, int size) {
+    begin(key, '[');
+    return true;
+  }
+
+  @Override
+  public void endList() {
+    end(']');
+  }
+
+  private void begin(String key, char c) {
+    try {
+      writeKey(key);
+      writer.write(c);
+    } catch (IOException ex) {
+      throw new MessageConvertException("write json fail", ex);
+    }
+    push();
+  }
+
+  private void end(char c) {
+    depth--;
+    try {
+      writer.write(c);
+    } catch (IOException ex) {
+      throw new MessageConvertException("write json fail", ex);
+    }
+  }
+
+  private void push() {
+    if (++depth == separated.length) {
+      separated = Arrays.copyOf(separated, depth * 2);
+    }
+    separated[depth] = false;
+  }
+
+  /**
+   * Write the separator and the key of a member, the key is {@code null} for an element of an array
+   */
+  protected void writeKey(String key) throws IOException {
+    if (separated[depth]) {
+      writer.write(',');
+    } else {
+      separated[depth] = true;
+    }
+    if (key != null) {
+      writeString(key);
+      writer.write(':');
+    }
+  }
+
+  protected void writeValue(Object value) throws IOException {
+    if (value == null) {
+      writer.write("null");
+    } else if (value instanceof String) {
+      writeString((String) value);
+    } else if (value instanceof Integer || value instanceof Long
+        || value instanceof Short || value instanceof Byte) {
+      writeLong(((Number) value).longValue());
+    } else if (value instanceof Double || value instanceof Float) {
+      writeDouble(((Number) value).doubleValue());
+    } else if (value instanceof Number || value instanceof Boolean) {
+      writer.write(value.toString());
+    } else if (value instanceof Date) {
+      writeLong(((Date) value).getTime());
+    } else if (value instanceof byte[]) {
+      writeString(Base64.getEncoder().encodeToString((byte[]) value));
+    } else if (value instanceof ByteBuffer) {
+      writeBase64((ByteBuffer) value);
+    } else if (value instanceof ByteString) {
+      writeBase64(((ByteString) value).asReadOnlyByteBuffer());
+    } else if (value instanceof Map) {
+      writer.write('{');
+      push();
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        writeKey(String.valueOf(entry.getKey()));
+        writeValue(entry.getValue());
+      }
+      depth--;
+      writer.write('}');
+    } else if (value instanceof Collection) {
+      writer.write('[');
+      push();
+      for (Object element : (Collection<?>) value) {
+        writeKey(null);
+        writeValue(element);
+      }
+      depth--;
+      writer.write(']');
+    } else if (value.getClass().isArray()) {
+      writer.write('[');
+      push();
+      for (int i = 0, n = Array.getLength(value); i < n; i++) {
+        writeKey(null);
+        writeValue(Array.get(value, i));
+      }
+      depth--;
+      writer.write(']');
+    } else {
+      writeString(value.toString());
+    }
+  }
+
+  /**
+   * Write the remaining bytes of the buffer as a base64 string, the position of the buffer is left as it is
+   */
+  protected void writeBase64(ByteBuffer buffer) throws IOException {
+    ByteBuffer encoded = Base64.getEncoder().encode(buffer.duplicate());
+    writer.write('"');
+    while (encoded.hasRemaining()) {
+      writer.write((char) encoded.get());
+    }
+    writer.write('"');
+  }
+
+  protected void writeDouble(double value) throws IOException {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      writeString(Double.toString(value));
+    } else {
+      writer.write(Double.toString(value));
+    }
+  }
+
+  /**
+   * Write the decimal digits of the value without creating a string
+   */
+  protected void writeLong(long value) throws IOException {
+    if (value == Long.MIN_VALUE) {
+      writer.write(Long.toString(value));
+      return;
+    }
+    boolean negative = value < 0;
+    long v = negative ? -value : value;
+    int i = digits.length;
+    do {
+      digits[--i] = (char) ('0' + v % 10);
+      v /= 10;
+    } while (v != 0);
+    if (negative) {
+      digits[--i] = '-';
+    }
+    writer.write(digits, i, digits.length - i);
+  }
+
+  protected void writeString(String s) throws IOException {
+    writer.write('"');
+    int start = 0;
+    for (int i = 0, n = s.length(); i < n; i++) {
+      char c = s.charAt(i);
+      if (c >= 0x20 && c != '"' && c != '\\') {
+        continue;
+      }
+      writer.write(s, start, i - start);
+      start = i + 1;
+      switch (c) {
+        case '"':
+          writer.write("\\\"");
+          break;
+        case '\\':
+          writer.write("\\\\");
+          break;
+        case '\n':
+          writer.write("\\n");
+          break;
+        case '\r':
+          writer.write("\\r");
+          break;
+        case '\t':
+          writer.write("\\t");
+          break;
+        case '\b':
+          writer.write("\\b");
+          break;
+        case '\f':
+          writer.write("\\f");
+          break;
+        default:
+          writer.write("\\u00");
+          writer.write(HEX[c >> 4]);
+          writer.write(HEX[c & 0xF]);
+      }
+    }
+    writer.write(s, start, s.length() - start);
+    writer.write('"');
+  }
+}
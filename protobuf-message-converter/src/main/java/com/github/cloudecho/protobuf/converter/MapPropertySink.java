@@ -0,0 +1,51 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link PropertySink} collecting the properties into a map, the primitive values are boxed. <br>
+ * The map may be reused across messages by {@link #clear()}, e.g. a map pooled by the caller
+ * or sized for the fields of the message type.
+ */
+public class MapPropertySink implements PropertySink {
+  private final Map<String, Object> map;
+
+  public MapPropertySink() {
+    this(new HashMap<>());
+  }
+
+  /**
+   * A sink with a {@code HashMap} which holds the given count of properties without rehashing
+   */
+  public MapPropertySink(int expectedSize) {
+    this(new HashMap<>(capacityFor(expectedSize)));
+  }
+
+  public MapPropertySink(Map<String, Object> map) {
+    this.map = map;
+  }
+
+  /**
+   * The initial capacity of a {@code HashMap} holding the given count of entries without rehashing
+   */
+  public static int capacityFor(int expectedSize) {
+    return expectedSize < 3 ? expectedSize + 1 : (int) (expectedSize / 0.75f + 1.0f);
+  }
+
+  @Override
+  public void put(String key, Object value) {
+    map.put(key, value);
+  }
+
+  public Map<String, Object> getMap() {
+    return map;
+  }
+
+  /**
+   * Remove all the properties, so that the sink is ready for the next message
+   */
+  public void clear() {
+    map.clear();
+  }
+}
@@ -0,0 +1,107 @@
+package com.github.cloudecho.protobuf.converter;
+
+import com.google.protobuf.Message;
+
+/**
+ * A {@link PropertySink} setting the properties to a {@code Message.Builder}, e.g. to copy a message
+ * into another message type. <br>
+ * The primitive values are passed to the primitive setters of the builder without boxing,
+ * only a wrapper type field still allocates its wrapper message.
+ */
+public class MessageBuilderSink implements PropertySink {
+  private final SimpleProtobufMessageConverter converter;
+  private final ConversionPlan plan;
+  private final Message.Builder builder;
+
+  public MessageBuilderSink(SimpleProtobufMessageConverter converter, ConversionPlan plan, Message.Builder builder) {
+    this.converter = converter;
+    this.plan = plan;
+    this.builder = builder;
+  }
+
+  public Message.Builder getBuilder() {
+    return builder;
+  }
+
+  public ConversionPlan getPlan() {
+    return plan;
+  }
+
+  @Override
+  public void put(String key, Object value) {
+    ConversionPlan.FieldWriter writer = converter.getFieldWriter(plan.getMessageType(), key);
+    if (writer != null) {
+      converter.buildMessageAttribute(builder, writer, value);
+    }
+  }
+
+  @Override
+  public void putInt(String key, int value) {
+    ConversionPlan.FieldWriter writer = plan.getWriter(key);
+    if (writer == null) {
+      put(key, value);
+      return;
+    }
+    try {
+      writer.setInt(builder, value);
+    } catch (RuntimeException ex) {
+      throw converter.toBuildException(builder, writer, value, ex);
+    }
+  }
+
+  @Override
+  public void putLong(String key, long value) {
+    ConversionPlan.FieldWriter writer = plan.getWriter(key);
+    if (writer == null) {
+      put(key, value);
+      return;
+    }
+    try {
+      writer.setLong(builder, value);
+    } catch (RuntimeException ex) {
+      throw converter.toBuildException(builder, writer, value, ex);
+    }
+  }
+
+  @Override
+  public void putFloat(String key, float value) {
+    ConversionPlan.FieldWriter writer = plan.getWriter(key);
+    if (writer == null) {
+      put(key, value);
+      return;
+    }
+    try {
+      writer.setFloat(builder, value);
+    } catch (RuntimeException ex) {
+      throw converter.toBuildException(builder, writer, value, ex);
+    }
+  }
+
+  @Override
+  public void putDouble(String key, double value) {
+    ConversionPlan.FieldWriter writer = plan.getWriter(key);
+    if (writer == null) {
+      put(key, value);
+      return;
+    }
+    try {
+      writer.setDouble(builder, value);
+    } catch (RuntimeException ex) {
+      throw converter.toBuildException(builder, writer, value, ex);
+    }
+  }
+
+  @Override
+  public void putBoolean(String key, boolean value) {
+    ConversionPlan.FieldWriter writer = plan.getWriter(key);
+    if (writer == null) {
+      put(key, value);
+      return;
+    }
+    try {
+      writer.setBoolean(builder, value);
+    } catch (RuntimeException ex) {
+      throw converter.toBuildException(builder, writer, value, ex);
+    }
+  }
+}
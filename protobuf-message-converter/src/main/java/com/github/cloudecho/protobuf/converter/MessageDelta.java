@@ -0,0 +1,179 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.util.CollectionUtils;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+
+/**
+ * Diff and merge the properties of a {@link SimpleProtobufMessageConverter}: the changed properties
+ * between two messages or two properties maps, and a message builder with the changed properties applied only.
+ */
+public class MessageDelta {
+  protected final SimpleProtobufMessageConverter converter;
+
+  public MessageDelta(SimpleProtobufMessageConverter converter) {
+    this.converter = converter;
+  }
+
+  /**
+   * The changed properties from the base message to the given one of the same type. <br>
+   * The raw field values are compared first, so only the changed fields are converted,
+   * and a property absent from the given message is mapped to {@code null}.
+   *
+   * @param base    The base message
+   * @param message The changed message
+   * @return The delta properties, which are applied by {@link #mergeMessageBuilder(Message, Map)}
+   */
+  public Map<String, Object> toPropertiesDelta(Message base, Message message) {
+    if (base.getClass() != message.getClass()) {
+      throw new MessageConvertException(String.format("can not diff a message of type \"%s\" with \"%s\"",
+          message.getClass().getName(), base.getClass().getName()));
+    }
+    ConversionPlan plan = converter.getConversionPlan(message.getClass());
+    Map<String, Object> delta = new HashMap<>();
+    for (ConversionPlan.FieldReader reader : plan.getReaders()) {
+      Object baseValue;
+      Object value;
+      try {
+        baseValue = reader.isPresent(base) ? reader.get(base) : null;
+        value = reader.isPresent(message) ? reader.get(message) : null;
+      } catch (MessageConvertException ex) {
+        throw ex;
+      } catch (Exception ex) {
+        throw new MessageConvertException(
+            String.format("invoke getter \"%s\" on an object of type of \"%s\" fail",
+                reader.getGetter().getName(), message.getClass().getName()), ex);
+      }
+      if (Objects.equals(baseValue, value)) {
+        continue;
+      }
+      value = reader.convert(value);
+      if (value instanceof Collection && CollectionUtils.isEmpty((Collection<?>) value)) {
+        value = null;
+      }
+      if (value != null || !isEmptyProperty(reader.convert(baseValue))) {
+        delta.put(reader.getPropertyKey(), value);
+      }
+    }
+    return delta;
+  }
+
+  /**
+   * The changed properties from the base properties to the target ones, a removed property is mapped to {@code null}.
+   * The {@code null} and empty values are all absent, e.g. an empty list is not a change of an absent property.
+   *
+   * @param base   The base properties, e.g. the properties of the current message
+   * @param target The target properties, e.g. the properties of a bean
+   * @return The delta properties
+   */
+  public Map<String, Object> diffProperties(Map<String, ?> base, Map<String, ?> target) {
+    Map<String, Object> delta = new HashMap<>();
+    for (Map.Entry<String, ?> entry : target.entrySet()) {
+      if (!propertyEquals(base.get(entry.getKey()), entry.getValue())) {
+        delta.put(entry.getKey(), isEmptyProperty(entry.getValue()) ? null : entry.getValue());
+      }
+    }
+    for (Map.Entry<String, ?> entry : base.entrySet()) {
+      if (!target.containsKey(entry.getKey()) && !isEmptyProperty(entry.getValue())) {
+        delta.put(entry.getKey(), null);
+      }
+    }
+    return delta;
+  }
+
+  /**
+   * Create a {@code Message.Builder} from the current message, with the changed properties applied only
+   *
+   * @param current    The current message
+   * @param properties The target properties, an absent property is cleared
+   * @return The {@code Message.Builder} of the current message populated with the changed properties
+   */
+  public <T extends Message> Message.Builder mergeMessageBuilder(T current, Map<String, ?> properties) {
+    ConversionPlan plan = converter.getConversionPlan(current.getClass());
+    Message.Builder builder = current.toBuilder();
+    mergeChanges(plan, builder, diffProperties(converter.toProperties(plan, current), properties));
+    return builder;
+  }
+
+  /**
+   * Apply the delta properties to the builder, the {@code null} ones are cleared
+   * and the repeated fields are cleared before they are set.
+   */
+  protected void mergeChanges(ConversionPlan plan, Message.Builder builder, Map<String, ?> changes) {
+    for (Map.Entry<String, ?> entry : changes.entrySet()) {
+      ConversionPlan.FieldWriter writer = plan.getWriter(entry.getKey());
+      Descriptors.FieldDescriptor field = plan.getField(entry.getKey());
+      if (writer == null || field == null) {
+        continue;
+      }
+      if (entry.getValue() == null || field.isRepeated()) {
+        builder.clearField(field);
+      }
+      if (entry.getValue() != null) {
+        converter.buildMessageAttribute(builder, writer, entry.getValue());
+      }
+    }
+  }
+
+  protected boolean isEmptyProperty(Object value) {
+    return value == null
+        || value instanceof CharSequence && ((CharSequence) value).length() == 0
+        || value instanceof Collection && ((Collection<?>) value).isEmpty()
+        || value instanceof Map && ((Map<?, ?>) value).isEmpty()
+        || value instanceof byte[] && ((byte[]) value).length == 0;
+  }
+
+  /**
+   * Whether the two property values are equal, the nested maps and lists are compared deeply
+   * and the integral numbers are compared by value, e.g. an {@code int} enum number and a {@code long}.
+   */
+  protected boolean propertyEquals(Object a, Object b) {
+    if (isEmptyProperty(a) || isEmptyProperty(b)) {
+      return isEmptyProperty(a) && isEmptyProperty(b);
+    }
+    if (a instanceof Map && b instanceof Map) {
+      Map<?, ?> left = (Map<?, ?>) a;
+      Map<?, ?> right = (Map<?, ?>) b;
+      for (Map.Entry<?, ?> entry : left.entrySet()) {
+        if (!propertyEquals(entry.getValue(), right.get(entry.getKey()))) {
+          return false;
+        }
+      }
+      for (Map.Entry<?, ?> entry : right.entrySet()) {
+        if (!left.containsKey(entry.getKey()) && !isEmptyProperty(entry.getValue())) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (a instanceof List && b instanceof List) {
+      List<?> left = (List<?>) a;
+      List<?> right = (List<?>) b;
+      if (left.size() != right.size()) {
+        return false;
+      }
+      for (int i = 0; i < left.size(); i++) {
+        if (!propertyEquals(left.get(i), right.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (isIntegral(a) && isIntegral(b)) {
+      return ((Number) a).longValue() == ((Number) b).longValue();
+    }
+    return Objects.deepEquals(a, b);
+  }
+
+  private static boolean isIntegral(Object value) {
+    return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+  }
+}
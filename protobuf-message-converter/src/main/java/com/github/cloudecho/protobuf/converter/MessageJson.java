@@ -0,0 +1,96 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+import com.google.protobuf.Message;
+
+/**
+ * The JSON entry points of a {@link SimpleProtobufMessageConverter}: the messages are written by
+ * {@link JsonPropertySink} and read by {@link JsonMessageReader}, without building the properties maps.
+ */
+public class MessageJson {
+  protected final SimpleProtobufMessageConverter converter;
+
+  public MessageJson(SimpleProtobufMessageConverter converter) {
+    this.converter = converter;
+  }
+
+  /**
+   * Write a protobuf message as a JSON object, with the same keys and values as
+   * {@link SimpleProtobufMessageConverter#toProperties(Message)} but without building the properties maps.
+   * The writer is not flushed.
+   *
+   * @param message A protobuf message
+   * @param writer  The target writer
+   */
+  public void writeJson(Message message, Writer writer) {
+    JsonPropertySink sink = new JsonPropertySink(writer);
+    sink.beginMessage(null);
+    converter.convert(message, sink);
+    sink.endMessage();
+  }
+
+  /**
+   * Write a protobuf message as a UTF-8 JSON object, see {@link #writeJson(Message, Writer)}.
+   * The output stream is flushed but not closed.
+   */
+  public void writeJson(Message message, OutputStream output) {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+    writeJson(message, writer);
+    try {
+      writer.flush();
+    } catch (IOException ex) {
+      throw new MessageConvertException("write json fail", ex);
+    }
+  }
+
+  /**
+   * Convert a protobuf message to a JSON string, see {@link #writeJson(Message, Writer)}
+   */
+  public String toJson(Message message) {
+    StringWriter writer = new StringWriter();
+    writeJson(message, writer);
+    return writer.toString();
+  }
+
+  /**
+   * Read a JSON object into a {@code Message.Builder}, the members are set as they are read
+   * without building the properties maps. The keys and values are the same as the ones of
+   * {@link SimpleProtobufMessageConverter#newMessageBuilder(Class, Map)},
+   * the bytes fields are read from base64 strings.
+   *
+   * @param messageType The type of the message to be built
+   * @param reader      The JSON input, it is not closed
+   * @return The {@code Message.Builder} populated with the JSON object
+   */
+  public <T extends Message> Message.Builder readJson(Class<T> messageType, Reader reader) {
+    return new JsonMessageReader(converter, reader).read(messageType);
+  }
+
+  /**
+   * Read a UTF-8 JSON object into a {@code Message.Builder}, see {@link #readJson(Class, Reader)}
+   */
+  public <T extends Message> Message.Builder readJson(Class<T> messageType, InputStream input) {
+    return readJson(messageType, new InputStreamReader(input, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Build a protobuf message with a JSON string, see {@link #readJson(Class, Reader)}
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends Message> T fromJson(Class<T> messageType, String json) {
+    return (T) readJson(messageType, new StringReader(json)).build();
+  }
+}
@@ -0,0 +1,45 @@
+package com.github.cloudecho.protobuf.converter;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+import com.google.protobuf.Message;
+
+/**
+ * Map a java bean type and a protobuf message type to each other. <br>
+ * The implementations are generated by {@code protobuf-message-processor} for the beans annotated with
+ * {@link com.github.cloudecho.protobuf.annotation.ProtobufMessage}, following the same naming and value rules as
+ * {@link SimpleProtobufMessageConverter} and {@link SimpleBeanConverter}.
+ *
+ * @param <B> The type of the java bean
+ * @param <M> The type of the protobuf message
+ */
+public interface MessageMapper<B, M extends Message> {
+  /**
+   * Convert a protobuf message to a java bean
+   *
+   * @param message A protobuf message
+   * @return The target bean
+   */
+  B toBean(M message)
+      throws MessageConvertException;
+
+  /**
+   * Create a {@code Message.Builder} with the given bean
+   *
+   * @param bean The given bean
+   * @return The {@code Message.Builder} populated with the given bean
+   */
+  Message.Builder newMessageBuilder(B bean)
+      throws MessageConvertException;
+
+  /**
+   * Build a protobuf message with the given bean
+   *
+   * @param bean The given bean
+   * @return The populated protobuf message object
+   */
+  @SuppressWarnings("unchecked")
+  default M buildMessage(B bean)
+      throws MessageConvertException {
+    return (M) newMessageBuilder(bean).build();
+  }
+}
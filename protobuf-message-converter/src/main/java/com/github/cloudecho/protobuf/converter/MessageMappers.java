@@ -0,0 +1,51 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Timestamp;
+
+/**
+ * Value conversions used by the generated {@link MessageMapper}s, they have the same results as
+ * the ones of {@link SimpleProtobufMessageConverter}.
+ */
+public final class MessageMappers {
+  private MessageMappers() {
+  }
+
+  public static Date toDate(Timestamp timestamp) {
+    return new Date(timestamp.getSeconds() * 1000 + timestamp.getNanos() / 1000000);
+  }
+
+  public static Timestamp toTimestamp(Date date) {
+    return toTimestamp(date.getTime());
+  }
+
+  public static Timestamp toTimestamp(long millis) {
+    return Timestamp.newBuilder()
+        .setSeconds(millis / 1000)
+        .setNanos((int) ((millis % 1000) * 1000000))
+        .build();
+  }
+
+  public static byte[] unwrap(ByteString bytes) {
+    return bytes.size() == 0 ? null : bytes.toByteArray();
+  }
+
+  public static String emptyToNull(String value) {
+    return value.isEmpty() ? null : value;
+  }
+
+  public static ByteString toByteString(byte[] value) {
+    return ByteString.copyFrom(value);
+  }
+
+  public static ByteString toByteString(String value) {
+    return ByteString.copyFromUtf8(value);
+  }
+
+  public static ByteString toByteString(ByteBuffer value) {
+    return ByteString.copyFrom(value);
+  }
+}
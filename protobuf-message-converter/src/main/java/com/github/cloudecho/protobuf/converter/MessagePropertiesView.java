@@ -0,0 +1,188 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import org.springframework.util.CollectionUtils;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+import com.google.protobuf.Message;
+
+/**
+ * A read-only properties map backed by a protobuf message, see {@link SimpleProtobufMessageConverter#toPropertiesView}.
+ * <br>
+ * A property is converted when it is got for the first time, and the result is kept for the later calls.
+ * The nested messages and the lists of them are wrapped as views as well, so reading a few properties of
+ * a wide or deep message does not convert the rest of it. The iteration, {@code size()} and {@code equals}
+ * convert all the properties of this level only.
+ * <p>
+ * The keys and values are the same as the ones of {@link SimpleProtobufMessageConverter#toProperties(Message)}.
+ * The view is not thread-safe.
+ */
+public class MessagePropertiesView extends AbstractMap<String, Object> {
+  private static final Object UNRESOLVED = new Object();
+  private static final Object ABSENT = new Object();
+
+  private final SimpleProtobufMessageConverter converter;
+  private final ConversionPlan plan;
+  private final Message message;
+  private final Object[] values;
+  private Set<Map.Entry<String, Object>> entrySet;
+
+  public MessagePropertiesView(SimpleProtobufMessageConverter converter, ConversionPlan plan, Message message) {
+    this.converter = converter;
+    this.plan = plan;
+    this.message = message;
+    this.values = new Object[plan.getReaders().size()];
+    Arrays.fill(values, UNRESOLVED);
+  }
+
+  public Message getMessage() {
+    return message;
+  }
+
+  @Override
+  public Object get(Object key) {
+    int index = key instanceof String ? plan.indexOf((String) key) : -1;
+    if (index < 0) {
+      return null;
+    }
+    Object value = resolve(index);
+    return value == ABSENT ? null : value;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    int index = key instanceof String ? plan.indexOf((String) key) : -1;
+    return index >= 0 && resolve(index) != ABSENT;
+  }
+
+  @Override
+  public Set<Map.Entry<String, Object>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new EntrySet();
+    }
+    return entrySet;
+  }
+
+  /**
+   * The property value of the reader at the index, or {@link #ABSENT}
+   */
+  private Object resolve(int index) {
+    Object value = values[index];
+    if (value == UNRESOLVED) {
+      value = convert(plan.getReaders().get(index));
+      values[index] = value;
+    }
+    return value;
+  }
+
+  private Object convert(ConversionPlan.FieldReader reader) {
+    if (!reader.isPresent(message)) {
+      return ABSENT;
+    }
+    Object value;
+    try {
+      value = reader.get(message);
+    } catch (Exception ex) {
+      throw new MessageConvertException(
+          String.format("invoke getter \"%s\" on an object of type of \"%s\" fail",
+              reader.getGetter().getName(), message.getClass().getName()), ex);
+    }
+    if (isNestedMessage(value)) {
+      return converter.toPropertiesView((Message) value);
+    } else if (value instanceof List && !((List<?>) value).isEmpty() && isNestedMessage(((List<?>) value).get(0))) {
+      return new MessageListView((List<?>) value);
+    }
+    value = reader.convert(value);
+    if (value == null || (value instanceof Collection && CollectionUtils.isEmpty((Collection<?>) value))) {
+      return ABSENT;
+    }
+    return value;
+  }
+
+  private boolean isNestedMessage(Object value) {
+    return value instanceof Message && !converter.isWellKnownType(value.getClass());
+  }
+
+  private class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+    @Override
+    public Iterator<Map.Entry<String, Object>> iterator() {
+      return new Iterator<Map.Entry<String, Object>>() {
+        private int next = advance(0);
+
+        private int advance(int from) {
+          int i = from;
+          while (i < values.length && resolve(i) == ABSENT) {
+            i++;
+          }
+          return i;
+        }
+
+        @Override
+        public boolean hasNext() {
+          return next < values.length;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          Map.Entry<String, Object> entry = new SimpleImmutableEntry<>(
+              plan.getReaders().get(next).getPropertyKey(), values[next]);
+          next = advance(next + 1);
+          return entry;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      int size = 0;
+      for (int i = 0; i < values.length; i++) {
+        if (resolve(i) != ABSENT) {
+          size++;
+        }
+      }
+      return size;
+    }
+  }
+
+  /**
+   * A read-only list of the views of nested messages, created when they are got
+   */
+  private class MessageListView extends AbstractList<Object> implements RandomAccess {
+    private final List<?> messages;
+    private final Object[] elements;
+
+    MessageListView(List<?> messages) {
+      this.messages = messages;
+      this.elements = new Object[messages.size()];
+    }
+
+    @Override
+    public Object get(int index) {
+      Object element = elements[index];
+      if (element == null) {
+        element = converter.toPropertiesView((Message) messages.get(index));
+        elements[index] = element;
+      }
+      return element;
+    }
+
+    @Override
+    public int size() {
+      return elements.length;
+    }
+  }
+}
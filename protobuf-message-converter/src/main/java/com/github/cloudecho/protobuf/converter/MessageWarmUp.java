@@ -0,0 +1,260 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+
+/**
+ * Compile the conversion plans of a {@link SimpleProtobufMessageConverter} ahead of the first conversions,
+ * by the message classes, by the message types of a proto file, or by a warm-up manifest of a previous boot. <br>
+ * The message class of a descriptor is resolved by the java options of its proto file as {@code protoc} names it.
+ */
+public class MessageWarmUp {
+  private static final Logger logger = LoggerFactory.getLogger(MessageWarmUp.class);
+
+  /**
+   * The first line of the warm-up manifest
+   */
+  public static final String MANIFEST_HEADER = "# protobuf-message warm-up manifest";
+
+  protected final SimpleProtobufMessageConverter converter;
+
+  public MessageWarmUp(SimpleProtobufMessageConverter converter) {
+    this.converter = converter;
+  }
+
+  /**
+   * Compile the conversion plans of the message types and of their nested message types transitively
+   *
+   * @return The count of the message types warmed up, including the nested ones
+   */
+  public int warmUp(Collection<Class<? extends Message>> messageTypes) {
+    Set<Class<?>> visited = new HashSet<>();
+    for (Class<? extends Message> messageType : messageTypes) {
+      warmUp(messageType, visited);
+    }
+    return visited.size();
+  }
+
+  /**
+   * Warm up the generated message types of the proto file, the nested ones included
+   *
+   * @return The count of the message types warmed up
+   */
+  public int warmUp(Descriptors.FileDescriptor file) {
+    Set<Class<?>> visited = new HashSet<>();
+    for (Descriptors.Descriptor type : file.getMessageTypes()) {
+      warmUp(type, visited);
+    }
+    return visited.size();
+  }
+
+  /**
+   * {@link #warmUp(Collection)} in parallel, one task per given message type
+   *
+   * @return The future completed with the count of the message types warmed up
+   */
+  public CompletableFuture<Integer> warmUpAsync(Executor executor, Collection<Class<? extends Message>> messageTypes) {
+    Set<Class<?>> visited = ConcurrentHashMap.newKeySet();
+    return CompletableFuture.allOf(messageTypes.stream()
+            .map(messageType -> CompletableFuture.runAsync(() -> warmUp(messageType, visited), executor))
+            .toArray(CompletableFuture[]::new))
+        .thenApply(v -> visited.size());
+  }
+
+  /**
+   * Warm up the message types listed by {@link #writeManifest(Writer)}, the unknown ones are skipped
+   *
+   * @return The count of the message types warmed up
+   */
+  @SuppressWarnings("unchecked")
+  public int warmUp(Reader manifest) {
+    Set<Class<?>> visited = new HashSet<>();
+    try {
+      BufferedReader reader = manifest instanceof BufferedReader
+          ? (BufferedReader) manifest : new BufferedReader(manifest);
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        try {
+          Class<?> type = Class.forName(line, true, getClassLoader());
+          if (Message.class.isAssignableFrom(type)) {
+            warmUp((Class<? extends Message>) type, visited);
+          }
+        } catch (ClassNotFoundException ex) {
+          logger.warn("message class not found, skipped: {}", line);
+        }
+      }
+    } catch (IOException ex) {
+      throw new MessageConvertException("read warm-up manifest fail", ex);
+    }
+    return visited.size();
+  }
+
+  public int warmUp(Path manifest) {
+    try (Reader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+      return warmUp(reader);
+    } catch (IOException ex) {
+      throw new MessageConvertException("read warm-up manifest fail, path: " + manifest, ex);
+    }
+  }
+
+  /**
+   * Write the names of the message types of which the conversion plans are compiled, one per line,
+   * so that the next boot warms them up by {@link #warmUp(Reader)} without discovering them again.
+   */
+  public void writeManifest(Writer writer) {
+    try {
+      writer.write(MANIFEST_HEADER);
+      writer.write('\n');
+      for (String typeName : new TreeSet<>(converter.compiledMessageTypes)) {
+        writer.write(typeName);
+        writer.write('\n');
+      }
+      writer.flush();
+    } catch (IOException ex) {
+      throw new MessageConvertException("write warm-up manifest fail", ex);
+    }
+  }
+
+  public void writeManifest(Path path) {
+    try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+      writeManifest(writer);
+    } catch (IOException ex) {
+      throw new MessageConvertException("write warm-up manifest fail, path: " + path, ex);
+    }
+  }
+
+  protected void warmUp(Class<? extends Message> messageType, Set<Class<?>> visited) {
+    if (converter.isWellKnownType(messageType) || !visited.add(messageType)) {
+      return;
+    }
+    ConversionPlan plan = converter.getConversionPlan(messageType);
+    Message.Builder builder = converter.newMessageBuilder(messageType);
+    for (Descriptors.FieldDescriptor field : plan.getFields().values()) {
+      if (field.getJavaType() != Descriptors.FieldDescriptor.JavaType.MESSAGE || field.isMapField()) {
+        continue;
+      }
+      Message nested = builder.newBuilderForField(field).getDefaultInstanceForType();
+      warmUp(nested.getClass(), visited);
+    }
+  }
+
+  protected void warmUp(Descriptors.Descriptor type, Set<Class<?>> visited) {
+    Class<? extends Message> messageType = toMessageClass(type);
+    if (messageType != null) {
+      warmUp(messageType, visited);
+    }
+    for (Descriptors.Descriptor nested : type.getNestedTypes()) {
+      warmUp(nested, visited);
+    }
+  }
+
+  /**
+   * The generated class of the message descriptor, resolved by the java options of its proto file
+   *
+   * @return The message class, or {@code null} if it is a map entry or it is not found
+   */
+  @SuppressWarnings("unchecked")
+  protected Class<? extends Message> toMessageClass(Descriptors.Descriptor type) {
+    if (type.getOptions().getMapEntry()) {
+      return null;
+    }
+    String className = toMessageClassName(type);
+    try {
+      Class<?> result = Class.forName(className, true, getClassLoader());
+      if (Message.class.isAssignableFrom(result)) {
+        return (Class<? extends Message>) result;
+      }
+      logger.warn("not a message class, skipped: {}, message type: {}", className, type.getFullName());
+    } catch (ClassNotFoundException ex) {
+      logger.warn("message class not found, skipped: {}, message type: {}", className, type.getFullName());
+    }
+    return null;
+  }
+
+  protected String toMessageClassName(Descriptors.Descriptor type) {
+    if (type.getContainingType() != null) {
+      return toMessageClassName(type.getContainingType()) + "$" + type.getName();
+    }
+    Descriptors.FileDescriptor file = type.getFile();
+    String javaPackage = file.getOptions().hasJavaPackage() ? file.getOptions().getJavaPackage() : file.getPackage();
+    String prefix = javaPackage.isEmpty() ? "" : javaPackage + ".";
+    if (file.getOptions().getJavaMultipleFiles()) {
+      return prefix + type.getName();
+    }
+    return prefix + toOuterClassName(file) + "$" + type.getName();
+  }
+
+  /**
+   * The outer class name of the proto file, e.g. {@code TestProto} of {@code test_proto.proto}
+   * or {@code TestOuterClass} of {@code test.proto} which has a message, an enum or a service named {@code Test},
+   * the nested messages and enums included
+   */
+  protected String toOuterClassName(Descriptors.FileDescriptor file) {
+    if (file.getOptions().hasJavaOuterClassname()) {
+      return file.getOptions().getJavaOuterClassname();
+    }
+    String name = file.getName();
+    name = name.substring(name.lastIndexOf('/') + 1);
+    if (name.endsWith(".proto")) {
+      name = name.substring(0, name.length() - ".proto".length());
+    }
+    StringBuilder result = new StringBuilder(name.length());
+    boolean upper = true;
+    for (char c : name.toCharArray()) {
+      if (Character.isLetterOrDigit(c)) {
+        result.append(upper ? Character.toUpperCase(c) : c);
+        upper = Character.isDigit(c);
+      } else {
+        upper = true;
+      }
+    }
+    String outerClassName = result.toString();
+    boolean conflict = hasConflict(file.getMessageTypes(), outerClassName)
+        || file.getEnumTypes().stream().anyMatch(t -> t.getName().equals(outerClassName))
+        || file.getServices().stream().anyMatch(t -> t.getName().equals(outerClassName));
+    return conflict ? outerClassName + "OuterClass" : outerClassName;
+  }
+
+  /**
+   * Whether a message type, or a message or an enum nested in it at any depth, has the class name
+   */
+  protected boolean hasConflict(List<Descriptors.Descriptor> types, String className) {
+    for (Descriptors.Descriptor type : types) {
+      if (type.getName().equals(className)
+          || type.getEnumTypes().stream().anyMatch(t -> t.getName().equals(className))
+          || hasConflict(type.getNestedTypes(), className)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  protected ClassLoader getClassLoader() {
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    return classLoader != null ? classLoader : converter.getClass().getClassLoader();
+  }
+}
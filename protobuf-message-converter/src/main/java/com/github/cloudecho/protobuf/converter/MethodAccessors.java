@@ -0,0 +1,244 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandleProxies;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+
+/**
+ * Create functional accessors for public getters and setters. <br>
+ * The accessors are spun by {@link LambdaMetafactory} so that calling them is a plain
+ * interface call which can be inlined by the JIT. If the declaring class of a method is
+ * not visible to this library (e.g. it is loaded by a child class loader), the accessors
+ * fall back to a {@link MethodHandleProxies proxy} of a {@link MethodHandle}, which is slower.
+ * <p>
+ * The primitive accessors, e.g. {@link #intGetter} and {@link #intSetter}, pass the values without boxing.
+ */
+public final class MethodAccessors {
+  private static final Logger logger = LoggerFactory.getLogger(MethodAccessors.class);
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private MethodAccessors() {
+  }
+
+  /**
+   * Create a {@code Function} which calls the given no-arg method on its argument
+   */
+  public static Function<Object, Object> getter(Method getter) {
+    return accessor(getter, Function.class, "apply",
+        MethodType.methodType(Object.class, Object.class),
+        MethodType.methodType(wrap(getter.getReturnType()), getter.getDeclaringClass()));
+  }
+
+  /**
+   * Create a {@code ToIntFunction} which calls the given no-arg method returning {@code int}, without boxing
+   */
+  public static ToIntFunction<Object> intGetter(Method getter) {
+    return accessor(getter, ToIntFunction.class, "applyAsInt",
+        MethodType.methodType(int.class, Object.class),
+        MethodType.methodType(int.class, getter.getDeclaringClass()));
+  }
+
+  /**
+   * Create a {@code ToLongFunction} which calls the given no-arg method returning {@code long}, without boxing
+   */
+  public static ToLongFunction<Object> longGetter(Method getter) {
+    return accessor(getter, ToLongFunction.class, "applyAsLong",
+        MethodType.methodType(long.class, Object.class),
+        MethodType.methodType(long.class, getter.getDeclaringClass()));
+  }
+
+  /**
+   * Create a {@code ToFloatFunction} which calls the given no-arg method returning {@code float}, without boxing
+   */
+  public static ToFloatFunction<Object> floatGetter(Method getter) {
+    return accessor(getter, ToFloatFunction.class, "applyAsFloat",
+        MethodType.methodType(float.class, Object.class),
+        MethodType.methodType(float.class, getter.getDeclaringClass()));
+  }
+
+  /**
+   * Create a {@code ToDoubleFunction} which calls the given no-arg method returning {@code double}, without boxing
+   */
+  public static ToDoubleFunction<Object> doubleGetter(Method getter) {
+    return accessor(getter, ToDoubleFunction.class, "applyAsDouble",
+        MethodType.methodType(double.class, Object.class),
+        MethodType.methodType(double.class, getter.getDeclaringClass()));
+  }
+
+  /**
+   * Create a {@code Predicate} which calls the given no-arg method returning {@code boolean}
+   */
+  public static Predicate<Object> predicate(Method predicate) {
+    return accessor(predicate, Predicate.class, "test",
+        MethodType.methodType(boolean.class, Object.class),
+        MethodType.methodType(boolean.class, predicate.getDeclaringClass()));
+  }
+
+  /**
+   * Create a {@code BiConsumer} which calls the given one-arg method on its first argument,
+   * the return value of the method is discarded
+   */
+  public static BiConsumer<Object, Object> setter(Method setter) {
+    return accessor(setter, BiConsumer.class, "accept",
+        MethodType.methodType(void.class, Object.class, Object.class),
+        MethodType.methodType(void.class, setter.getDeclaringClass(), wrap(setter.getParameterTypes()[0])));
+  }
+
+  /**
+   * Create an {@code ObjIntConsumer} which calls the given method taking an {@code int}, without boxing
+   */
+  public static ObjIntConsumer<Object> intSetter(Method setter) {
+    return accessor(setter, ObjIntConsumer.class, "accept",
+        MethodType.methodType(void.class, Object.class, int.class),
+        MethodType.methodType(void.class, setter.getDeclaringClass(), int.class));
+  }
+
+  /**
+   * Create an {@code ObjLongConsumer} which calls the given method taking a {@code long}, without boxing
+   */
+  public static ObjLongConsumer<Object> longSetter(Method setter) {
+    return accessor(setter, ObjLongConsumer.class, "accept",
+        MethodType.methodType(void.class, Object.class, long.class),
+        MethodType.methodType(void.class, setter.getDeclaringClass(), long.class));
+  }
+
+  /**
+   * Create an {@code ObjFloatConsumer} which calls the given method taking a {@code float}, without boxing
+   */
+  public static ObjFloatConsumer<Object> floatSetter(Method setter) {
+    return accessor(setter, ObjFloatConsumer.class, "accept",
+        MethodType.methodType(void.class, Object.class, float.class),
+        MethodType.methodType(void.class, setter.getDeclaringClass(), float.class));
+  }
+
+  /**
+   * Create an {@code ObjDoubleConsumer} which calls the given method taking a {@code double}, without boxing
+   */
+  public static ObjDoubleConsumer<Object> doubleSetter(Method setter) {
+    return accessor(setter, ObjDoubleConsumer.class, "accept",
+        MethodType.methodType(void.class, Object.class, double.class),
+        MethodType.methodType(void.class, setter.getDeclaringClass(), double.class));
+  }
+
+  /**
+   * Create an {@code ObjBooleanConsumer} which calls the given method taking a {@code boolean}, without boxing
+   */
+  public static ObjBooleanConsumer<Object> booleanSetter(Method setter) {
+    return accessor(setter, ObjBooleanConsumer.class, "accept",
+        MethodType.methodType(void.class, Object.class, boolean.class),
+        MethodType.methodType(void.class, setter.getDeclaringClass(), boolean.class));
+  }
+
+  /**
+   * A {@code float} counterpart of {@link ToDoubleFunction}, which the JDK does not provide
+   */
+  @FunctionalInterface
+  public interface ToFloatFunction<T> {
+    float applyAsFloat(T value);
+  }
+
+  /**
+   * A {@code float} counterpart of {@link ObjDoubleConsumer}, which the JDK does not provide
+   */
+  @FunctionalInterface
+  public interface ObjFloatConsumer<T> {
+    void accept(T t, float value);
+  }
+
+  /**
+   * A {@code boolean} counterpart of {@link ObjIntConsumer}, which the JDK does not provide
+   */
+  @FunctionalInterface
+  public interface ObjBooleanConsumer<T> {
+    void accept(T t, boolean value);
+  }
+
+  /**
+   * Create an instance of the functional interface calling the method, spun by {@link LambdaMetafactory},
+   * or a proxy of the method handle if the declaring class of the method cannot be linked by this library
+   *
+   * @param erasedType       The type of the interface method
+   * @param instantiatedType The type of the interface method, specialized to the method
+   */
+  @SuppressWarnings("unchecked")
+  private static <F> F accessor(Method method, Class<?> functionalInterface, String interfaceMethodName,
+                                MethodType erasedType, MethodType instantiatedType) {
+    MethodHandle handle = unreflect(method);
+    if (isVisible(method.getDeclaringClass())) {
+      try {
+        CallSite site = LambdaMetafactory.metafactory(LOOKUP,
+            interfaceMethodName,
+            MethodType.methodType(functionalInterface),
+            erasedType,
+            handle,
+            instantiatedType);
+        return (F) site.getTarget().invoke();
+      } catch (Throwable ex) {
+        logger.debug("metafactory failed, use method handle instead: {}", method, ex);
+      }
+    }
+    return (F) MethodHandleProxies.asInterfaceInstance(functionalInterface, handle.asType(erasedType));
+  }
+
+  private static MethodHandle unreflect(Method method) {
+    try {
+      return LOOKUP.unreflect(method);
+    } catch (IllegalAccessException ex) {
+      throw new MessageConvertException(
+          String.format("Cannot access method \"%s\"", method), ex);
+    }
+  }
+
+  /**
+   * Whether the spun lambda class, which is defined in the class loader of this library, can link the given class
+   */
+  private static boolean isVisible(Class<?> type) {
+    try {
+      return Class.forName(type.getName(), false, MethodAccessors.class.getClassLoader()) == type;
+    } catch (ClassNotFoundException | LinkageError ex) {
+      return false;
+    }
+  }
+
+  private static Class<?> wrap(Class<?> type) {
+    if (!type.isPrimitive()) {
+      return type;
+    } else if (int.class == type) {
+      return Integer.class;
+    } else if (long.class == type) {
+      return Long.class;
+    } else if (boolean.class == type) {
+      return Boolean.class;
+    } else if (double.class == type) {
+      return Double.class;
+    } else if (float.class == type) {
+      return Float.class;
+    } else if (short.class == type) {
+      return Short.class;
+    } else if (byte.class == type) {
+      return Byte.class;
+    } else if (char.class == type) {
+      return Character.class;
+    }
+    return Void.class;
+  }
+}
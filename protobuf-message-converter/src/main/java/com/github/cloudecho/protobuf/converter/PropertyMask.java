@@ -0,0 +1,68 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A tree of the selected property keys, compiled from the paths of a {@code FieldMask},
+ * e.g. {@code nestedDto.nestedInt} selects the property {@code nestedInt} of the property {@code nestedDto}. <br>
+ * A selected property without sub-paths is selected as a whole, including all of its nested properties.
+ */
+public final class PropertyMask {
+  /**
+   * Select all the properties
+   */
+  public static final PropertyMask ALL = new PropertyMask(null);
+
+  private final Map<String, PropertyMask> children;
+
+  private PropertyMask(Map<String, PropertyMask> children) {
+    this.children = children;
+  }
+
+  /**
+   * Compile the paths, no path selects all the properties
+   *
+   * @param paths         The dot separated paths
+   * @param keyNormalizer Convert a path segment to property key, e.g. a snake case field name
+   */
+  public static PropertyMask of(Collection<String> paths, Function<String, String> keyNormalizer) {
+    if (paths.isEmpty()) {
+      return ALL;
+    }
+    PropertyMask root = new PropertyMask(new HashMap<>());
+    for (String path : paths) {
+      PropertyMask node = root;
+      String[] segments = path.split("\\.");
+      for (int i = 0; i < segments.length && node != ALL; i++) {
+        String key = keyNormalizer.apply(segments[i]);
+        if (i == segments.length - 1) {
+          node.children.put(key, ALL);
+        } else {
+          node = node.children.computeIfAbsent(key, k -> new PropertyMask(new HashMap<>()));
+        }
+      }
+    }
+    return root;
+  }
+
+  public boolean isAll() {
+    return this == ALL;
+  }
+
+  /**
+   * The selection of the nested properties of the given property key
+   *
+   * @return The selection, {@link #ALL} if it is selected as a whole, or {@code null} if it is not selected
+   */
+  public PropertyMask get(String propertyKey) {
+    return this == ALL ? ALL : children.get(propertyKey);
+  }
+
+  @Override
+  public String toString() {
+    return this == ALL ? "*" : children.toString();
+  }
+}
@@ -0,0 +1,66 @@
+package com.github.cloudecho.protobuf.converter;
+
+/**
+ * The receiver of the properties of a message, see {@link SimpleProtobufMessageConverter#convert}. <br>
+ * The numeric and bool fields, including the wrapper types and the enum numbers, are passed to the
+ * primitive methods, so a sink which does not box them converts them without allocation.
+ * The other values are passed to {@link #put} in the same form as the ones of the properties map.
+ * <p>
+ * A nested message is passed as a properties map, unless the sink accepts it by {@link #beginMessage},
+ * then its properties are written into this sink, followed by {@link #endMessage()}.
+ * In the same way a repeated field is passed as a list, unless the sink accepts it by {@link #beginList},
+ * then its elements are written with a {@code null} key, followed by {@link #endList()}.
+ * A streaming sink, e.g. a JSON writer, accepts them both.
+ */
+public interface PropertySink {
+  void put(String key, Object value);
+
+  default void putInt(String key, int value) {
+    put(key, value);
+  }
+
+  default void putLong(String key, long value) {
+    put(key, value);
+  }
+
+  default void putFloat(String key, float value) {
+    put(key, value);
+  }
+
+  default void putDouble(String key, double value) {
+    put(key, value);
+  }
+
+  default void putBoolean(String key, boolean value) {
+    put(key, value);
+  }
+
+  /**
+   * A nested message begins
+   *
+   * @param key The property key, or {@code null} if it is an element of a list
+   * @return Whether the properties of the nested message are written into this sink,
+   * otherwise it is passed to {@link #put} as a properties map
+   */
+  default boolean beginMessage(String key) {
+    return false;
+  }
+
+  default void endMessage() {
+  }
+
+  /**
+   * A non-empty repeated field begins
+   *
+   * @param key  The property key
+   * @param size The count of the elements
+   * @return Whether the elements are written into this sink one by one,
+   * otherwise the field is passed to {@link #put} as a list
+   */
+  default boolean beginList(String key, int size) {
+    return false;
+  }
+
+  default void endList() {
+  }
+}
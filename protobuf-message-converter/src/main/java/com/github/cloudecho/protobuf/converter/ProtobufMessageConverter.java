@@ -1,9 +1,13 @@
 package com.github.cloudecho.protobuf.converter;
 
-
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import com.github.cloudecho.protobuf.exception.MessageConvertException;
 import com.google.protobuf.Message;
@@ -13,11 +17,14 @@ public interface ProtobufMessageConverter {
   String SETTER_PREFIX = "set";
   String HASSER_PREFIX = "has";
   String LIST_SETTER_PREFIX = "addAll";
+  String MAP_SETTER_PREFIX = "putAll";
 
   String BUILDER_SUFFIX = "OrBuilder";
   String BYTES_SUFFIX = "Bytes";
+  String CASE_SUFFIX = "Case";
   String COUNT_SUFFIX = "Count";
   String LIST_SUFFIX = "List";
+  String MAP_SUFFIX = "Map";
   String VALUE_SUFFIX = "Value";
 
   String GET_DEFAULT_INSTANCE_METHOD = "getDefaultInstance";
@@ -52,6 +59,65 @@ public interface ProtobufMessageConverter {
     return beanConverter.toBean(beanType, toProperties(message));
   }
 
+  /**
+   * Convert protobuf messages to java beans, in the same order
+   *
+   * @param beanType The target bean type
+   * @param messages The protobuf messages
+   * @return The target beans
+   */
+  default <T> List<T> toBeans(Class<T> beanType, List<? extends Message> messages, BeanConverter beanConverter)
+      throws MessageConvertException {
+    List<T> result = new ArrayList<>(messages.size());
+    for (Message message : messages) {
+      result.add(toBean(beanType, message, beanConverter));
+    }
+    return result;
+  }
+
+  /**
+   * Convert the length-delimited messages of an input stream to java beans lazily,
+   * a message is read when the iterator is advanced.
+   *
+   * @param messageType The type of the messages written by {@code writeDelimitedTo}
+   * @param beanType    The target bean type
+   * @param input       The input stream, it is closed by {@link DelimitedMessageIterator#close}
+   * @return The iterator of the target beans
+   */
+  default <M extends Message, T> DelimitedMessageIterator<M, T>
+  toBeanIterator(Class<M> messageType, Class<T> beanType, InputStream input, BeanConverter beanConverter)
+      throws MessageConvertException {
+    return new DelimitedMessageIterator<>(messageType, input, m -> toBean(beanType, m, beanConverter));
+  }
+
+  /**
+   * Convert the length-delimited messages of an input stream to a lazy stream of java beans
+   *
+   * @param messageType The type of the messages written by {@code writeDelimitedTo}
+   * @param beanType    The target bean type
+   * @param input       The input stream, it is closed along with the returned stream
+   * @return The sequential stream of the target beans
+   */
+  default <M extends Message, T> Stream<T>
+  toBeanStream(Class<M> messageType, Class<T> beanType, InputStream input, BeanConverter beanConverter)
+      throws MessageConvertException {
+    return toBeanIterator(messageType, beanType, input, beanConverter).stream();
+  }
+
+  /**
+   * Convert the length-delimited messages of a channel to a lazy stream of java beans
+   *
+   * @param messageType The type of the messages written by {@code writeDelimitedTo}
+   * @param beanType    The target bean type
+   * @param channel     The channel, it is closed along with the returned stream
+   * @return The sequential stream of the target beans
+   */
+  default <M extends Message, T> Stream<T>
+  toBeanStream(Class<M> messageType, Class<T> beanType, ReadableByteChannel channel, BeanConverter beanConverter)
+      throws MessageConvertException {
+    return toBeanStream(messageType, beanType, Channels.newInputStream(channel), beanConverter);
+  }
+
   /**
    * Create a {@code Message.Builder} with the given properties
    *
@@ -107,4 +173,22 @@ public interface ProtobufMessageConverter {
       throws MessageConvertException {
     return (T) newMessageBuilder(messageType, bean, beanConverter).build();
   }
+
+  /**
+   * Build protobuf messages with the given beans, in the same order
+   *
+   * @param messageType The type of the target objects to be populated
+   * @param beans       The given beans
+   * @param <T>         The type of protobuf message
+   * @return The populated protobuf message objects
+   */
+  default <T extends Message> List<T>
+  buildMessages(Class<T> messageType, List<?> beans, BeanConverter beanConverter)
+      throws MessageConvertException {
+    List<T> result = new ArrayList<>(beans.size());
+    for (Object bean : beans) {
+      result.add(buildMessage(messageType, bean, beanConverter));
+    }
+    return result;
+  }
 }
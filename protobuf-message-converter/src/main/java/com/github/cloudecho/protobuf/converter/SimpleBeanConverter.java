@@ -4,57 +4,117 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import com.github.cloudecho.protobuf.exception.MessageConvertException;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.ByteString;
 
 public class SimpleBeanConverter implements BeanConverter {
+  protected ConversionMetrics conversionMetrics = ConversionMetrics.NOOP;
+
+  /**
+   * Report the conversions and the metadata caches to the given listener, {@code null} for none (the default)
+   */
+  public void setConversionMetrics(ConversionMetrics conversionMetrics) {
+    this.conversionMetrics = conversionMetrics == null ? ConversionMetrics.NOOP : conversionMetrics;
+    this.conversionMetrics.bindCaches(this, getCaches());
+  }
+
+  /**
+   * The metadata caches by name
+   */
+  protected Map<String, ClassValueCache<?>> getCaches() {
+    Map<String, ClassValueCache<?>> caches = new LinkedHashMap<>();
+    caches.put("BEAN_READERS_CACHE", BEAN_READERS_CACHE);
+    caches.put("BEAN_GETTERS_CACHE", BEAN_GETTERS_CACHE);
+    caches.put("BEAN_SETTERS_CACHE", BEAN_SETTERS_CACHE);
+    return caches;
+  }
+
   @Override
   public <T> T toBean(Class<T> beanType, Map<String, ?> properties) {
+    ConversionMetrics metrics = this.conversionMetrics;
+    if (metrics == ConversionMetrics.NOOP) {
+      return toBean0(beanType, properties);
+    }
+    long start = System.nanoTime();
+    T result;
+    try {
+      result = toBean0(beanType, properties);
+    } catch (RuntimeException ex) {
+      metrics.failed(ConversionMetrics.Operation.PROPERTIES_TO_BEAN, beanType, System.nanoTime() - start, ex);
+      throw ex;
+    }
+    metrics.converted(ConversionMetrics.Operation.PROPERTIES_TO_BEAN, beanType,
+        System.nanoTime() - start, properties.size());
+    return result;
+  }
+
+  protected <T> T toBean0(Class<T> beanType, Map<String, ?> properties) {
     T bean = newInstance(beanType);
     properties.forEach((k, v) -> {
       if (v == null) {
         return;
       }
-      getterMethod(beanType, k).ifPresent(g ->
-          setterMethod(beanType, g).ifPresent(setter -> {
-            Object propertyValue = toPropertyValue(g.getReturnType(), g.getGenericReturnType(), v);
-            try {
-              setter.invoke(bean, propertyValue);
-            } catch (Exception ex) {
-              throw new MessageConvertException(ex);
-            }
-          })
-      );
+      setProperty(beanType, bean, k, v);
     });
     return bean;
   }
 
+  /**
+   * Set a non-null property value to the bean, if the property has both getter and setter
+   */
+  protected <T> void setProperty(Class<T> beanType, T bean, String propertyKey, Object value) {
+    getterMethod(beanType, propertyKey).ifPresent(g ->
+        setterMethod(beanType, g).ifPresent(setter -> {
+          Object propertyValue = toPropertyValue(g.getReturnType(), g.getGenericReturnType(), value);
+          try {
+            setter.invoke(bean, propertyValue);
+          } catch (Exception ex) {
+            throw new MessageConvertException(ex);
+          }
+        })
+    );
+  }
+
   @Override
   public <T> Map<String, ?> toProperties(T bean) throws MessageConvertException {
+    ConversionMetrics metrics = this.conversionMetrics;
+    if (metrics == ConversionMetrics.NOOP) {
+      return toProperties0(bean);
+    }
+    long start = System.nanoTime();
+    Map<String, ?> result;
+    try {
+      result = toProperties0(bean);
+    } catch (RuntimeException ex) {
+      metrics.failed(ConversionMetrics.Operation.BEAN_TO_PROPERTIES, bean.getClass(), System.nanoTime() - start, ex);
+      throw ex;
+    }
+    metrics.converted(ConversionMetrics.Operation.BEAN_TO_PROPERTIES, bean.getClass(),
+        System.nanoTime() - start, result.size());
+    return result;
+  }
+
+  protected <T> Map<String, ?> toProperties0(T bean) {
     Map<String, Object> result = new HashMap<>();
-    for (Method m : bean.getClass().getMethods()) {
-      if (!isGetter(m)) {
-        continue;
-      }
+    for (Map.Entry<String, Method> getter : BEAN_READERS_CACHE.get(bean.getClass()).entrySet()) {
       try {
-        Object value = m.invoke(bean);
+        Object value = getter.getValue().invoke(bean);
         if (value != null) {
-          result.put(
-              toPropertiesMapKey(m.getName()),
-              toPropertiesMapValue(value));
+          result.put(getter.getKey(), toPropertiesMapValue(value));
         }
       } catch (Exception e) {
         throw new MessageConvertException(e);
@@ -63,6 +123,21 @@ public class SimpleBeanConverter implements BeanConverter {
     return result;
   }
 
+  /**
+   * bean type -&gt; property key -&gt; getter, of all the public getters
+   */
+  protected final ClassValueCache<Map<String, Method>> BEAN_READERS_CACHE = new ClassValueCache<>(this::getBeanReaders0);
+
+  protected Map<String, Method> getBeanReaders0(Class<?> beanType) {
+    Map<String, Method> result = new LinkedHashMap<>();
+    for (Method m : beanType.getMethods()) {
+      if (isGetter(m)) {
+        result.put(toPropertiesMapKey(m.getName()), m);
+      }
+    }
+    return result;
+  }
+
   protected String toPropertiesMapKey(String getterName) {
     int n = GETTER_PREFIX.length();
     return Character.toLowerCase(getterName.charAt(n))
@@ -75,6 +150,8 @@ public class SimpleBeanConverter implements BeanConverter {
         value instanceof Character ||
         value instanceof CharSequence ||
         value instanceof byte[] ||
+        value instanceof ByteBuffer ||
+        value instanceof ByteString ||
         value instanceof Date) {
       return value;
     } else if (value instanceof List) {
@@ -91,6 +168,27 @@ public class SimpleBeanConverter implements BeanConverter {
     }
   }
 
+  /**
+   * Whether the values of the given type are described as a nested properties map
+   * by {@link #toPropertiesMapValue(Object)}
+   */
+  protected boolean isNestedBeanType(Class<?> type) {
+    return !(type.isPrimitive()
+        || type.isArray()
+        || type.isInterface()
+        || type.isEnum()
+        || Object.class == type
+        || Number.class.isAssignableFrom(type)
+        || Boolean.class == type
+        || Character.class == type
+        || CharSequence.class.isAssignableFrom(type)
+        || Date.class.isAssignableFrom(type)
+        || ByteBuffer.class.isAssignableFrom(type)
+        || ByteString.class.isAssignableFrom(type)
+        || List.class.isAssignableFrom(type)
+        || Map.class.isAssignableFrom(type));
+  }
+
   protected void arrayForEach(Object array, Consumer<Object> consumer) {
     Objects.requireNonNull(array);
     int n = Array.getLength(array);
@@ -102,6 +200,9 @@ public class SimpleBeanConverter implements BeanConverter {
 
   protected Object toPropertyValue(Class<?> propertyType, Type propertyGenericType, Object value) {
     Class<?> valueType = value.getClass();
+    if (isBytes(valueType) && (byte[].class == propertyType || isBytes(propertyType))) {
+      return toBytesPropertyValue(propertyType, value);
+    }
     Class<?> componentType = componentType(propertyType, propertyGenericType);
     if (componentType != null) {
       return propertyType.isArray()
@@ -130,6 +231,41 @@ public class SimpleBeanConverter implements BeanConverter {
     }
   }
 
+  /**
+   * Whether the type is a view of bytes, i.e. {@code ByteBuffer} or {@code ByteString}, or a {@code byte[]}
+   */
+  protected boolean isBytes(Class<?> type) {
+    return byte[].class == type
+        || ByteBuffer.class.isAssignableFrom(type)
+        || ByteString.class.isAssignableFrom(type);
+  }
+
+  /**
+   * Convert between {@code byte[]}, {@code ByteBuffer} and {@code ByteString}, which is copied only if the property
+   * is a {@code byte[]} or a {@code ByteString} but the value is not
+   */
+  protected Object toBytesPropertyValue(Class<?> propertyType, Object value) {
+    if (propertyType.isInstance(value)) {
+      return value;
+    } else if (byte[].class == propertyType) {
+      if (value instanceof ByteString) {
+        return ((ByteString) value).toByteArray();
+      }
+      ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+      byte[] result = new byte[buffer.remaining()];
+      buffer.get(result);
+      return result;
+    } else if (propertyType.isAssignableFrom(ByteBuffer.class)) {
+      return value instanceof ByteString
+          ? ((ByteString) value).asReadOnlyByteBuffer()
+          : ByteBuffer.wrap((byte[]) value);
+    } else {
+      return value instanceof ByteBuffer
+          ? ByteString.copyFrom(((ByteBuffer) value).duplicate())
+          : ByteString.copyFrom((byte[]) value);
+    }
+  }
+
   protected Class<?> componentType(Class<?> propertyType, Type genericType) {
     if (List.class.isAssignableFrom(propertyType)) { // List
       if (genericType instanceof ParameterizedType) {
@@ -216,38 +352,39 @@ public class SimpleBeanConverter implements BeanConverter {
     }
   }
 
-  protected final Cache<String, Optional<Method>> BEAN_METHODS_CACHE = CacheBuilder.newBuilder().build();
+  /**
+   * bean type -&gt; property key -&gt; getter
+   */
+  protected final ClassValueCache<ConcurrentMap<String, Optional<Method>>> BEAN_GETTERS_CACHE = ClassValueCache.ofMaps();
+
+  /**
+   * bean type -&gt; getter name -&gt; setter
+   */
+  protected final ClassValueCache<ConcurrentMap<String, Optional<Method>>> BEAN_SETTERS_CACHE = ClassValueCache.ofMaps();
 
   protected <T> Optional<Method> getterMethod(Class<T> beanType, String propertyKey) {
-    String getterName = toGetterName(propertyKey);
+    return ClassValueCache.getEntry(BEAN_GETTERS_CACHE, beanType, propertyKey, key -> getterMethod0(beanType, key));
+  }
+
+  protected <T> Optional<Method> getterMethod0(Class<T> beanType, String propertyKey) {
     try {
-      return BEAN_METHODS_CACHE.get(getterName + '@' + beanType.getName(), () -> {
-        try {
-          Method m = beanType.getMethod(getterName);
-          return isGetter(m) ? Optional.of(m) : Optional.empty();
-        } catch (NoSuchMethodException e) {
-          return Optional.empty();
-        }
-      });
-    } catch (ExecutionException e) {
-      throw new MessageConvertException(e);
+      Method m = beanType.getMethod(toGetterName(propertyKey));
+      return isGetter(m) ? Optional.of(m) : Optional.empty();
+    } catch (NoSuchMethodException e) {
+      return Optional.empty();
     }
   }
 
   protected <T> Optional<Method> setterMethod(Class<T> beanType, Method getter) {
-    String setterName = "s" + getter.getName().substring(1);
-    Class<?> propertyType = getter.getReturnType();
+    return ClassValueCache.getEntry(BEAN_SETTERS_CACHE, beanType, getter.getName(),
+        name -> setterMethod0(beanType, getter));
+  }
+
+  protected <T> Optional<Method> setterMethod0(Class<T> beanType, Method getter) {
     try {
-      return BEAN_METHODS_CACHE.get(setterName + '@' + beanType.getName(), () -> {
-        try {
-          Method m = beanType.getMethod(setterName, propertyType);
-          return Optional.of(m);
-        } catch (NoSuchMethodException e) {
-          return Optional.empty();
-        }
-      });
-    } catch (ExecutionException e) {
-      throw new MessageConvertException(e);
+      return Optional.of(beanType.getMethod("s" + getter.getName().substring(1), getter.getReturnType()));
+    } catch (NoSuchMethodException e) {
+      return Optional.empty();
     }
   }
 
@@ -0,0 +1,386 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+import com.google.protobuf.Message;
+
+/**
+ * A {@link BeanMessageMapper} which copies the values from getters to setters directly,
+ * following the same naming and value rules as {@link SimpleProtobufMessageConverter} and
+ * {@link SimpleBeanConverter}. <br>
+ * The mappings are resolved once per (bean type, message type) pair. Nested messages and
+ * beans, including lists and arrays of them, are mapped recursively without being described
+ * as properties maps.
+ */
+public class SimpleBeanMessageMapper implements BeanMessageMapper {
+  private static final Logger logger = LoggerFactory.getLogger(SimpleBeanMessageMapper.class);
+
+  protected final SimpleProtobufMessageConverter messageConverter;
+  protected final SimpleBeanConverter beanConverter;
+
+  public SimpleBeanMessageMapper() {
+    this(new SimpleProtobufMessageConverter(), new SimpleBeanConverter());
+  }
+
+  public SimpleBeanMessageMapper(SimpleProtobufMessageConverter messageConverter,
+                                 SimpleBeanConverter beanConverter) {
+    this.messageConverter = messageConverter;
+    this.beanConverter = beanConverter;
+  }
+
+  @Override
+  public <T> T toBean(Class<T> beanType, Message message) {
+    T bean = beanConverter.newInstance(beanType);
+    for (ToBeanMapping mapping : getMappingPlan(beanType, message.getClass()).toBeanMappings) {
+      ConversionPlan.FieldReader reader = mapping.reader;
+      if (!reader.isPresent(message)) {
+        continue;
+      }
+      try {
+        Object value = toBeanPropertyValue(mapping, reader.get(message));
+        if (value != null) {
+          mapping.setter.accept(bean, value);
+        }
+      } catch (MessageConvertException ex) {
+        throw ex;
+      } catch (Exception ex) {
+        throw new MessageConvertException(
+            String.format("map property \"%s\" from %s to %s fail",
+                reader.getPropertyKey(), message.getClass().getName(), beanType.getName()), ex);
+      }
+    }
+    return bean;
+  }
+
+  @Override
+  public <T extends Message> Message.Builder
+  newMessageBuilder(Class<T> messageType, Object bean) {
+    Message.Builder builder = messageConverter.newMessageBuilder(messageType);
+    for (ToMessageMapping mapping : getMappingPlan(bean.getClass(), messageType).toMessageMappings) {
+      ConversionPlan.FieldWriter writer = mapping.writer;
+      try {
+        Object value = mapping.getter.apply(bean);
+        if (value == null) {
+          continue;
+        }
+        value = toMessageValue(mapping, value);
+        if (value != null) {
+          writer.set(builder, value);
+        }
+      } catch (MessageConvertException ex) {
+        throw ex;
+      } catch (Exception ex) {
+        throw new MessageConvertException(
+            String.format("map property \"%s\" from %s to %s fail",
+                writer.getPropertyKey(), bean.getClass().getName(), messageType.getName()), ex);
+      }
+    }
+    return builder;
+  }
+
+  protected Object toBeanPropertyValue(ToBeanMapping mapping, Object value) {
+    if (value == null) {
+      return null;
+    }
+    switch (mapping.kind) {
+      case NESTED:
+        return toBean(mapping.propertyType, (Message) value);
+      case NESTED_LIST:
+        List<?> items = (List<?>) value;
+        if (items.isEmpty()) {
+          return null;
+        }
+        if (mapping.propertyType.isArray()) {
+          Object result = Array.newInstance(mapping.componentType, items.size());
+          for (int i = 0; i < items.size(); i++) {
+            Array.set(result, i, toBean(mapping.componentType, (Message) items.get(i)));
+          }
+          return result;
+        }
+        List<Object> result = new ArrayList<>(items.size());
+        for (Object item : items) {
+          result.add(toBean(mapping.componentType, (Message) item));
+        }
+        return result;
+      case SCALAR_LIST:
+        return toBeanScalarList(mapping, (List<?>) value);
+      default:
+        Object v = mapping.reader.convert(value);
+        if (v == null || (v instanceof Collection && ((Collection<?>) v).isEmpty())) {
+          return null;
+        }
+        return beanConverter.toPropertyValue(mapping.propertyType, mapping.propertyGenericType, v);
+    }
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  protected Object toMessageValue(ToMessageMapping mapping, Object value) {
+    switch (mapping.kind) {
+      case NESTED:
+        return buildMessage((Class) mapping.messageType, value);
+      case NESTED_LIST:
+        List<Object> result = new ArrayList<>();
+        if (value instanceof List) {
+          for (Object item : (List<?>) value) {
+            if (item != null) {
+              result.add(buildMessage((Class) mapping.messageType, item));
+            }
+          }
+        } else {
+          beanConverter.arrayForEach(value, item -> {
+            if (item != null) {
+              result.add(buildMessage((Class) mapping.messageType, item));
+            }
+          });
+        }
+        return result.isEmpty() ? null : result;
+      case SCALAR_LIST:
+        return toMessageScalarList(mapping, value);
+      default:
+        return mapping.writer.convert(beanConverter.toPropertiesMapValue(value));
+    }
+  }
+
+  /**
+   * Convert the elements of a repeated scalar field straight into the list or array of the bean property,
+   * {@code null} if it is empty
+   */
+  protected Object toBeanScalarList(ToBeanMapping mapping, List<?> elements) {
+    if (elements.isEmpty()) {
+      return null;
+    }
+    int n = elements.size();
+    if (mapping.propertyType.isArray()) {
+      Object result = Array.newInstance(mapping.componentType, n);
+      for (int i = 0; i < n; i++) {
+        Object element = toBeanElement(mapping, elements.get(i));
+        if (element != null) {
+          Array.set(result, i, element);
+        }
+      }
+      return result;
+    }
+    List<Object> result = new ArrayList<>(n);
+    for (Object element : elements) {
+      result.add(toBeanElement(mapping, element));
+    }
+    return result;
+  }
+
+  protected Object toBeanElement(ToBeanMapping mapping, Object element) {
+    Object v = element == null ? null : mapping.elementConverter.apply(element);
+    return v == null ? null : beanConverter.toPropertyValue(mapping.componentType, null, v);
+  }
+
+  /**
+   * Convert the elements of a list or array bean property straight into the values of a repeated scalar field,
+   * the {@code null} elements are skipped
+   */
+  protected List<Object> toMessageScalarList(ToMessageMapping mapping, Object value) {
+    List<Object> result = new ArrayList<>();
+    Consumer<Object> add = element -> {
+      Object v = element == null ? null : mapping.elementConverter.apply(element);
+      if (v != null) {
+        result.add(v);
+      }
+    };
+    if (value instanceof List) {
+      ((List<?>) value).forEach(add);
+    } else {
+      beanConverter.arrayForEach(value, add);
+    }
+    return result.isEmpty() ? null : result;
+  }
+
+  /**
+   * bean type -&gt; message type -&gt; mapping plan
+   */
+  protected final ClassValueCache<ConcurrentMap<Class<?>, MappingPlan>> MAPPING_PLAN_CACHE = ClassValueCache.ofMaps();
+
+  protected MappingPlan getMappingPlan(Class<?> beanType, Class<? extends Message> messageType) {
+    return ClassValueCache.getEntry(MAPPING_PLAN_CACHE, beanType, messageType,
+        type -> getMappingPlan0(beanType, messageType));
+  }
+
+  protected MappingPlan getMappingPlan0(Class<?> beanType, Class<? extends Message> messageType) {
+    MappingPlan plan = new MappingPlan();
+
+    // message -> bean, the same getter and setter as SimpleBeanConverter resolves by the property key
+    for (ConversionPlan.FieldReader reader : messageConverter.getConversionPlan(messageType).getReaders()) {
+      Optional<Method> getter = beanConverter.getterMethod(beanType, reader.getPropertyKey());
+      Optional<Method> setter = getter.flatMap(g -> beanConverter.setterMethod(beanType, g));
+      if (!setter.isPresent()) {
+        continue;
+      }
+      ToBeanMapping mapping = new ToBeanMapping(reader,
+          MethodAccessors.setter(setter.get()),
+          getter.get().getReturnType(),
+          getter.get().getGenericReturnType());
+
+      Type valueType = reader.getGetter().getGenericReturnType();
+      Class<?> valueClass = messageConverter.toRawType(valueType);
+      if (isNestedMessageType(valueClass) && beanConverter.isNestedBeanType(mapping.propertyType)) {
+        mapping.kind = MappingKind.NESTED;
+      } else if (List.class.isAssignableFrom(valueClass)
+          && isNestedMessageType(messageConverter.toRawType(messageConverter.toListComponentType(valueType)))) {
+        Class<?> componentType = beanComponentType(mapping.propertyType, mapping.propertyGenericType);
+        if (componentType != null && beanConverter.isNestedBeanType(componentType)) {
+          mapping.kind = MappingKind.NESTED_LIST;
+          mapping.componentType = componentType;
+        }
+      } else if (List.class.isAssignableFrom(valueClass) && !messageConverter.overridesToPropertyValue) {
+        Class<?> componentType = beanComponentType(mapping.propertyType, mapping.propertyGenericType);
+        if (componentType != null && isScalarBeanType(componentType)) {
+          mapping.kind = MappingKind.SCALAR_LIST;
+          mapping.componentType = componentType;
+          mapping.elementConverter = messageConverter.toPropertyValueConverter(
+              messageConverter.toListComponentType(valueType));
+        }
+      }
+      plan.toBeanMappings.add(mapping);
+    }
+
+    // bean -> message, the same setter as SimpleProtobufMessageConverter resolves by the property key
+    for (Method getter : beanType.getMethods()) {
+      if (!beanConverter.isGetter(getter)) {
+        continue;
+      }
+      ConversionPlan.FieldWriter writer = messageConverter.getFieldWriter(
+          messageType, beanConverter.toPropertiesMapKey(getter.getName()));
+      if (writer == null) {
+        continue;
+      }
+      ToMessageMapping mapping = new ToMessageMapping(MethodAccessors.getter(getter), writer);
+
+      Class<?> propertyType = getter.getReturnType();
+      Type targetType = writer.getTargetType();
+      if (beanConverter.isNestedBeanType(propertyType)
+          && isNestedMessageType(messageConverter.toRawType(targetType))) {
+        mapping.kind = MappingKind.NESTED;
+        mapping.messageType = messageConverter.toRawType(targetType);
+      } else if (targetType instanceof ParameterizedType) {
+        Class<?> componentType = beanComponentType(propertyType, getter.getGenericReturnType());
+        Class<?> messageComponentType = messageConverter.getListComponentType(targetType);
+        if (componentType != null && beanConverter.isNestedBeanType(componentType)
+            && messageComponentType != null && isNestedMessageType(messageComponentType)) {
+          mapping.kind = MappingKind.NESTED_LIST;
+          mapping.messageType = messageComponentType;
+        } else if (componentType != null && isScalarBeanType(componentType)
+            && messageComponentType != null && !isNestedMessageType(messageComponentType)
+            && !messageConverter.overridesToMessageValue) {
+          mapping.kind = MappingKind.SCALAR_LIST;
+          mapping.elementConverter = messageConverter.toMessageValueConverter(messageComponentType);
+        }
+      }
+      plan.toMessageMappings.add(mapping);
+    }
+
+    logger.debug("mapping plan compiled, bean type: {}, message type: {}",
+        beanType.getName(), messageType.getName());
+    return plan;
+  }
+
+  /**
+   * Whether the values of the type are kept as they are by {@link SimpleBeanConverter#toPropertiesMapValue(Object)}
+   */
+  protected boolean isScalarBeanType(Class<?> type) {
+    return type.isPrimitive()
+        || Number.class.isAssignableFrom(type)
+        || Boolean.class == type
+        || Character.class == type
+        || CharSequence.class.isAssignableFrom(type)
+        || Date.class.isAssignableFrom(type)
+        || beanConverter.isBytes(type);
+  }
+
+  protected boolean isNestedMessageType(Class<?> type) {
+    return Message.class.isAssignableFrom(type) && !messageConverter.isWellKnownType(type);
+  }
+
+  /**
+   * The element type of an array or a parameterized {@code List} bean property, otherwise {@code null}
+   */
+  protected Class<?> beanComponentType(Class<?> propertyType, Type genericType) {
+    if (propertyType.isArray()) {
+      return propertyType.getComponentType();
+    } else if (List.class.isAssignableFrom(propertyType) && genericType instanceof ParameterizedType) {
+      Type t = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+      return t instanceof Class ? (Class<?>) t : null;
+    }
+    return null;
+  }
+
+  protected enum MappingKind {
+    /**
+     * Convert the value as the properties map does
+     */
+    VALUE,
+    /**
+     * Map a nested message and a nested bean to each other
+     */
+    NESTED,
+    /**
+     * Map the elements of a repeated message field and a list or array bean property to each other
+     */
+    NESTED_LIST,
+    /**
+     * Convert the elements of a repeated scalar field and a list or array bean property to each other,
+     * one by one into the target list
+     */
+    SCALAR_LIST
+  }
+
+  protected static class MappingPlan {
+    final List<ToBeanMapping> toBeanMappings = new ArrayList<>();
+    final List<ToMessageMapping> toMessageMappings = new ArrayList<>();
+  }
+
+  protected static class ToBeanMapping {
+    final ConversionPlan.FieldReader reader;
+    final BiConsumer<Object, Object> setter;
+    final Class<?> propertyType;
+    final Type propertyGenericType;
+    MappingKind kind = MappingKind.VALUE;
+    Class<?> componentType;
+    Function<Object, Object> elementConverter;
+
+    ToBeanMapping(ConversionPlan.FieldReader reader,
+                  BiConsumer<Object, Object> setter,
+                  Class<?> propertyType,
+                  Type propertyGenericType) {
+      this.reader = reader;
+      this.setter = setter;
+      this.propertyType = propertyType;
+      this.propertyGenericType = propertyGenericType;
+    }
+  }
+
+  protected static class ToMessageMapping {
+    final Function<Object, Object> getter;
+    final ConversionPlan.FieldWriter writer;
+    MappingKind kind = MappingKind.VALUE;
+    Class<?> messageType;
+    Function<Object, Object> elementConverter;
+
+    ToMessageMapping(Function<Object, Object> getter, ConversionPlan.FieldWriter writer) {
+      this.getter = getter;
+      this.writer = writer;
+    }
+  }
+}
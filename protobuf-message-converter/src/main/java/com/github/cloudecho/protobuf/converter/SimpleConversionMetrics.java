@@ -0,0 +1,157 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A {@link ConversionMetrics} which aggregates the conversions per operation and type in memory:
+ * counts, failures, field counts and a latency histogram with power-of-two microsecond buckets. <br>
+ * The types are weakly referenced, the metrics of an unloaded type go away along with it.
+ */
+public class SimpleConversionMetrics implements ConversionMetrics {
+  /**
+   * Bucket i counts the latencies below {@code 1µs << i}, the last one counts the rest
+   */
+  public static final int HISTOGRAM_BUCKETS = 21;
+
+  private final Cache<Class<?>, TypeMetrics[]> metrics = CacheBuilder.newBuilder().weakKeys().build();
+  private final Cache<Object, Map<String, ClassValueCache<?>>> caches = CacheBuilder.newBuilder().weakKeys().build();
+
+  @Override
+  public void converted(Operation operation, Class<?> type, long nanos, int fieldCount) {
+    getOrCreate(operation, type).record(nanos, fieldCount);
+  }
+
+  @Override
+  public void failed(Operation operation, Class<?> type, long nanos, RuntimeException error) {
+    getOrCreate(operation, type).recordFailure(nanos);
+  }
+
+  @Override
+  public void bindCaches(Object converter, Map<String, ClassValueCache<?>> caches) {
+    caches.values().forEach(cache -> cache.recordStats(true));
+    this.caches.put(converter, Collections.unmodifiableMap(new LinkedHashMap<>(caches)));
+  }
+
+  /**
+   * The metrics of the type, or {@code null} if the type has not been converted
+   */
+  public TypeMetrics get(Operation operation, Class<?> type) {
+    TypeMetrics[] m = metrics.getIfPresent(type);
+    return m == null ? null : m[operation.ordinal()];
+  }
+
+  /**
+   * The metrics of all the types converted by the operation
+   */
+  public Map<Class<?>, TypeMetrics> get(Operation operation) {
+    Map<Class<?>, TypeMetrics> result = new LinkedHashMap<>();
+    metrics.asMap().forEach((type, m) -> result.put(type, m[operation.ordinal()]));
+    return result;
+  }
+
+  /**
+   * The caches bound by the converter, by cache name, e.g. {@code CONVERSION_PLAN_CACHE}
+   *
+   * @return The caches, empty if the converter is not bound
+   */
+  public Map<String, ClassValueCache<?>> getCaches(Object converter) {
+    Map<String, ClassValueCache<?>> result = caches.getIfPresent(converter);
+    return result == null ? Collections.emptyMap() : result;
+  }
+
+  /**
+   * The caches of all the bound converters, which are weakly referenced and compared by {@code ==}
+   */
+  public Map<Object, Map<String, ClassValueCache<?>>> getCaches() {
+    return Collections.unmodifiableMap(caches.asMap());
+  }
+
+  private TypeMetrics getOrCreate(Operation operation, Class<?> type) {
+    TypeMetrics[] m = metrics.getIfPresent(type);
+    if (m == null) {
+      m = metrics.asMap().computeIfAbsent(type, t -> {
+        TypeMetrics[] result = new TypeMetrics[Operation.values().length];
+        for (int i = 0; i < result.length; i++) {
+          result[i] = new TypeMetrics();
+        }
+        return result;
+      });
+    }
+    return m[operation.ordinal()];
+  }
+
+  public static class TypeMetrics {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder fieldCount = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+
+    void record(long nanos, int fields) {
+      count.increment();
+      fieldCount.add(fields);
+      recordLatency(nanos);
+    }
+
+    void recordFailure(long nanos) {
+      failures.increment();
+      recordLatency(nanos);
+    }
+
+    private void recordLatency(long nanos) {
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+      int bucket = 64 - Long.numberOfLeadingZeros(nanos / 1000);
+      histogram.incrementAndGet(Math.min(bucket, HISTOGRAM_BUCKETS - 1));
+    }
+
+    /**
+     * The completed conversions
+     */
+    public long getCount() {
+      return count.sum();
+    }
+
+    public long getFailures() {
+      return failures.sum();
+    }
+
+    /**
+     * The elapsed time of the completed and the failed conversions
+     */
+    public long getTotalNanos() {
+      return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+      return maxNanos.get();
+    }
+
+    /**
+     * The properties converted by the completed conversions
+     */
+    public long getFieldCount() {
+      return fieldCount.sum();
+    }
+
+    /**
+     * The latency histogram, see {@link #HISTOGRAM_BUCKETS}
+     */
+    public long[] getHistogram() {
+      long[] result = new long[HISTOGRAM_BUCKETS];
+      for (int i = 0; i < result.length; i++) {
+        result[i] = histogram.get(i);
+      }
+      return result;
+    }
+  }
+}
@@ -1,20 +1,39 @@
 package com.github.cloudecho.protobuf.converter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,60 +41,641 @@ import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
 import com.github.cloudecho.protobuf.exception.MessageConvertException;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.protobuf.BoolValue;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.BytesValue;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors;
 import com.google.protobuf.DoubleValue;
+import com.google.protobuf.FieldMask;
 import com.google.protobuf.FloatValue;
 import com.google.protobuf.Int32Value;
 import com.google.protobuf.Int64Value;
+import com.google.protobuf.Internal;
 import com.google.protobuf.Message;
 import com.google.protobuf.ProtocolMessageEnum;
 import com.google.protobuf.StringValue;
 import com.google.protobuf.Timestamp;
 import com.google.protobuf.UInt32Value;
 import com.google.protobuf.UInt64Value;
+import com.google.protobuf.UnsafeByteOperations;
 
 
 public class SimpleProtobufMessageConverter implements ProtobufMessageConverter {
   private static final Logger logger = LoggerFactory.getLogger(SimpleProtobufMessageConverter.class);
 
+  protected static final List<Class<? extends Message>> WELL_KNOWN_TYPES = Arrays.asList(
+      Timestamp.class,
+      DoubleValue.class,
+      FloatValue.class,
+      Int64Value.class,
+      UInt64Value.class,
+      Int32Value.class,
+      UInt32Value.class,
+      BoolValue.class,
+      StringValue.class,
+      BytesValue.class
+  );
+
+  protected static final Set<String> WELL_KNOWN_TYPE_NAMES = WELL_KNOWN_TYPES.stream()
+      .map(type -> Internal.getDefaultInstance(type).getDescriptorForType().getFullName())
+      .collect(Collectors.toSet());
+
+  protected static final String TIMESTAMP_TYPE = "google.protobuf.Timestamp";
+  protected static final String WRAPPERS_FILE = "google/protobuf/wrappers.proto";
+
+  /**
+   * The first line of the warm-up manifest
+   */
+  public static final String WARM_UP_MANIFEST_HEADER = MessageWarmUp.MANIFEST_HEADER;
+
+  /**
+   * The batches at least this size are split across the fork-join pool, if one is set
+   */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 1024;
+
+  protected volatile ForkJoinPool forkJoinPool;
+  protected volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+  /**
+   * Split the large batches of {@link #toBeans} and {@link #buildMessages} across the given pool,
+   * {@code null} to convert all batches in the calling thread (the default)
+   */
+  public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+    this.forkJoinPool = forkJoinPool;
+  }
+
+  public void setParallelThreshold(int parallelThreshold) {
+    this.parallelThreshold = parallelThreshold;
+  }
+
+  /**
+   * The property value type of the bytes fields
+   */
+  public enum BytesMode {
+    /**
+     * {@code byte[]}, copied from and to the messages (the default)
+     */
+    COPY,
+    /**
+     * Read-only {@code ByteBuffer} views of the messages, no copy
+     */
+    BYTE_BUFFER,
+    /**
+     * {@code ByteString} of the messages as it is, no copy
+     */
+    BYTE_STRING
+  }
+
+  protected volatile BytesMode bytesMode = BytesMode.COPY;
+
+  /**
+   * Whether the bytes fields are copied, or exposed and built as views of the same memory.
+   * In any mode, a {@code byte[]}, {@code ByteBuffer} or {@code ByteString} property value is accepted by the build side.
+   */
+  public void setBytesMode(BytesMode bytesMode) {
+    this.bytesMode = bytesMode == null ? BytesMode.COPY : bytesMode;
+  }
+
+  protected ConversionMetrics conversionMetrics = ConversionMetrics.NOOP;
+
+  protected final WirePropertyDecoder wirePropertyDecoder = new WirePropertyDecoder(this);
+  protected final WirePropertyEncoder wirePropertyEncoder = new WirePropertyEncoder(this);
+  protected final MessageWarmUp messageWarmUp = new MessageWarmUp(this);
+  protected final MessageDelta messageDelta = new MessageDelta(this);
+  protected final MessageJson messageJson = new MessageJson(this);
+
+  /**
+   * Report the conversions and the metadata caches to the given listener, {@code null} for none (the default)
+   */
+  public void setConversionMetrics(ConversionMetrics conversionMetrics) {
+    this.conversionMetrics = conversionMetrics == null ? ConversionMetrics.NOOP : conversionMetrics;
+    this.conversionMetrics.bindCaches(this, getCaches());
+  }
+
+  /**
+   * The metadata caches by name
+   */
+  protected Map<String, ClassValueCache<?>> getCaches() {
+    Map<String, ClassValueCache<?>> caches = new LinkedHashMap<>();
+    caches.put("MESSAGE_HASSER_CACHE", MESSAGE_HASSER_CACHE);
+    caches.put("MESSAGE_GETTERS_CACHE", MESSAGE_GETTERS_CACHE);
+    caches.put("MESSAGE_SETTERS_CACHE", MESSAGE_SETTERS_CACHE);
+    caches.put("DEFAULT_MESSAGE_INSTANCE_CACHE", DEFAULT_MESSAGE_INSTANCE_CACHE);
+    caches.put("CONVERSION_PLAN_CACHE", CONVERSION_PLAN_CACHE);
+    return caches;
+  }
+
   @Override
   public Map<String, Object> toProperties(Message message) {
-    Map<String, Object> result = new HashMap<>();
-    for (Method getter : getMessageGetterList(message.getClass()).values()) {
-      String getterName = getter.getName();
-      if (!maybeMessageValuePresent(message, getterName)) {
+    return measureToProperties(getConversionPlan(message.getClass()), message);
+  }
+
+  /**
+   * {@link #toProperties(ConversionPlan, Message)} reported to the {@link ConversionMetrics}
+   */
+  protected Map<String, Object> measureToProperties(ConversionPlan plan, Message message) {
+    ConversionMetrics metrics = this.conversionMetrics;
+    if (metrics == ConversionMetrics.NOOP) {
+      return toProperties(plan, message);
+    }
+    long start = System.nanoTime();
+    Map<String, Object> result;
+    try {
+      result = toProperties(plan, message);
+    } catch (RuntimeException ex) {
+      metrics.failed(ConversionMetrics.Operation.MESSAGE_TO_PROPERTIES, message.getClass(),
+          System.nanoTime() - start, ex);
+      throw ex;
+    }
+    metrics.converted(ConversionMetrics.Operation.MESSAGE_TO_PROPERTIES, message.getClass(),
+        System.nanoTime() - start, result.size());
+    return result;
+  }
+
+  /**
+   * Wrap a protobuf message as a read-only properties map, which converts a property only when it is got.
+   * It has the same keys and values as {@link #toProperties(Message)}, but the nested messages are views as well.
+   *
+   * @param message A protobuf message
+   * @return The lazy properties map of the given message, see {@link MessagePropertiesView}
+   */
+  public Map<String, Object> toPropertiesView(Message message) {
+    return new MessagePropertiesView(this, getConversionPlan(message.getClass()), message);
+  }
+
+  /**
+   * Convert a protobuf message to a properties map with the conversion plan of its type
+   */
+  protected Map<String, Object> toProperties(ConversionPlan plan, Message message) {
+    MapPropertySink sink = new MapPropertySink(newPropertiesMap(plan));
+    convert(plan, message, sink);
+    return sink.getMap();
+  }
+
+  /**
+   * Convert the selected properties of a protobuf message to a properties map,
+   * the unselected fields and nested messages are not visited at all
+   *
+   * @param message A protobuf message
+   * @param mask    The paths of the selected properties, either property keys or field names
+   * @return The properties map of the selected properties
+   */
+  public Map<String, Object> toProperties(Message message, FieldMask mask) {
+    return toProperties(message, toPropertyMask(mask));
+  }
+
+  public Map<String, Object> toProperties(Message message, PropertyMask mask) {
+    return toProperties(getConversionPlan(message.getClass()), message, mask);
+  }
+
+  protected Map<String, Object> toProperties(ConversionPlan plan, Message message, PropertyMask mask) {
+    if (mask.isAll()) {
+      return toProperties(plan, message);
+    }
+    MapPropertySink sink = new MapPropertySink(newPropertiesMap(plan));
+    convert(plan, message, sink, mask);
+    return sink.getMap();
+  }
+
+  /**
+   * Compile the paths of the field mask, the path segments may be either property keys or field names. <br>
+   * e.g. nestedDto.nestedInt, nested_dto.nested_int
+   */
+  public PropertyMask toPropertyMask(FieldMask mask) {
+    return PropertyMask.of(mask.getPathsList(), segment -> toPropertyKey(GETTER_PREFIX + toCamelCaseName(segment)));
+  }
+
+  /**
+   * Decode a serialized message of the message type to properties map, without building the message. <br>
+   * No generated class is required, e.g. a message type of a {@link DescriptorRegistry} loaded at runtime.
+   *
+   * @param type  The message type
+   * @param bytes The serialized message
+   * @return The same properties as the ones of the parsed message, see {@link WirePropertyDecoder}
+   */
+  public Map<String, Object> toProperties(Descriptors.Descriptor type, byte[] bytes) {
+    return toProperties(type, bytes, PropertyMask.ALL);
+  }
+
+  /**
+   * Decode the selected properties only, the unselected fields are skipped without being decoded
+   */
+  public Map<String, Object> toProperties(Descriptors.Descriptor type, byte[] bytes, PropertyMask mask) {
+    MapPropertySink sink = new MapPropertySink(type.getFields().size());
+    decode(type, newCodedInput(CodedInputStream.newInstance(bytes)), sink, mask);
+    return sink.getMap();
+  }
+
+  /**
+   * Decode the remaining bytes of the buffer, its position is left as it is
+   */
+  public Map<String, Object> toProperties(Descriptors.Descriptor type, ByteBuffer buffer) {
+    MapPropertySink sink = new MapPropertySink(type.getFields().size());
+    decode(type, newCodedInput(CodedInputStream.newInstance(buffer.duplicate())), sink, PropertyMask.ALL);
+    return sink.getMap();
+  }
+
+  /**
+   * Decode a serialized message into the sink tag by tag
+   *
+   * @return The count of the properties put into the sink
+   */
+  public int decode(Descriptors.Descriptor type, CodedInputStream input, PropertySink sink, PropertyMask mask) {
+    return wirePropertyDecoder.decode(type, input, sink, mask);
+  }
+
+  /**
+   * Encode the properties into a serialized message of the message type, without building the message. <br>
+   * It has the same bytes as {@code buildMessage(messageType, properties).toByteArray()}, see {@link WirePropertyEncoder}
+   *
+   * @param type       The message type
+   * @param properties The given properties map
+   * @return The serialized message
+   */
+  public byte[] toByteArray(Descriptors.Descriptor type, Map<String, ?> properties) {
+    return wirePropertyEncoder.encode(type, properties);
+  }
+
+  public <T extends Message> byte[] toByteArray(Class<T> messageType, Map<String, ?> properties) {
+    return toByteArray(getDefaultMessageInstance(messageType).getDescriptorForType(), properties);
+  }
+
+  public <T extends Message> byte[] toByteArray(Class<T> messageType, Object bean, BeanConverter beanConverter) {
+    return toByteArray(messageType, beanConverter.toProperties(bean));
+  }
+
+  /**
+   * The size of the encoded properties, i.e. {@code getSerializedSize()} of the message built from them
+   */
+  public int computeSerializedSize(Descriptors.Descriptor type, Map<String, ?> properties) {
+    return wirePropertyEncoder.computeSize(type, properties);
+  }
+
+  /**
+   * Write the encoded properties to the output stream, which is flushed but not closed
+   */
+  public void writeTo(Descriptors.Descriptor type, Map<String, ?> properties, OutputStream output) {
+    CodedOutputStream codedOutput = CodedOutputStream.newInstance(output);
+    wirePropertyEncoder.encode(type, properties, codedOutput);
+    try {
+      codedOutput.flush();
+    } catch (IOException ex) {
+      throw new MessageConvertException("write message fail, message type: " + type.getFullName(), ex);
+    }
+  }
+
+  /**
+   * The bytes fields are decoded as views of the input, rather than copies, unless the {@link BytesMode} is COPY
+   */
+  protected CodedInputStream newCodedInput(CodedInputStream input) {
+    input.enableAliasing(bytesMode != BytesMode.COPY);
+    return input;
+  }
+
+  /**
+   * Create the properties map of a message, sized for all the readers of the plan so that it never rehashes
+   */
+  protected Map<String, Object> newPropertiesMap(ConversionPlan plan) {
+    return new HashMap<>(MapPropertySink.capacityFor(plan.getReaders().size()));
+  }
+
+  /**
+   * Convert a protobuf message to properties written into the given sink. <br>
+   * The properties are the same as the ones of {@link #toProperties(Message)}, but the numeric and bool fields
+   * are passed to the primitive methods of the sink, they are not boxed unless the sink boxes them.
+   *
+   * @param message A protobuf message
+   * @param sink    The receiver of the properties, e.g. a {@link MessageBuilderSink}
+   */
+  public void convert(Message message, PropertySink sink) {
+    ConversionPlan plan = getConversionPlan(message.getClass());
+    ConversionMetrics metrics = this.conversionMetrics;
+    if (metrics == ConversionMetrics.NOOP) {
+      convert(plan, message, sink);
+      return;
+    }
+    long start = System.nanoTime();
+    int fieldCount;
+    try {
+      fieldCount = convert(plan, message, sink);
+    } catch (RuntimeException ex) {
+      metrics.failed(ConversionMetrics.Operation.MESSAGE_TO_PROPERTIES, message.getClass(),
+          System.nanoTime() - start, ex);
+      throw ex;
+    }
+    metrics.converted(ConversionMetrics.Operation.MESSAGE_TO_PROPERTIES, message.getClass(),
+        System.nanoTime() - start, fieldCount);
+  }
+
+  /**
+   * Write the properties of a protobuf message into the sink with the conversion plan of its type
+   *
+   * @return The count of the properties written
+   */
+  protected int convert(ConversionPlan plan, Message message, PropertySink sink) {
+    return convert(plan, message, sink, PropertyMask.ALL);
+  }
+
+  /**
+   * Write the selected properties of a protobuf message into the sink, the unselected ones are not read at all
+   *
+   * @return The count of the properties written
+   */
+  protected int convert(ConversionPlan plan, Message message, PropertySink sink, PropertyMask mask) {
+    int count = 0;
+    for (ConversionPlan.FieldReader reader : plan.getReaders()) {
+      PropertyMask selected = mask.get(reader.getPropertyKey());
+      if (selected == null || !reader.isPresent(message)) {
         continue;
       }
 
       Object value;
       try {
-        value = getter.invoke(message);
+        if (reader.getPrimitiveKind() != ConversionPlan.PrimitiveKind.NONE) {
+          putPrimitive(reader, message, sink);
+          count++;
+          continue;
+        }
+        value = reader.get(message);
+      } catch (MessageConvertException ex) {
+        throw ex;
       } catch (Exception ex) {
         throw new MessageConvertException(
             String.format("invoke getter \"%s\" on an object of type of \"%s\" fail",
-                getterName, message.getClass().getName()), ex);
+                reader.getGetter().getName(), message.getClass().getName()), ex);
       }
 
-      value = toPropertyValue(value);
+      if (value instanceof Message && !isWellKnownType(value.getClass())) {
+        Message nested = (Message) value;
+        if (sink.beginMessage(reader.getPropertyKey())) {
+          convert(getConversionPlan(nested.getClass()), nested, sink, selected);
+          sink.endMessage();
+          count++;
+          continue;
+        } else if (!selected.isAll()) {
+          sink.put(reader.getPropertyKey(), toProperties(getConversionPlan(nested.getClass()), nested, selected));
+          count++;
+          continue;
+        }
+      } else if (value instanceof List && !((List<?>) value).isEmpty()) {
+        if (sink.beginList(reader.getPropertyKey(), ((List<?>) value).size())) {
+          convertElements((List<?>) value, sink, selected);
+          sink.endList();
+          count++;
+          continue;
+        } else if (!selected.isAll()) {
+          sink.put(reader.getPropertyKey(), toPropertyValueOf((List<?>) value, element ->
+              element instanceof Message && !isWellKnownType(element.getClass())
+                  ? toProperties(getConversionPlan(((Message) element).getClass()), (Message) element, selected)
+                  : toPropertyValue(element)));
+          count++;
+          continue;
+        }
+      }
+
+      value = reader.convert(value);
       if (value == null || (value instanceof Collection && CollectionUtils.isEmpty((Collection<?>) value))) {
         continue;
       }
-      String propertyKey = toPropertyKey(getter);
-      result.put(propertyKey, value);
+      sink.put(reader.getPropertyKey(), value);
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Write the elements of a repeated field into the sink, which has begun the list
+   */
+  protected void convertElements(List<?> elements, PropertySink sink, PropertyMask mask) {
+    for (Object element : elements) {
+      if (element instanceof Message && !isWellKnownType(element.getClass())) {
+        if (sink.beginMessage(null)) {
+          convert(getConversionPlan(((Message) element).getClass()), (Message) element, sink, mask);
+          sink.endMessage();
+          continue;
+        }
+      }
+      sink.put(null, element == null ? null : toPropertyValue(element));
+    }
+  }
+
+  protected void putPrimitive(ConversionPlan.FieldReader reader, Message message, PropertySink sink) {
+    String key = reader.getPropertyKey();
+    switch (reader.getPrimitiveKind()) {
+      case INT:
+        sink.putInt(key, reader.getInt(message));
+        break;
+      case LONG:
+        sink.putLong(key, reader.getLong(message));
+        break;
+      case FLOAT:
+        sink.putFloat(key, reader.getFloat(message));
+        break;
+      case DOUBLE:
+        sink.putDouble(key, reader.getDouble(message));
+        break;
+      case BOOLEAN:
+        sink.putBoolean(key, reader.getBoolean(message));
+        break;
+      default:
+        throw new MessageConvertException("Not a primitive property: " + key);
     }
-    return result;
+  }
+
+  /**
+   * Write a protobuf message as a JSON object, with the same keys and values as {@link #toProperties(Message)}
+   * but without building the properties maps. The writer is not flushed.
+   *
+   * @param message A protobuf message
+   * @param writer  The target writer
+   */
+  public void writeJson(Message message, Writer writer) {
+    messageJson.writeJson(message, writer);
+  }
+
+  /**
+   * Write a protobuf message as a UTF-8 JSON object, see {@link #writeJson(Message, Writer)}.
+   * The output stream is flushed but not closed.
+   */
+  public void writeJson(Message message, OutputStream output) {
+    messageJson.writeJson(message, output);
+  }
+
+  /**
+   * Convert a protobuf message to a JSON string, see {@link #writeJson(Message, Writer)}
+   */
+  public String toJson(Message message) {
+    return messageJson.toJson(message);
+  }
+
+  /**
+   * Create a sink which keeps the properties of the message type in flat arrays indexed by field number,
+   * it may be reused across the messages by {@link ArrayPropertySink#clear()}
+   */
+  public <T extends Message> ArrayPropertySink newArraySink(Class<T> messageType) {
+    return new ArrayPropertySink(getConversionPlan(messageType));
+  }
+
+  /**
+   * Create a sink which sets the properties to a new {@code Message.Builder}, the primitive values
+   * are set without boxing. <br>
+   * e.g. {@code convert(message, sink)} copies a message into the message type of the sink.
+   *
+   * @param messageType The type of the message to be built
+   * @return The sink, the builder is got by {@link MessageBuilderSink#getBuilder()}
+   */
+  public <T extends Message> MessageBuilderSink newMessageSink(Class<T> messageType) {
+    return new MessageBuilderSink(this, getConversionPlan(messageType), newMessageBuilder(messageType));
+  }
+
+  /**
+   * Create a sink which sets the properties to the given builder, e.g. a sub-builder of a nested message
+   */
+  public MessageBuilderSink newMessageSink(Message.Builder builder) {
+    return new MessageBuilderSink(this, getConversionPlan(builder.getDefaultInstanceForType().getClass()), builder);
+  }
+
+  /**
+   * Read a JSON object into a {@code Message.Builder}, the members are set as they are read
+   * without building the properties maps. The keys and values are the same as the ones of
+   * {@link #newMessageBuilder(Class, Map)}, the bytes fields are read from base64 strings.
+   *
+   * @param messageType The type of the message to be built
+   * @param reader      The JSON input, it is not closed
+   * @return The {@code Message.Builder} populated with the JSON object
+   */
+  public <T extends Message> Message.Builder readJson(Class<T> messageType, Reader reader) {
+    return messageJson.readJson(messageType, reader);
+  }
+
+  /**
+   * Read a UTF-8 JSON object into a {@code Message.Builder}, see {@link #readJson(Class, Reader)}
+   */
+  public <T extends Message> Message.Builder readJson(Class<T> messageType, InputStream input) {
+    return messageJson.readJson(messageType, input);
+  }
+
+  /**
+   * Build a protobuf message with a JSON string, see {@link #readJson(Class, Reader)}
+   */
+  public <T extends Message> T fromJson(Class<T> messageType, String json) {
+    return messageJson.fromJson(messageType, json);
   }
 
 
   @Override
   public <T extends Message> Message.Builder
   newMessageBuilder(Class<T> messageType, Map<String, ?> properties) {
-    Message.Builder builder = newMessageBuilder(messageType);
+    return measureNewMessageBuilder(getConversionPlan(messageType), properties);
+  }
+
+  /**
+   * {@link #newMessageBuilder(ConversionPlan, Map)} reported to the {@link ConversionMetrics}
+   */
+  protected Message.Builder measureNewMessageBuilder(ConversionPlan plan, Map<String, ?> properties) {
+    ConversionMetrics metrics = this.conversionMetrics;
+    if (metrics == ConversionMetrics.NOOP) {
+      return newMessageBuilder(plan, properties);
+    }
+    long start = System.nanoTime();
+    Message.Builder result;
+    try {
+      result = newMessageBuilder(plan, properties);
+    } catch (RuntimeException ex) {
+      metrics.failed(ConversionMetrics.Operation.PROPERTIES_TO_MESSAGE, plan.getMessageType(),
+          System.nanoTime() - start, ex);
+      throw ex;
+    }
+    metrics.converted(ConversionMetrics.Operation.PROPERTIES_TO_MESSAGE, plan.getMessageType(),
+        System.nanoTime() - start, properties.size());
+    return result;
+  }
+
+  /**
+   * Create a {@code Message.Builder} with the selected properties only
+   *
+   * @param messageType The type of the target object to be populated
+   * @param properties  The given properties map
+   * @param mask        The paths of the selected properties, either property keys or field names
+   * @return The {@code Message.Builder} populated with the selected properties
+   */
+  public <T extends Message> Message.Builder
+  newMessageBuilder(Class<T> messageType, Map<String, ?> properties, FieldMask mask) {
+    return newMessageBuilder(getConversionPlan(messageType), properties, toPropertyMask(mask));
+  }
+
+  protected Message.Builder newMessageBuilder(ConversionPlan plan, Map<String, ?> properties, PropertyMask mask) {
+    if (mask.isAll()) {
+      return newMessageBuilder(plan, properties);
+    }
+    Message.Builder builder = newMessageBuilder(plan.getMessageType());
     for (Map.Entry<String, ?> entry : properties.entrySet()) {
+      PropertyMask selected = mask.get(entry.getKey());
+      if (selected == null) {
+        continue;
+      }
+      ConversionPlan.FieldWriter writer = getFieldWriter(plan.getMessageType(), entry.getKey());
+      if (writer == null) {
+        continue;
+      }
+      Object value = entry.getValue();
+      if (!selected.isAll() && value != null) {
+        Object messageValue = toSelectedMessageValue(writer, value, selected);
+        if (messageValue != null) {
+          try {
+            writer.set(builder, messageValue);
+          } catch (Exception ex) {
+            throw toBuildException(builder, writer, value, ex);
+          }
+          continue;
+        }
+      }
+      buildMessageAttribute(builder, writer, value);
+    }
+    return builder;
+  }
+
+  /**
+   * Build the nested message, or the list of them, with the selected properties only
+   *
+   * @return The message value, or {@code null} if the writer does not set nested messages
+   */
+  @SuppressWarnings("unchecked")
+  protected Object toSelectedMessageValue(ConversionPlan.FieldWriter writer, Object value, PropertyMask mask) {
+    Type targetType = writer.getTargetType();
+    if (targetType instanceof Class && Message.class.isAssignableFrom((Class<?>) targetType)
+        && !isWellKnownType((Class<?>) targetType) && value instanceof Map) {
+      ConversionPlan nestedPlan = getConversionPlan((Class<? extends Message>) targetType);
+      return newMessageBuilder(nestedPlan, (Map<String, ?>) value, mask).build();
+    }
+    Class<?> componentType = getListComponentType(targetType);
+    if (componentType != null && Message.class.isAssignableFrom(componentType)
+        && !isWellKnownType(componentType) && value instanceof List) {
+      ConversionPlan nestedPlan = getConversionPlan((Class<? extends Message>) componentType);
+      List<Message> result = new ArrayList<>(((List<?>) value).size());
+      for (Object element : (List<?>) value) {
+        if (element instanceof Map) {
+          result.add(newMessageBuilder(nestedPlan, (Map<String, ?>) element, mask).build());
+        }
+      }
+      return result;
+    }
+    return null;
+  }
+
+  /**
+   * Create a {@code Message.Builder} of the plan's message type with the given properties
+   */
+  protected Message.Builder newMessageBuilder(ConversionPlan plan, Map<String, ?> properties) {
+    Message.Builder builder = newMessageBuilder(plan.getMessageType());
+    for (Map.Entry<String, ?> entry : properties.entrySet()) {
+      ConversionPlan.FieldWriter writer = plan.getWriter(entry.getKey());
+      if (writer != null) {
+        buildMessageAttribute(builder, writer, entry.getValue());
+        continue;
+      }
       Optional<Method> setter = getMessageSetterMethod(entry.getKey(), builder);
       if (!setter.isPresent()) {
         continue;
@@ -86,6 +686,176 @@ public class SimpleProtobufMessageConverter implements ProtobufMessageConverter
   }
 
 
+  /**
+   * The changed properties from the base message to the given one of the same type,
+   * see {@link MessageDelta#toPropertiesDelta(Message, Message)}
+   */
+  public Map<String, Object> toPropertiesDelta(Message base, Message message) {
+    return messageDelta.toPropertiesDelta(base, message);
+  }
+
+  /**
+   * The changed properties from the base properties to the target ones, a removed property is mapped to {@code null},
+   * see {@link MessageDelta#diffProperties(Map, Map)}
+   */
+  public Map<String, Object> diffProperties(Map<String, ?> base, Map<String, ?> target) {
+    return messageDelta.diffProperties(base, target);
+  }
+
+  /**
+   * Create a {@code Message.Builder} from the current message, with the changed properties applied only
+   *
+   * @param current    The current message
+   * @param properties The target properties, an absent property is cleared
+   * @return The {@code Message.Builder} of the current message populated with the changed properties
+   */
+  public <T extends Message> Message.Builder mergeMessageBuilder(T current, Map<String, ?> properties) {
+    return messageDelta.mergeMessageBuilder(current, properties);
+  }
+
+  /**
+   * Create a {@code Message.Builder} from the current message, with the changed properties of the bean applied only
+   */
+  public <T extends Message> Message.Builder mergeMessageBuilder(T current, Object bean, BeanConverter beanConverter) {
+    return mergeMessageBuilder(current, beanConverter.toProperties(bean));
+  }
+
+
+  /**
+   * Compile the conversion plans of the message types and of their nested message types transitively,
+   * so that the first conversions do not resolve the getters, setters and has-methods by reflection.
+   *
+   * @return The count of the message types warmed up, including the nested ones
+   */
+  @SafeVarargs
+  public final int warmUp(Class<? extends Message>... messageTypes) {
+    return messageWarmUp.warmUp(Arrays.asList(messageTypes));
+  }
+
+  /**
+   * Warm up the generated message types of the proto file, the nested ones included
+   *
+   * @return The count of the message types warmed up
+   */
+  public int warmUp(Descriptors.FileDescriptor file) {
+    return messageWarmUp.warmUp(file);
+  }
+
+  /**
+   * {@link #warmUp(Class[])} in parallel, one task per given message type
+   *
+   * @return The future completed with the count of the message types warmed up
+   */
+  public CompletableFuture<Integer> warmUpAsync(Executor executor, Collection<Class<? extends Message>> messageTypes) {
+    return messageWarmUp.warmUpAsync(executor, messageTypes);
+  }
+
+  /**
+   * Write the names of the message types of which the conversion plans are compiled, one per line,
+   * so that the next boot warms them up by {@link #warmUp(Reader)} without discovering them again.
+   */
+  public void writeWarmUpManifest(Writer writer) {
+    messageWarmUp.writeManifest(writer);
+  }
+
+  public void writeWarmUpManifest(Path path) {
+    messageWarmUp.writeManifest(path);
+  }
+
+  /**
+   * Warm up the message types listed by {@link #writeWarmUpManifest(Writer)}, the unknown ones are skipped
+   *
+   * @return The count of the message types warmed up
+   */
+  public int warmUp(Reader manifest) {
+    return messageWarmUp.warmUp(manifest);
+  }
+
+  public int warmUp(Path manifest) {
+    return messageWarmUp.warmUp(manifest);
+  }
+
+
+  @Override
+  public <T> List<T> toBeans(Class<T> beanType, List<? extends Message> messages, BeanConverter beanConverter) {
+    if (messages.isEmpty()) {
+      return new ArrayList<>();
+    }
+    // the plan is resolved once, unless the batch mixes message types
+    ConversionPlan plan = getConversionPlan(messages.get(0).getClass());
+    return convertAll(messages, message -> beanConverter.toBean(beanType,
+        message.getClass() == plan.getMessageType() ? measureToProperties(plan, message) : toProperties(message)));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T extends Message> List<T> buildMessages(Class<T> messageType, List<?> beans, BeanConverter beanConverter) {
+    ConversionPlan plan = getConversionPlan(messageType);
+    return convertAll(beans, bean -> (T) measureNewMessageBuilder(plan, beanConverter.toProperties(bean)).build());
+  }
+
+  /**
+   * Convert each element of the list, split across the fork-join pool if the list is large enough
+   *
+   * @return The mutable list of the results, in the same order as the sources
+   */
+  @SuppressWarnings("unchecked")
+  protected <S, R> List<R> convertAll(List<? extends S> sources, Function<? super S, ? extends R> converter) {
+    ForkJoinPool pool = this.forkJoinPool;
+    if (pool == null || sources.size() < parallelThreshold) {
+      List<R> result = new ArrayList<>(sources.size());
+      for (S source : sources) {
+        result.add(converter.apply(source));
+      }
+      return result;
+    }
+    if (!(sources instanceof RandomAccess)) {
+      sources = new ArrayList<>(sources);
+    }
+    int n = sources.size();
+    Object[] results = new Object[n];
+    int leafSize = Math.max(MIN_LEAF_SIZE, n / (pool.getParallelism() * 4));
+    pool.invoke(new ConvertTask<>(sources, converter, results, 0, n, leafSize));
+    return new ArrayList<>((List<R>) Arrays.asList(results));
+  }
+
+  private static final int MIN_LEAF_SIZE = 64;
+
+  /**
+   * Convert the range of the sources into the same range of the results
+   */
+  protected static class ConvertTask<S, R> extends RecursiveAction {
+    private final List<? extends S> sources;
+    private final Function<? super S, ? extends R> converter;
+    private final Object[] results;
+    private final int from;
+    private final int to;
+    private final int leafSize;
+
+    ConvertTask(List<? extends S> sources, Function<? super S, ? extends R> converter,
+                Object[] results, int from, int to, int leafSize) {
+      this.sources = sources;
+      this.converter = converter;
+      this.results = results;
+      this.from = from;
+      this.to = to;
+      this.leafSize = leafSize;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= leafSize) {
+        for (int i = from; i < to; i++) {
+          results[i] = converter.apply(sources.get(i));
+        }
+        return;
+      }
+      int mid = (from + to) >>> 1;
+      invokeAll(new ConvertTask<>(sources, converter, results, from, mid, leafSize),
+          new ConvertTask<>(sources, converter, results, mid, to, leafSize));
+    }
+  }
+
   /**
    * Convert the getter name to property key .<br>
    * e.g. getName -&gt; name,  getMyName -&gt; myName
@@ -149,56 +919,143 @@ public class SimpleProtobufMessageConverter implements ProtobufMessageConverter
   /**
    * Convert the given {@code value} to a specified {@code targetType} object
    */
-  @SuppressWarnings({"unchecked"})
   protected Object toMessageValue(Type targetType, Object value) {
     if (value == null) {
       return null;
     }
+    return toMessageValueConverter(targetType).apply(value);
+  }
 
+  /**
+   * Select the function which converts a non-null value to a specified {@code targetType} object
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  protected Function<Object, Object> toMessageValueConverter(Type targetType) {
     if (String.class.equals(targetType)) {
-      if (value instanceof byte[]) {
-        return new String((byte[]) value, Charset.defaultCharset());
-      }
-      return String.valueOf(value);
+      return value -> value instanceof byte[]
+          ? new String((byte[]) value, Charset.defaultCharset())
+          : String.valueOf(value);
     } else if (Timestamp.class.equals(targetType)) {
-      return toTimestamp(value);
+      return this::toTimestamp;
     } else if (DoubleValue.class.equals(targetType)) {
-      return DoubleValue.of(castToNumber(value).doubleValue());
+      return value -> DoubleValue.of(castToNumber(value).doubleValue());
     } else if (FloatValue.class.equals(targetType)) {
-      return FloatValue.of(castToNumber(value).floatValue());
+      return value -> FloatValue.of(castToNumber(value).floatValue());
     } else if (Int64Value.class.equals(targetType)) {
-      return Int64Value.of(castToNumber(value).longValue());
+      return value -> Int64Value.of(castToNumber(value).longValue());
     } else if (UInt64Value.class.equals(targetType)) {
-      return UInt64Value.of(castToNumber(value).longValue());
+      return value -> UInt64Value.of(castToNumber(value).longValue());
     } else if (Int32Value.class.equals(targetType)) {
-      return Int32Value.of(castToNumber(value).intValue());
+      return value -> Int32Value.of(castToNumber(value).intValue());
     } else if (UInt32Value.class.equals(targetType)) {
-      return UInt32Value.of(castToNumber(value).intValue());
+      return value -> UInt32Value.of(castToNumber(value).intValue());
     } else if (BoolValue.class.equals(targetType)) {
-      return BoolValue.of(toBool(value));
+      return value -> BoolValue.of(toBool(value));
     } else if (StringValue.class.equals(targetType)) {
-      return StringValue.of(String.valueOf(value));
+      return value -> StringValue.of(String.valueOf(value));
     } else if (BytesValue.class.equals(targetType)) {
-      return BytesValue.of(toByteString(value));
+      return value -> BytesValue.of(toByteString(value));
     } else if (ByteString.class.equals(targetType)) {
-      return toByteString(value);
+      return this::toByteString;
+    } else if (targetType instanceof ParameterizedType && Map.class == toRawType(targetType)) {
+      Type[] typeArguments = ((ParameterizedType) targetType).getActualTypeArguments();
+      Function<Object, Object> keyConverter = toMapKeyConverter(typeArguments[0]);
+      Function<Object, Object> valueConverter = toMessageValueConverter(typeArguments[1]);
+      return value -> toMapMessageValue(keyConverter, valueConverter, value);
     } else if (targetType instanceof ParameterizedType) {
-      return toListMessageValue(LIST_COMPONENT_TYPE_CACHE.get(targetType.getTypeName()), value);
+      Function<Object, Object> elementConverter = toMessageValueConverter(getListComponentType(targetType));
+      return value -> toListMessageValue(elementConverter, value);
     } else if (long.class.equals(targetType) || Long.class.equals(targetType)) {
-      return castToNumber(value).longValue();
+      return value -> castToNumber(value).longValue();
     } else if (int.class.equals(targetType) || Integer.class.equals(targetType)) {
-      return castToNumber(value).intValue();
+      return value -> castToNumber(value).intValue();
     } else if (Message.class.isAssignableFrom((Class<?>) targetType)) {
-      if (value instanceof Map) {
-        return buildMessage((Class) targetType, (Map<String, ?>) value);
-      } else {
-        throw new MessageConvertException(
-            String.format("Expect a Map<String,?> value but got %s, targetType: %s",
-                value.getClass().getName(), targetType.getTypeName()));
-      }
+      return value -> {
+        if (value instanceof Map) {
+          return buildMessage((Class) targetType, (Map<String, ?>) value);
+        } else {
+          throw new MessageConvertException(
+              String.format("Expect a Map<String,?> value but got %s, targetType: %s",
+                  value.getClass().getName(), targetType.getTypeName()));
+        }
+      };
     }
 
-    return value;
+    return Function.identity();
+  }
+
+  /**
+   * Select the function which converts a non-null message attribute value of the
+   * {@code valueType} to property value. <br>
+   * It has the same result as {@link #toPropertyValue(Object)} but without the type dispatch on every call.
+   */
+  protected Function<Object, Object> toPropertyValueConverter(Type valueType) {
+    Class<?> type = toRawType(valueType);
+    if (ProtocolMessageEnum.class.isAssignableFrom(type)) {
+      return value -> ((ProtocolMessageEnum) value).getNumber();
+    } else if (String.class == type) {
+      return value -> StringUtils.hasLength((String) value) ? value : null;
+    } else if (ByteString.class == type) {
+      return value -> unwrap((ByteString) value);
+    } else if (List.class.isAssignableFrom(type)) {
+      Function<Object, Object> elementConverter = toPropertyValueConverter(toListComponentType(valueType));
+      return value -> toPropertyValueOf((List<?>) value, elementConverter);
+    } else if (Map.class.isAssignableFrom(type) && valueType instanceof ParameterizedType) {
+      Type[] typeArguments = ((ParameterizedType) valueType).getActualTypeArguments();
+      // the keys are scalars kept as they are, an empty string key included
+      Function<Object, Object> valueConverter = toPropertyValueConverter(typeArguments[1]);
+      return value -> toPropertyValueOf((Map<?, ?>) value, Function.identity(), valueConverter);
+    } else if (Timestamp.class == type) {
+      return value -> toDate((Timestamp) value);
+    } else if (DoubleValue.class == type) {
+      return value -> ((DoubleValue) value).getValue();
+    } else if (FloatValue.class == type) {
+      return value -> ((FloatValue) value).getValue();
+    } else if (Int64Value.class == type) {
+      return value -> ((Int64Value) value).getValue();
+    } else if (UInt64Value.class == type) {
+      return value -> ((UInt64Value) value).getValue();
+    } else if (Int32Value.class == type) {
+      return value -> ((Int32Value) value).getValue();
+    } else if (UInt32Value.class == type) {
+      return value -> ((UInt32Value) value).getValue();
+    } else if (BoolValue.class == type) {
+      return value -> ((BoolValue) value).getValue();
+    } else if (StringValue.class == type) {
+      return value -> ((StringValue) value).getValue();
+    } else if (BytesValue.class == type) {
+      return value -> ((BytesValue) value).getValue();
+    } else if (Message.class.isAssignableFrom(type)) {
+      return value -> toProperties((Message) value);
+    } else if (type.isPrimitive() || Number.class.isAssignableFrom(type) || Boolean.class == type) {
+      return Function.identity();
+    }
+    return this::toPropertyValue;
+  }
+
+  protected Class<?> toRawType(Type type) {
+    if (type instanceof Class) {
+      return (Class<?>) type;
+    } else if (type instanceof ParameterizedType) {
+      return toRawType(((ParameterizedType) type).getRawType());
+    }
+    return Object.class;
+  }
+
+  /**
+   * The element type of a {@code List} type, e.g. {@code List<NestedMessage>}, {@code ProtocolStringList}
+   */
+  protected Type toListComponentType(Type listType) {
+    if (listType instanceof ParameterizedType) {
+      return ((ParameterizedType) listType).getActualTypeArguments()[0];
+    } else if (listType instanceof Class) {
+      for (Type t : ((Class<?>) listType).getGenericInterfaces()) {
+        if (t instanceof ParameterizedType && List.class == ((ParameterizedType) t).getRawType()) {
+          return ((ParameterizedType) t).getActualTypeArguments()[0];
+        }
+      }
+    }
+    return Object.class;
   }
 
   protected boolean maybeMessageGetter(Method method) {
@@ -223,15 +1080,14 @@ public class SimpleProtobufMessageConverter implements ProtobufMessageConverter
     }
   }
 
-  protected final Cache<String, Optional<Method>> MESSAGE_HASSER_CACHE = CacheBuilder.newBuilder().build();
+  /**
+   * message type -&gt; getter name -&gt; has-method
+   */
+  protected final ClassValueCache<ConcurrentMap<String, Optional<Method>>> MESSAGE_HASSER_CACHE = ClassValueCache.ofMaps();
 
   protected Optional<Method> getHasserMethod(Class<?> messageClass, String getterName) {
-    final String key = getterName + "@" + messageClass.getName();
-    try {
-      return MESSAGE_HASSER_CACHE.get(key, () -> getHasserMethod0(messageClass, getterName));
-    } catch (ExecutionException e) {
-      throw new MessageConvertException(e);
-    }
+    return ClassValueCache.getEntry(MESSAGE_HASSER_CACHE, messageClass, getterName,
+        name -> getHasserMethod0(messageClass, name));
   }
 
   protected Optional<Method> getHasserMethod0(Class<?> messageClass, String getterName) {
@@ -252,38 +1108,105 @@ public class SimpleProtobufMessageConverter implements ProtobufMessageConverter
       if (getterName.endsWith(LIST_SUFFIX)) {
         getterName = getterName.substring(0, getterName.length() - LIST_SUFFIX.length());
       }
+    } else if (Map.class.isAssignableFrom(getter.getReturnType())) {
+      if (getterName.endsWith(MAP_SUFFIX)) {
+        getterName = getterName.substring(0, getterName.length() - MAP_SUFFIX.length());
+      }
     }
 
     return toPropertyKey(getterName);
   }
 
+  /**
+   * Convert the field name to property key, in the same way as the getter name
+   * generated by protoc is converted by {@link #toPropertyKey(String)}. <br>
+   * e.g. my_name -&gt; myName, aLong -&gt; aLong
+   */
+  protected String toPropertyKey(Descriptors.FieldDescriptor field) {
+    return toPropertyKey(GETTER_PREFIX + toCamelCaseName(field.getName()));
+  }
+
+  /**
+   * Convert the field name to the upper camel case name used by protoc in the accessors. <br>
+   * e.g. my_name -&gt; MyName, field2d -&gt; Field2D
+   */
+  protected String toCamelCaseName(String fieldName) {
+    StringBuilder result = new StringBuilder(fieldName.length());
+    boolean capNext = true;
+    for (int i = 0; i < fieldName.length(); i++) {
+      char c = fieldName.charAt(i);
+      if ('a' <= c && c <= 'z') {
+        result.append(capNext ? Character.toUpperCase(c) : c);
+        capNext = false;
+      } else if ('A' <= c && c <= 'Z') {
+        result.append(c);
+        capNext = false;
+      } else if ('0' <= c && c <= '9') {
+        result.append(c);
+        capNext = true;
+      } else {
+        capNext = true;
+      }
+    }
+    return result.toString();
+  }
+
   protected List<Object> toPropertyValueOf(List value) {
+    return toPropertyValueOf((List<?>) value, this::toPropertyValue);
+  }
+
+  /**
+   * Convert the entries of a map field, {@code null} if it is empty. <br>
+   * A value converted to {@code null}, e.g. an empty string value, is {@code null} as the elements of a list.
+   */
+  protected Map<Object, Object> toPropertyValueOf(Map<?, ?> value, Function<Object, Object> keyConverter,
+                                                  Function<Object, Object> valueConverter) {
     if (CollectionUtils.isEmpty(value)) {
       return null;
     }
-    List<Object> v = new ArrayList<>();
+    Map<Object, Object> result = new LinkedHashMap<>(MapPropertySink.capacityFor(value.size()));
+    for (Map.Entry<?, ?> entry : value.entrySet()) {
+      result.put(keyConverter.apply(entry.getKey()), valueConverter.apply(entry.getValue()));
+    }
+    return result;
+  }
+
+  protected List<Object> toPropertyValueOf(List<?> value, Function<Object, Object> elementConverter) {
+    if (CollectionUtils.isEmpty(value)) {
+      return null;
+    }
+    List<Object> v = new ArrayList<>(value.size());
     for (Object item : value) {
-      v.add(toPropertyValue(item));
+      v.add(item == null ? null : elementConverter.apply(item));
     }
     return v;
   }
 
 
-  protected byte[] unwrap(ByteString bytes) {
-    return bytes.size() == 0 ? null : bytes.toByteArray();
+  /**
+   * Convert a bytes field to property value by the {@link BytesMode}, {@code null} if it is empty
+   */
+  protected Object unwrap(ByteString bytes) {
+    if (bytes.size() == 0) {
+      return null;
+    }
+    switch (bytesMode) {
+      case BYTE_BUFFER:
+        return bytes.asReadOnlyByteBuffer();
+      case BYTE_STRING:
+        return bytes;
+      default:
+        return bytes.toByteArray();
+    }
   }
 
 
-  protected final Cache<String, Map<String, Method>> MESSAGE_GETTERS_CACHE = CacheBuilder.newBuilder().build();
+  @SuppressWarnings("unchecked")
+  protected final ClassValueCache<Map<String, Method>> MESSAGE_GETTERS_CACHE =
+      new ClassValueCache<>(type -> getMessageGetterList0((Class<? extends Message>) type));
 
   protected <T extends Message> Map<String, Method> getMessageGetterList(final Class<T> messageType) {
-    try {
-      return MESSAGE_GETTERS_CACHE.get(
-          messageType.getName(),
-          () -> getMessageGetterList0(messageType));
-    } catch (ExecutionException e) {
-      throw new MessageConvertException(e);
-    }
+    return MESSAGE_GETTERS_CACHE.get(messageType);
   }
 
   protected <T extends Message> Map<String, Method> getMessageGetterList0(Class<T> messageType) {
@@ -302,23 +1225,43 @@ public class SimpleProtobufMessageConverter implements ProtobufMessageConverter
       result.remove(k + BYTES_SUFFIX);
       Class<?> returnType = getter.getReturnType();
       if (k.endsWith(LIST_SUFFIX) && List.class.isAssignableFrom(returnType)) {
-        result.remove(k.substring(0, k.length() - LIST_SUFFIX.length()) + COUNT_SUFFIX);
+        String name = k.substring(0, k.length() - LIST_SUFFIX.length());
+        result.remove(name + COUNT_SUFFIX);
+        // repeated enum: getXxxValueList of the numbers, it is read by the reader of getXxxList
+        if (ProtocolMessageEnum.class.isAssignableFrom(toRawType(toListComponentType(getter.getGenericReturnType())))) {
+          result.remove(name + VALUE_SUFFIX + LIST_SUFFIX);
+        }
+      }
+      // map<K, V>: getXxxMap, the deprecated getXxx, getXxxCount, and getXxxValueMap of the enum values
+      if (k.endsWith(MAP_SUFFIX) && Map.class.isAssignableFrom(returnType)) {
+        String name = k.substring(0, k.length() - MAP_SUFFIX.length());
+        result.remove(name);
+        result.remove(name + COUNT_SUFFIX);
+        result.remove(name + VALUE_SUFFIX);
+        result.remove(name + VALUE_SUFFIX + MAP_SUFFIX);
       }
       // ProtocolMessageEnum
       if (ProtocolMessageEnum.class.isAssignableFrom(returnType)) {
         result.remove(k + VALUE_SUFFIX);
+      } else if (k.endsWith(CASE_SUFFIX) && Internal.EnumLite.class.isAssignableFrom(returnType)) {
+        // the case of a oneof, its presence is read by the member readers
+        result.remove(k);
       }
     }
     return result;
   }
 
-  protected final Cache<String, Message> DEFAULT_MESSAGE_INSTANCE_CACHE = CacheBuilder.newBuilder().build();
+  protected final ClassValueCache<Message> DEFAULT_MESSAGE_INSTANCE_CACHE =
+      new ClassValueCache<>(this::getDefaultMessageInstance0);
 
   protected Message getDefaultMessageInstance(Class<?> messageType) {
+    return DEFAULT_MESSAGE_INSTANCE_CACHE.get(messageType);
+  }
+
+  protected Message getDefaultMessageInstance0(Class<?> messageType) {
     try {
-      return DEFAULT_MESSAGE_INSTANCE_CACHE.get(messageType.getName(),
-          () -> (Message) messageType.getMethod(GET_DEFAULT_INSTANCE_METHOD).invoke(null));
-    } catch (ExecutionException e) {
+      return (Message) messageType.getMethod(GET_DEFAULT_INSTANCE_METHOD).invoke(null);
+    } catch (Exception e) {
       throw new MessageConvertException(e);
     }
   }
@@ -328,21 +1271,307 @@ public class SimpleProtobufMessageConverter implements ProtobufMessageConverter
     return getDefaultMessageInstance(messageType).toBuilder();
   }
 
-  protected final Cache<String, Optional<Method>> MESSAGE_SETTERS_CACHE = CacheBuilder.newBuilder().build();
+  /**
+   * Whether a subclass overrides {@link #toPropertyValue(Object)} or {@link #toMessageValue(Type, Object)},
+   * then the plans call the overriding methods for every value instead of the pre-selected converters
+   */
+  protected final boolean overridesToPropertyValue = isOverridden("toPropertyValue", Object.class);
+  protected final boolean overridesToMessageValue = isOverridden("toMessageValue", Type.class, Object.class);
 
-  protected Optional<Method> getMessageSetterMethod(final String propertyKey, final Message.Builder builder) {
-    final String key = propertyKey + "@" + builder.getClass().getName();
+  /**
+   * Whether a subclass overrides the hooks of the reflective conversion, then the plans call them as well:
+   * {@link #maybeMessageValuePresent} for the presence of every field, {@link #getMessageSetterMethod}
+   * for the setter of every property key, and {@link #buildMessageAttribute(Message.Builder, Method, Object)}
+   * for every value written
+   */
+  protected final boolean overridesMaybeMessageValuePresent =
+      isOverridden("maybeMessageValuePresent", Message.class, String.class);
+  protected final boolean overridesGetMessageSetterMethod =
+      isOverridden("getMessageSetterMethod", String.class, Message.Builder.class);
+  protected final boolean overridesBuildMessageAttribute =
+      isOverridden("buildMessageAttribute", Message.Builder.class, Method.class, Object.class);
+
+  private boolean isOverridden(String methodName, Class<?>... parameterTypes) {
+    for (Class<?> type = getClass(); type != SimpleProtobufMessageConverter.class; type = type.getSuperclass()) {
+      try {
+        type.getDeclaredMethod(methodName, parameterTypes);
+        return true;
+      } catch (NoSuchMethodException e) {
+        // not declared by this subclass
+      }
+    }
+    return false;
+  }
+
+  @SuppressWarnings("unchecked")
+  protected final ClassValueCache<ConversionPlan> CONVERSION_PLAN_CACHE =
+      new ClassValueCache<>(type -> getConversionPlan0((Class<? extends Message>) type));
+
+  protected ConversionPlan getConversionPlan(final Class<? extends Message> messageType) {
+    return CONVERSION_PLAN_CACHE.get(messageType);
+  }
+
+  /**
+   * The names of the message types of which the conversion plans are compiled, for the warm-up manifest
+   */
+  protected final Set<String> compiledMessageTypes = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Compile the conversion plan of the message type, the property keys, accessors,
+   * has-methods and value converters are all resolved here.
+   */
+  protected ConversionPlan getConversionPlan0(Class<? extends Message> messageType) {
+    List<ConversionPlan.FieldReader> readers = new ArrayList<>();
+    Map<String, ConversionPlan.FieldWriter> writers = new HashMap<>();
+    Message.Builder builder = newMessageBuilder(messageType);
+    Map<String, Descriptors.FieldDescriptor> fields = new HashMap<>();
+    for (Descriptors.FieldDescriptor field : builder.getDescriptorForType().getFields()) {
+      fields.put(toPropertyKey(field), field);
+    }
+    Map<Descriptors.OneofDescriptor, Function<Object, Object>> oneofCases = new HashMap<>();
+    for (Method getter : getMessageGetterList(messageType).values()) {
+      String propertyKey = toPropertyKey(getter);
+      Predicate<Object> presence;
+      if (overridesMaybeMessageValuePresent) {
+        String getterName = getter.getName();
+        presence = message -> maybeMessageValuePresent((Message) message, getterName);
+      } else {
+        presence = toOneofPresence(messageType, fields.get(propertyKey), oneofCases);
+      }
+      if (presence == null) {
+        presence = getHasserMethod(messageType, getter.getName())
+            .map(MethodAccessors::predicate)
+            .orElse(null);
+      }
+      Method valueGetter = getEnumValueGetter(messageType, getter);
+      ConversionPlan.FieldReader reader = new ConversionPlan.FieldReader(propertyKey, getter,
+          MethodAccessors.getter(valueGetter),
+          presence,
+          overridesToPropertyValue
+              ? this::toPropertyValue
+              : toPropertyValueConverter(valueGetter.getGenericReturnType()));
+      readers.add(overridesToPropertyValue ? reader : toPrimitiveReader(messageType, reader));
+
+      if (writers.containsKey(propertyKey)) {
+        continue;
+      }
+      Method setter = overridesGetMessageSetterMethod
+          ? getMessageSetterMethod(propertyKey, builder).orElse(null)
+          : getMessageSetterMethod0(propertyKey, builder);
+      if (setter != null) {
+        writers.put(propertyKey, toFieldWriter(propertyKey, setter));
+      }
+    }
+    // the properties are written in the order of field numbers, the unknown ones at last
+    readers.sort(Comparator.comparingInt(reader -> {
+      Descriptors.FieldDescriptor field = fields.get(reader.getPropertyKey());
+      return field == null ? Integer.MAX_VALUE : field.getNumber();
+    }));
+    compiledMessageTypes.add(messageType.getName());
+    logger.debug("conversion plan compiled, message type: {}, readers: {}, writers: {}",
+        messageType.getName(), readers.size(), writers.size());
+    return new ConversionPlan(messageType, readers, writers, fields);
+  }
+
+  /**
+   * The getter of the numbers of an enum field, e.g. {@code getStatusValue} of {@code getStatus}
+   * or {@code getStatusesValueList} of {@code getStatusesList}, which does not throw on an unrecognized number
+   * as {@code getNumber()} does
+   *
+   * @return The getter of the numbers, or the given getter if it is not an enum or it is a closed enum of proto2
+   */
+  protected Method getEnumValueGetter(Class<? extends Message> messageType, Method getter) {
+    String name = getter.getName();
+    Class<?> type = getter.getReturnType();
+    String valueGetterName;
+    if (ProtocolMessageEnum.class.isAssignableFrom(type)) {
+      valueGetterName = name + VALUE_SUFFIX;
+    } else if (name.endsWith(LIST_SUFFIX) && List.class.isAssignableFrom(type)
+        && ProtocolMessageEnum.class.isAssignableFrom(toRawType(toListComponentType(getter.getGenericReturnType())))) {
+      valueGetterName = name.substring(0, name.length() - LIST_SUFFIX.length()) + VALUE_SUFFIX + LIST_SUFFIX;
+    } else {
+      return getter;
+    }
     try {
-      return MESSAGE_SETTERS_CACHE.get(key, () -> Optional.ofNullable(getMessageSetterMethod0(propertyKey, builder)));
-    } catch (ExecutionException e) {
-      throw new MessageConvertException(e);
+      return messageType.getDeclaredMethod(valueGetterName);
+    } catch (NoSuchMethodException e) {
+      return getter;
     }
   }
 
   /**
-   * key: setter.getGenericParameterTypes()[0].getTypeName()
+   * The presence of a oneof member, i.e. whether the case of the oneof is the member. <br>
+   * It reads the case only, the getters of the other members are not invoked, and it does not rely on
+   * the has-methods which are not generated for the scalar members by the older protoc.
+   *
+   * @param oneofCases The case getters of the message type, by oneof
+   * @return The presence, or {@code null} if the field is not a member of a oneof
    */
-  protected Map<String, Class<?>> LIST_COMPONENT_TYPE_CACHE = new ConcurrentHashMap<>();
+  protected Predicate<Object> toOneofPresence(Class<? extends Message> messageType, Descriptors.FieldDescriptor field,
+                                              Map<Descriptors.OneofDescriptor, Function<Object, Object>> oneofCases) {
+    Descriptors.OneofDescriptor oneof = field == null ? null : field.getRealContainingOneof();
+    if (oneof == null) {
+      return null;
+    }
+    Function<Object, Object> caseGetter = oneofCases.computeIfAbsent(oneof, o -> {
+      try {
+        return MethodAccessors.getter(messageType.getMethod(
+            GETTER_PREFIX + toCamelCaseName(o.getName()) + CASE_SUFFIX));
+      } catch (NoSuchMethodException e) {
+        return null;
+      }
+    });
+    if (caseGetter == null) {
+      return null;
+    }
+    int number = field.getNumber();
+    return message -> ((Internal.EnumLite) caseGetter.apply(message)).getNumber() == number;
+  }
+
+  /**
+   * Add the primitive accessor to the reader if the property value is a primitive,
+   * i.e. a numeric or bool field, a wrapper of them, or an enum of which the number getter exists
+   */
+  protected ConversionPlan.FieldReader toPrimitiveReader(Class<? extends Message> messageType,
+                                                         ConversionPlan.FieldReader reader) {
+    Method getter = reader.getGetter();
+    Class<?> type = getter.getReturnType();
+    if (int.class == type) {
+      return reader.withIntAccessor(MethodAccessors.intGetter(getter));
+    } else if (long.class == type) {
+      return reader.withLongAccessor(MethodAccessors.longGetter(getter));
+    } else if (float.class == type) {
+      return reader.withFloatAccessor(MethodAccessors.floatGetter(getter));
+    } else if (double.class == type) {
+      return reader.withDoubleAccessor(MethodAccessors.doubleGetter(getter));
+    } else if (boolean.class == type) {
+      return reader.withBooleanAccessor(MethodAccessors.predicate(getter));
+    } else if (ProtocolMessageEnum.class.isAssignableFrom(type)) {
+      Method numberGetter = getEnumValueGetter(messageType, getter);
+      if (int.class == numberGetter.getReturnType()) {
+        return reader.withIntAccessor(MethodAccessors.intGetter(numberGetter));
+      }
+    } else if (Int32Value.class == type) {
+      return reader.withIntAccessor(m -> ((Int32Value) reader.get((Message) m)).getValue());
+    } else if (UInt32Value.class == type) {
+      return reader.withIntAccessor(m -> ((UInt32Value) reader.get((Message) m)).getValue());
+    } else if (Int64Value.class == type) {
+      return reader.withLongAccessor(m -> ((Int64Value) reader.get((Message) m)).getValue());
+    } else if (UInt64Value.class == type) {
+      return reader.withLongAccessor(m -> ((UInt64Value) reader.get((Message) m)).getValue());
+    } else if (FloatValue.class == type) {
+      return reader.withFloatAccessor(m -> ((FloatValue) reader.get((Message) m)).getValue());
+    } else if (DoubleValue.class == type) {
+      return reader.withDoubleAccessor(m -> ((DoubleValue) reader.get((Message) m)).getValue());
+    } else if (BoolValue.class == type) {
+      return reader.withBooleanAccessor(m -> ((BoolValue) reader.get((Message) m)).getValue());
+    }
+    return reader;
+  }
+
+  protected ConversionPlan.FieldWriter toFieldWriter(String propertyKey, Method setter) {
+    Type targetType = setter.getGenericParameterTypes()[0];
+    if (overridesBuildMessageAttribute) {
+      return new ConversionPlan.FieldWriter(propertyKey, setter, targetType,
+          (builder, value) -> buildMessageAttribute((Message.Builder) builder, setter, value),
+          Function.identity());
+    }
+    if (overridesToMessageValue) {
+      return new ConversionPlan.FieldWriter(propertyKey, setter, targetType,
+          MethodAccessors.setter(setter),
+          value -> toMessageValue(targetType, value));
+    }
+    return toPrimitiveWriter(new ConversionPlan.FieldWriter(propertyKey, setter, targetType,
+        MethodAccessors.setter(setter),
+        toMessageValueConverter(targetType)));
+  }
+
+  /**
+   * Add the primitive accessor to the writer if the setter takes a primitive or a wrapper of it. <br>
+   * A wrapper message is still allocated for every value, but the value is not boxed.
+   */
+  protected ConversionPlan.FieldWriter toPrimitiveWriter(ConversionPlan.FieldWriter writer) {
+    Method setter = writer.getSetter();
+    Class<?> type = setter.getParameterTypes()[0];
+    if (int.class == type) {
+      return writer.withIntAccessor(MethodAccessors.intSetter(setter));
+    } else if (long.class == type) {
+      return writer.withLongAccessor(MethodAccessors.longSetter(setter));
+    } else if (float.class == type) {
+      return writer.withFloatAccessor(MethodAccessors.floatSetter(setter));
+    } else if (double.class == type) {
+      return writer.withDoubleAccessor(MethodAccessors.doubleSetter(setter));
+    } else if (boolean.class == type) {
+      return writer.withBooleanAccessor(MethodAccessors.booleanSetter(setter));
+    } else if (Int32Value.class == type) {
+      return writer.withIntAccessor((b, v) -> writer.set((Message.Builder) b, Int32Value.of(v)));
+    } else if (UInt32Value.class == type) {
+      return writer.withIntAccessor((b, v) -> writer.set((Message.Builder) b, UInt32Value.of(v)));
+    } else if (Int64Value.class == type) {
+      return writer.withLongAccessor((b, v) -> writer.set((Message.Builder) b, Int64Value.of(v)));
+    } else if (UInt64Value.class == type) {
+      return writer.withLongAccessor((b, v) -> writer.set((Message.Builder) b, UInt64Value.of(v)));
+    } else if (FloatValue.class == type) {
+      return writer.withFloatAccessor((b, v) -> writer.set((Message.Builder) b, FloatValue.of(v)));
+    } else if (DoubleValue.class == type) {
+      return writer.withDoubleAccessor((b, v) -> writer.set((Message.Builder) b, DoubleValue.of(v)));
+    } else if (BoolValue.class == type) {
+      return writer.withBooleanAccessor((b, v) -> writer.set((Message.Builder) b, BoolValue.of(v)));
+    }
+    return writer;
+  }
+
+  /**
+   * The writer of the property key. If the conversion plan does not know the key,
+   * the writer is created from the setter looked up by {@link #getMessageSetterMethod}.
+   *
+   * @return The writer, or {@code null} if there is no setter for the property key
+   */
+  protected ConversionPlan.FieldWriter getFieldWriter(Class<? extends Message> messageType, String propertyKey) {
+    ConversionPlan.FieldWriter writer = getConversionPlan(messageType).getWriter(propertyKey);
+    if (writer != null) {
+      return writer;
+    }
+    return getMessageSetterMethod(propertyKey, newMessageBuilder(messageType))
+        .map(setter -> toFieldWriter(propertyKey, setter))
+        .orElse(null);
+  }
+
+  /**
+   * Whether the message type is converted to a single property value rather than a properties map,
+   * i.e. {@code Timestamp} and the wrapper types
+   */
+  protected boolean isWellKnownType(Class<?> type) {
+    return WELL_KNOWN_TYPES.contains(type);
+  }
+
+  protected boolean isWellKnownType(Descriptors.Descriptor type) {
+    return WELL_KNOWN_TYPE_NAMES.contains(type.getFullName());
+  }
+
+  /**
+   * builder type -&gt; property key -&gt; setter
+   */
+  protected final ClassValueCache<ConcurrentMap<String, Optional<Method>>> MESSAGE_SETTERS_CACHE = ClassValueCache.ofMaps();
+
+  protected Optional<Method> getMessageSetterMethod(final String propertyKey, final Message.Builder builder) {
+    return ClassValueCache.getEntry(MESSAGE_SETTERS_CACHE, builder.getClass(), propertyKey,
+        key -> Optional.ofNullable(getMessageSetterMethod0(key, builder)));
+  }
+
+  /**
+   * The element type of a list setter parameter type, e.g. {@code Iterable<? extends NestedMessage>}
+   */
+  protected Class<?> getListComponentType(Type setterParameterType) {
+    if (!(setterParameterType instanceof ParameterizedType)) {
+      return null;
+    }
+    Type t = ((ParameterizedType) setterParameterType).getActualTypeArguments()[0];
+    if (t instanceof WildcardType) {
+      t = ((WildcardType) t).getUpperBounds()[0];
+    }
+    return toRawType(t);
+  }
 
   protected Method getMessageSetterMethod0(String propertyKey, Message.Builder builder) {
     String setterName = toMessageSetterName(propertyKey);
@@ -353,6 +1582,20 @@ public class SimpleProtobufMessageConverter implements ProtobufMessageConverter
     boolean isList = false;
     boolean isProtocolMessageEnum = false;
 
+    Method mapGetter = getterList.get("g" + setterName.substring(1) + MAP_SUFFIX);
+    if (getter == null && mapGetter != null && Map.class.isAssignableFrom(mapGetter.getReturnType())) {
+      // putAllXxxValue of the enum values, it accepts the unrecognized numbers as well
+      String name = MAP_SETTER_PREFIX + setterName.substring(SETTER_PREFIX.length());
+      Type valueType = ((ParameterizedType) mapGetter.getGenericReturnType()).getActualTypeArguments()[1];
+      if (ProtocolMessageEnum.class.isAssignableFrom(toRawType(valueType))) {
+        name += VALUE_SUFFIX;
+      }
+      try {
+        return builder.getClass().getDeclaredMethod(name, Map.class);
+      } catch (NoSuchMethodException e) {
+        return null;
+      }
+    }
     if (getter == null) {
       getter = getterList.get("g" + setterName.substring(1) + LIST_SUFFIX);
       if (getter == null) {
@@ -361,39 +1604,23 @@ public class SimpleProtobufMessageConverter implements ProtobufMessageConverter
       }
       setterName = LIST_SETTER_PREFIX + setterName.substring(SETTER_PREFIX.length());
       isList = true;
+      // addAllXxxValue of the enum numbers, it accepts the unrecognized numbers as well
+      if (getEnumValueGetter(builder.getDefaultInstanceForType().getClass(), getter) != getter) {
+        setterName += VALUE_SUFFIX;
+      }
     } else if (ProtocolMessageEnum.class.isAssignableFrom(getter.getReturnType())) {
       setterName += VALUE_SUFFIX;
       isProtocolMessageEnum = true;
     }
 
     try {
-      Method setter = builder.getClass().getDeclaredMethod(setterName,
+      return builder.getClass().getDeclaredMethod(setterName,
           isList ? Iterable.class : isProtocolMessageEnum ? int.class : getter.getReturnType());
-      if (isList) {
-        final String setterGenericParamTypeName = setter.getGenericParameterTypes()[0].getTypeName();
-        LIST_COMPONENT_TYPE_CACHE.put(setterGenericParamTypeName,
-            toListComponentType(setterGenericParamTypeName, getter.getGenericReturnType()));
-      }
-      return setter;
     } catch (NoSuchMethodException e) {
       return null;
     }
   }
 
-  protected Class<?> toListComponentType(String setterGenericParamTypeName, Type getterGenericReturnType) {
-    if (getterGenericReturnType instanceof ParameterizedType) {
-      return (Class<?>) ((ParameterizedType) getterGenericReturnType).getActualTypeArguments()[0];
-    } else {
-      int end = setterGenericParamTypeName.lastIndexOf('>');
-      int start = setterGenericParamTypeName.lastIndexOf('<', end - 1);
-      try {
-        return Class.forName(setterGenericParamTypeName.substring(start + 1, end));
-      } catch (ClassNotFoundException e) {
-        throw new MessageConvertException(e);
-      }
-    }
-  }
-
   protected void buildMessageAttribute(Message.Builder builder, Method setter, Object value) {
     Type targetType = setter.getGenericParameterTypes()[0];
     try {
@@ -410,6 +1637,27 @@ public class SimpleProtobufMessageConverter implements ProtobufMessageConverter
     }
   }
 
+  protected void buildMessageAttribute(Message.Builder builder, ConversionPlan.FieldWriter writer, Object value) {
+    try {
+      value = writer.convert(value);
+      if (value != null) {
+        writer.set(builder, value);
+      }
+    } catch (Exception ex) {
+      throw toBuildException(builder, writer, value, ex);
+    }
+  }
+
+  protected MessageConvertException toBuildException(Message.Builder builder, ConversionPlan.FieldWriter writer,
+                                                     Object value, Exception ex) {
+    if (ex instanceof MessageConvertException) {
+      return (MessageConvertException) ex;
+    }
+    return new MessageConvertException(
+        String.format("buildMessageAttribute failed. builder type:%s, setter:%s, value:%s, targetType:%s",
+            builder.getClass().getName(), writer.getSetter(), value, writer.getTargetType()), ex);
+  }
+
   protected Number castToNumber(Object value) {
     if (value == null) {
       throw new MessageConvertException("Null value is not allowed for being casted to be number");
@@ -422,6 +1670,45 @@ public class SimpleProtobufMessageConverter implements ProtobufMessageConverter
     }
   }
 
+  /**
+   * A number, the number of an enum, or a string of a number, e.g. a map key of JSON
+   */
+  protected Number toNumber(Object value) {
+    if (value instanceof String) {
+      try {
+        return new BigDecimal((String) value);
+      } catch (NumberFormatException ex) {
+        throw new MessageConvertException(String.format("\"%s\" is not a number", value), ex);
+      }
+    } else if (value instanceof ProtocolMessageEnum) {
+      return ((ProtocolMessageEnum) value).getNumber();
+    }
+    return castToNumber(value);
+  }
+
+  protected String toStringValue(Object value) {
+    return value instanceof byte[] ? new String((byte[]) value, Charset.defaultCharset()) : String.valueOf(value);
+  }
+
+  /**
+   * The value of an enum type by an enum, its name or its number
+   */
+  protected Descriptors.EnumValueDescriptor toEnumValue(Descriptors.EnumDescriptor enumType, Object value) {
+    if (value instanceof Descriptors.EnumValueDescriptor) {
+      return (Descriptors.EnumValueDescriptor) value;
+    } else if (value instanceof ProtocolMessageEnum) {
+      return enumType.findValueByNumberCreatingIfUnknown(((ProtocolMessageEnum) value).getNumber());
+    } else if (value instanceof String) {
+      Descriptors.EnumValueDescriptor result = enumType.findValueByName((String) value);
+      if (result == null) {
+        throw new MessageConvertException(
+            String.format("Unknown value \"%s\" of enum %s", value, enumType.getFullName()));
+      }
+      return result;
+    }
+    return enumType.findValueByNumberCreatingIfUnknown(toNumber(value).intValue());
+  }
+
   protected boolean toBool(Object value) {
     if (value == null) {
       throw new MessageConvertException("Null value is not allowed for being converted to be bool");
@@ -467,13 +1754,24 @@ public class SimpleProtobufMessageConverter implements ProtobufMessageConverter
         .build();
   }
 
+  /**
+   * Convert a property value to bytes field. The arrays and buffers are copied in the {@link BytesMode#COPY} mode,
+   * otherwise they are wrapped without copying, so they must not be modified afterwards.
+   */
   protected ByteString toByteString(Object value) {
-    if (value instanceof byte[]) {
-      return ByteString.copyFrom((byte[]) value);
+    if (value instanceof ByteString) {
+      return (ByteString) value;
+    } else if (value instanceof byte[]) {
+      return bytesMode == BytesMode.COPY
+          ? ByteString.copyFrom((byte[]) value)
+          : UnsafeByteOperations.unsafeWrap((byte[]) value);
     } else if (value instanceof String) {
       return ByteString.copyFromUtf8((String) value);
     } else if (value instanceof ByteBuffer) {
-      return ByteString.copyFrom((ByteBuffer) value);
+      // the position of the given buffer is left as it is
+      return bytesMode == BytesMode.COPY
+          ? ByteString.copyFrom(((ByteBuffer) value).duplicate())
+          : UnsafeByteOperations.unsafeWrap((ByteBuffer) value);
     } else {
       throw new MessageConvertException(
           String.format("Cannot convert value \"%s\" from type of %s to ByteString",
@@ -481,13 +1779,52 @@ public class SimpleProtobufMessageConverter implements ProtobufMessageConverter
     }
   }
 
-  @SuppressWarnings({"rawtypes", "unchecked"})
+  /**
+   * Convert a map key, the JSON object keys are strings whatever the key type of the map field is
+   */
+  protected Function<Object, Object> toMapKeyConverter(Type keyType) {
+    if (Integer.class.equals(keyType)) {
+      return key -> key instanceof String ? Integer.valueOf((String) key) : castToNumber(key).intValue();
+    } else if (Long.class.equals(keyType)) {
+      return key -> key instanceof String ? Long.valueOf((String) key) : castToNumber(key).longValue();
+    } else if (Boolean.class.equals(keyType)) {
+      return key -> key instanceof String ? Boolean.valueOf((String) key) : toBool(key);
+    }
+    return String::valueOf;
+  }
+
+  /**
+   * Convert the entries of a map property value, the {@code null} values are skipped
+   */
+  protected Map<Object, Object> toMapMessageValue(Function<Object, Object> keyConverter,
+                                                  Function<Object, Object> valueConverter, Object value) {
+    if (!(value instanceof Map)) {
+      throw new MessageConvertException(
+          String.format("Expect a Map value of a map field but got %s", value.getClass().getName()));
+    }
+    Map<?, ?> map = (Map<?, ?>) value;
+    Map<Object, Object> result = new LinkedHashMap<>(MapPropertySink.capacityFor(map.size()));
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      Object v = entry.getValue() == null ? null : valueConverter.apply(entry.getValue());
+      if (entry.getKey() != null && v != null) {
+        result.put(keyConverter.apply(entry.getKey()), v);
+      }
+    }
+    return result;
+  }
+
+  @SuppressWarnings({"rawtypes"})
   protected List toListMessageValue(Class componentType, Object value) {
+    return toListMessageValue(toMessageValueConverter(componentType), value);
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  protected List toListMessageValue(Function<Object, Object> elementConverter, Object value) {
     List result = new ArrayList();
 
     // If value is not a List
     if (!(value instanceof List)) {
-      value = toMessageValue(componentType, value);
+      value = elementConverter.apply(value);
       if (value == null) {
         return null;
       } else {
@@ -498,7 +1835,7 @@ public class SimpleProtobufMessageConverter implements ProtobufMessageConverter
 
     // If value is a List
     for (Object item : (List) value) {
-      Object v = toMessageValue(componentType, item);
+      Object v = item == null ? null : elementConverter.apply(item);
       if (v != null) {
         result.add(v);
       }
@@ -0,0 +1,83 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.protobuf.Descriptors;
+
+/**
+ * The fields of a message type in the order of numbers, with their property keys,
+ * the defaults of the scalars without presence, and the other members of their oneofs
+ */
+final class WireFieldTable {
+  /**
+   * The field numbers up to this are looked up in an array, the larger ones in a map
+   */
+  static final int MAX_DENSE_FIELD_NUMBER = 1024;
+
+  final Descriptors.FieldDescriptor[] fields;
+  final String[] keys;
+  final Object[] defaults;
+  final int[][] oneofMembers;
+  private final int[] dense;
+  private final Map<Integer, Integer> sparse = new HashMap<>();
+
+  WireFieldTable(Descriptors.Descriptor type, SimpleProtobufMessageConverter converter) {
+    List<Descriptors.FieldDescriptor> sorted = new ArrayList<>(type.getFields());
+    sorted.sort((a, b) -> Integer.compare(a.getNumber(), b.getNumber()));
+    fields = sorted.toArray(new Descriptors.FieldDescriptor[0]);
+    keys = new String[fields.length];
+    defaults = new Object[fields.length];
+    oneofMembers = new int[fields.length][];
+    int maxDense = 0;
+    for (Descriptors.FieldDescriptor field : fields) {
+      if (field.getNumber() <= MAX_DENSE_FIELD_NUMBER) {
+        maxDense = Math.max(maxDense, field.getNumber());
+      }
+    }
+    dense = new int[maxDense + 1];
+    Arrays.fill(dense, -1);
+    for (int i = 0; i < fields.length; i++) {
+      Descriptors.FieldDescriptor field = fields[i];
+      keys[i] = converter.toPropertyKey(field);
+      if (!field.hasPresence() && !field.isRepeated()
+          && field.getJavaType() != Descriptors.FieldDescriptor.JavaType.STRING
+          && field.getJavaType() != Descriptors.FieldDescriptor.JavaType.BYTE_STRING) {
+        defaults[i] = defaultValue(field);
+      }
+      if (field.getNumber() <= MAX_DENSE_FIELD_NUMBER) {
+        dense[field.getNumber()] = i;
+      } else {
+        sparse.put(field.getNumber(), i);
+      }
+    }
+    for (int i = 0; i < fields.length; i++) {
+      Descriptors.OneofDescriptor oneof = fields[i].getRealContainingOneof();
+      if (oneof != null) {
+        oneofMembers[i] = oneof.getFields().stream().mapToInt(f -> indexOf(f.getNumber())).toArray();
+      }
+    }
+  }
+
+  int indexOf(int number) {
+    if (number < dense.length) {
+      return dense[number];
+    }
+    Integer i = sparse.get(number);
+    return i == null ? -1 : i;
+  }
+
+  /**
+   * The default property value of a scalar field, e.g. the number of the default enum value
+   */
+  static Object defaultValue(Descriptors.FieldDescriptor field) {
+    Object value = field.getDefaultValue();
+    if (value instanceof Descriptors.EnumValueDescriptor) {
+      return ((Descriptors.EnumValueDescriptor) value).getNumber();
+    }
+    return value;
+  }
+}
@@ -0,0 +1,315 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.Internal;
+import com.google.protobuf.Message;
+import com.google.protobuf.WireFormat;
+
+/**
+ * Decode the wire format into properties straight, tag by tag, without building the message. <br>
+ * The properties have the same keys and values as {@link SimpleProtobufMessageConverter#toProperties(Message)},
+ * and they are put into the sink in the order of field numbers after the message is read, so the last value
+ * of a field or a oneof wins as it does on parsing. A nested message written twice is not merged but replaced,
+ * i.e. the payload is expected to be written by a single {@code writeTo} call.
+ * <p>
+ * The unknown fields and the fields unselected by the {@link PropertyMask} are skipped without being decoded.
+ * The {@code Timestamp} and the wrappers are small and parsed as messages, then unwrapped by
+ * {@link SimpleProtobufMessageConverter#toPropertyValue(Object)}.
+ * <p>
+ * The nested messages are decoded recursively, deeper than {@code recursionLimit} the decoding fails
+ * as parsing does, instead of overflowing the stack.
+ */
+public class WirePropertyDecoder {
+  /**
+   * The default limit of the nested messages, the same as {@code CodedInputStream}
+   */
+  public static final int DEFAULT_RECURSION_LIMIT = 100;
+
+  private static final Map<String, Class<? extends Message>> WELL_KNOWN_TYPES = new HashMap<>();
+
+  static {
+    for (Class<? extends Message> type : SimpleProtobufMessageConverter.WELL_KNOWN_TYPES) {
+      WELL_KNOWN_TYPES.put(Internal.getDefaultInstance(type).getDescriptorForType().getFullName(), type);
+    }
+  }
+
+  protected final SimpleProtobufMessageConverter converter;
+  protected final int recursionLimit;
+  private final Cache<Descriptors.Descriptor, WireFieldTable> tables = CacheBuilder.newBuilder().weakKeys().build();
+
+  public WirePropertyDecoder(SimpleProtobufMessageConverter converter) {
+    this(converter, DEFAULT_RECURSION_LIMIT);
+  }
+
+  /**
+   * @param recursionLimit The maximum depth of the nested messages
+   */
+  public WirePropertyDecoder(SimpleProtobufMessageConverter converter, int recursionLimit) {
+    if (recursionLimit < 0) {
+      throw new IllegalArgumentException("recursionLimit must not be negative: " + recursionLimit);
+    }
+    this.converter = converter;
+    this.recursionLimit = recursionLimit;
+  }
+
+  /**
+   * Decode a message of the message type until the end of the input or the current limit of it
+   *
+   * @return The count of the properties put into the sink
+   */
+  public int decode(Descriptors.Descriptor type, CodedInputStream input, PropertySink sink, PropertyMask mask) {
+    try {
+      return decodeMessage(getWireFieldTable(type), input, sink, mask, 0);
+    } catch (IOException ex) {
+      throw new MessageConvertException("decode message fail, message type: " + type.getFullName(), ex);
+    }
+  }
+
+  /**
+   * The precomputed table of the message type: the fields in the order of numbers, and their property keys
+   */
+  protected WireFieldTable getWireFieldTable(Descriptors.Descriptor type) {
+    WireFieldTable table = tables.getIfPresent(type);
+    if (table == null) {
+      table = new WireFieldTable(type, converter);
+      tables.put(type, table);
+    }
+    return table;
+  }
+
+  /**
+   * @param depth The count of the messages enclosing the message, 0 for the top-level one
+   */
+  @SuppressWarnings("unchecked")
+  protected int decodeMessage(WireFieldTable table, CodedInputStream input, PropertySink sink, PropertyMask mask,
+                              int depth) throws IOException {
+    Object[] values = new Object[table.fields.length];
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      int i = table.indexOf(WireFormat.getTagFieldNumber(tag));
+      PropertyMask selected = i < 0 ? null : mask.get(table.keys[i]);
+      if (selected == null) {
+        input.skipField(tag);
+        continue;
+      }
+      Descriptors.FieldDescriptor field = table.fields[i];
+      int wireType = WireFormat.getTagWireType(tag);
+      if (field.isMapField()) {
+        if (wireType != WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+          input.skipField(tag);
+          continue;
+        }
+        if (values[i] == null) {
+          values[i] = new LinkedHashMap<>();
+        }
+        decodeMapEntry(field, input, (Map<Object, Object>) values[i], depth);
+      } else if (field.isRepeated()) {
+        if (values[i] == null) {
+          values[i] = new ArrayList<>();
+        }
+        List<Object> elements = (List<Object>) values[i];
+        if (wireType == WireFormat.WIRETYPE_LENGTH_DELIMITED && field.isPackable()) {
+          int limit = input.pushLimit(input.readRawVarint32());
+          while (input.getBytesUntilLimit() > 0) {
+            elements.add(decodeScalar(field, input));
+          }
+          input.popLimit(limit);
+        } else if (wireType == field.getLiteType().getWireType()) {
+          elements.add(decodeValue(field, input, selected, depth));
+        } else {
+          input.skipField(tag);
+        }
+      } else if (wireType == field.getLiteType().getWireType()) {
+        values[i] = decodeValue(field, input, selected, depth);
+        int[] oneofMembers = table.oneofMembers[i];
+        if (oneofMembers != null) {
+          for (int member : oneofMembers) {
+            if (member != i) {
+              values[member] = null;
+            }
+          }
+        }
+      } else {
+        input.skipField(tag);
+      }
+    }
+    return putValues(table, values, sink, mask);
+  }
+
+  /**
+   * Put the decoded values into the sink, along with the defaults of the scalars without presence
+   */
+  protected int putValues(WireFieldTable table, Object[] values, PropertySink sink, PropertyMask mask) {
+    int count = 0;
+    for (int i = 0; i < values.length; i++) {
+      Object value = values[i] != null ? values[i] : table.defaults[i];
+      if (value == null || (value instanceof List && ((List<?>) value).isEmpty())
+          || (value instanceof String && ((String) value).isEmpty())
+          || (value instanceof ByteString && ((ByteString) value).isEmpty())
+          || (values[i] == null && mask.get(table.keys[i]) == null)) {
+        continue;
+      }
+      String key = table.keys[i];
+      if (value instanceof Integer) {
+        sink.putInt(key, (Integer) value);
+      } else if (value instanceof Long) {
+        sink.putLong(key, (Long) value);
+      } else if (value instanceof Float) {
+        sink.putFloat(key, (Float) value);
+      } else if (value instanceof Double) {
+        sink.putDouble(key, (Double) value);
+      } else if (value instanceof Boolean) {
+        sink.putBoolean(key, (Boolean) value);
+      } else {
+        sink.put(key, value);
+      }
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Decode a value of the field, a nested message is decoded to a properties map
+   *
+   * @param depth The count of the messages enclosing the field
+   */
+  protected Object decodeValue(Descriptors.FieldDescriptor field, CodedInputStream input, PropertyMask mask,
+                               int depth) throws IOException {
+    if (field.getJavaType() != Descriptors.FieldDescriptor.JavaType.MESSAGE) {
+      return decodeScalar(field, input);
+    }
+    Descriptors.Descriptor type = field.getMessageType();
+    if (depth >= recursionLimit) {
+      throw new MessageConvertException(String.format(
+          "decode message fail, nested too deep, the limit is %d, field: %s", recursionLimit, field.getFullName()));
+    }
+    int limit = input.pushLimit(input.readRawVarint32());
+    Object result;
+    if (converter.isWellKnownType(type)) {
+      Message.Builder builder = Internal.getDefaultInstance(wellKnownType(type)).newBuilderForType();
+      builder.mergeFrom(input, ExtensionRegistryLite.getEmptyRegistry());
+      result = converter.toPropertyValue(builder.build());
+    } else {
+      WireFieldTable table = getWireFieldTable(type);
+      MapPropertySink sink = new MapPropertySink(table.fields.length);
+      decodeMessage(table, input, sink, mask, depth + 1);
+      result = sink.getMap();
+    }
+    input.checkLastTagWas(0);
+    input.popLimit(limit);
+    return result;
+  }
+
+  /**
+   * Decode a scalar value, an enum is decoded to its number and an empty string or bytes to {@code null}
+   */
+  protected Object decodeScalar(Descriptors.FieldDescriptor field, CodedInputStream input) throws IOException {
+    switch (field.getType()) {
+      case DOUBLE:
+        return input.readDouble();
+      case FLOAT:
+        return input.readFloat();
+      case INT64:
+        return input.readInt64();
+      case UINT64:
+        return input.readUInt64();
+      case INT32:
+        return input.readInt32();
+      case FIXED64:
+        return input.readFixed64();
+      case FIXED32:
+        return input.readFixed32();
+      case BOOL:
+        return input.readBool();
+      case STRING:
+        return toScalarPropertyValue(field.needsUtf8Check() ? input.readStringRequireUtf8() : input.readString());
+      case BYTES:
+        return toScalarPropertyValue(input.readBytes());
+      case UINT32:
+        return input.readUInt32();
+      case ENUM:
+        return input.readEnum();
+      case SFIXED32:
+        return input.readSFixed32();
+      case SFIXED64:
+        return input.readSFixed64();
+      case SINT32:
+        return input.readSInt32();
+      case SINT64:
+        return input.readSInt64();
+      default:
+        throw new MessageConvertException("Unsupported field type: " + field.getType() + ", " + field.getFullName());
+    }
+  }
+
+  protected void decodeMapEntry(Descriptors.FieldDescriptor field, CodedInputStream input, Map<Object, Object> map,
+                                int depth) throws IOException {
+    Descriptors.Descriptor entryType = field.getMessageType();
+    Descriptors.FieldDescriptor keyField = entryType.findFieldByNumber(1);
+    Descriptors.FieldDescriptor valueField = entryType.findFieldByNumber(2);
+    int limit = input.pushLimit(input.readRawVarint32());
+    Object key = null;
+    Object value = null;
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      int number = WireFormat.getTagFieldNumber(tag);
+      if (number == 1 && WireFormat.getTagWireType(tag) == keyField.getLiteType().getWireType()) {
+        key = decodeScalar(keyField, input);
+      } else if (number == 2 && WireFormat.getTagWireType(tag) == valueField.getLiteType().getWireType()) {
+        value = decodeValue(valueField, input, PropertyMask.ALL, depth);
+      } else {
+        input.skipField(tag);
+      }
+    }
+    input.popLimit(limit);
+    map.put(key != null ? key : WireFieldTable.defaultValue(keyField),
+        value != null ? value : defaultEntryValue(valueField));
+  }
+
+  protected Object defaultEntryValue(Descriptors.FieldDescriptor valueField) {
+    if (valueField.getJavaType() != Descriptors.FieldDescriptor.JavaType.MESSAGE) {
+      return toScalarPropertyValue(WireFieldTable.defaultValue(valueField));
+    }
+    Descriptors.Descriptor type = valueField.getMessageType();
+    if (converter.isWellKnownType(type)) {
+      return converter.toPropertyValue(Internal.getDefaultInstance(wellKnownType(type)));
+    }
+    MapPropertySink sink = new MapPropertySink(type.getFields().size());
+    putValues(getWireFieldTable(type), new Object[type.getFields().size()], sink, PropertyMask.ALL);
+    return sink.getMap();
+  }
+
+  /**
+   * A string or bytes as {@link SimpleProtobufMessageConverter#toPropertyValue(Object)} converts it,
+   * {@code null} if it is empty
+   */
+  protected Object toScalarPropertyValue(Object value) {
+    if (value instanceof String) {
+      return ((String) value).isEmpty() ? null : value;
+    } else if (value instanceof ByteString) {
+      return converter.unwrap((ByteString) value);
+    }
+    return value;
+  }
+
+  private static Class<? extends Message> wellKnownType(Descriptors.Descriptor type) {
+    Class<? extends Message> result = WELL_KNOWN_TYPES.get(type.getFullName());
+    if (result == null) {
+      throw new MessageConvertException("Unknown well-known type: " + type.getFullName());
+    }
+    return result;
+  }
+}
@@ -0,0 +1,439 @@
+package com.github.cloudecho.protobuf.converter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+import com.google.protobuf.UnsafeByteOperations;
+import com.google.protobuf.WireFormat;
+
+/**
+ * Encode a properties map into the wire format straight, without building the message. <br>
+ * The property values are coerced as {@link SimpleProtobufMessageConverter#newMessageBuilder(Class, Map)} does,
+ * e.g. a {@code Date} or millis to {@code Timestamp}, a number to a wrapper type, a {@code byte[]} or string to bytes,
+ * and the fields are written in the order of numbers, so the output is the same as the one of the built message.
+ * <p>
+ * The sizes of the nested messages are computed by a pre-pass and consumed in the same order by the write pass,
+ * so each nested message is sized once. The bytes values are wrapped without copying.
+ * <p>
+ * A single value of a repeated field is written as a list of it, and the {@code null} elements are skipped,
+ * as {@link SimpleProtobufMessageConverter#toListMessageValue(Class, Object)} does.
+ */
+public class WirePropertyEncoder {
+  protected final SimpleProtobufMessageConverter converter;
+  private final Cache<Descriptors.Descriptor, WireFieldTable> tables = CacheBuilder.newBuilder().weakKeys().build();
+
+  public WirePropertyEncoder(SimpleProtobufMessageConverter converter) {
+    this.converter = converter;
+  }
+
+  /**
+   * The encoded message of the message type with the given properties, the unknown properties are skipped
+   */
+  public byte[] encode(Descriptors.Descriptor type, Map<String, ?> properties) {
+    Sizes sizes = new Sizes();
+    byte[] result = new byte[messageSize(getWireFieldTable(type), properties, sizes)];
+    CodedOutputStream output = CodedOutputStream.newInstance(result);
+    encode(type, properties, output, sizes);
+    output.checkNoSpaceLeft();
+    return result;
+  }
+
+  /**
+   * Write the encoded message to the output, which is not flushed
+   */
+  public void encode(Descriptors.Descriptor type, Map<String, ?> properties, CodedOutputStream output) {
+    Sizes sizes = new Sizes();
+    messageSize(getWireFieldTable(type), properties, sizes);
+    encode(type, properties, output, sizes);
+  }
+
+  /**
+   * The size of the encoded message
+   */
+  public int computeSize(Descriptors.Descriptor type, Map<String, ?> properties) {
+    return messageSize(getWireFieldTable(type), properties, new Sizes());
+  }
+
+  private void encode(Descriptors.Descriptor type, Map<String, ?> properties, CodedOutputStream output, Sizes sizes) {
+    try {
+      writeMessage(getWireFieldTable(type), properties, output, sizes);
+    } catch (IOException ex) {
+      throw new MessageConvertException("encode message fail, message type: " + type.getFullName(), ex);
+    }
+  }
+
+  protected WireFieldTable getWireFieldTable(Descriptors.Descriptor type) {
+    WireFieldTable table = tables.getIfPresent(type);
+    if (table == null) {
+      table = new WireFieldTable(type, converter);
+      tables.put(type, table);
+    }
+    return table;
+  }
+
+  protected int messageSize(WireFieldTable table, Map<String, ?> properties, Sizes sizes) {
+    int size = 0;
+    for (int i = 0; i < table.fields.length; i++) {
+      Object value = properties.get(table.keys[i]);
+      if (value != null) {
+        size += fieldSize(table.fields[i], value, sizes);
+      }
+    }
+    return size;
+  }
+
+  protected void writeMessage(WireFieldTable table, Map<String, ?> properties, CodedOutputStream output, Sizes sizes)
+      throws IOException {
+    for (int i = 0; i < table.fields.length; i++) {
+      Object value = properties.get(table.keys[i]);
+      if (value != null) {
+        writeField(table.fields[i], value, output, sizes);
+      }
+    }
+  }
+
+  protected int fieldSize(Descriptors.FieldDescriptor field, Object value, Sizes sizes) {
+    int tagSize = CodedOutputStream.computeTagSize(field.getNumber());
+    if (field.isMapField()) {
+      Descriptors.FieldDescriptor keyField = field.getMessageType().findFieldByNumber(1);
+      Descriptors.FieldDescriptor valueField = field.getMessageType().findFieldByNumber(2);
+      Function<Object, Object> keyConverter = toMapKeyConverter(keyField);
+      int size = 0;
+      for (Map.Entry<?, ?> entry : toMap(field, value).entrySet()) {
+        if (entry.getKey() == null || entry.getValue() == null) {
+          continue;
+        }
+        int index = sizes.reserve();
+        int entrySize = elementSize(keyField, keyConverter.apply(entry.getKey()), sizes)
+            + elementSize(valueField, entry.getValue(), sizes);
+        sizes.set(index, entrySize);
+        size += tagSize + CodedOutputStream.computeUInt32SizeNoTag(entrySize) + entrySize;
+      }
+      return size;
+    } else if (field.isRepeated()) {
+      Collection<?> elements = toCollection(value);
+      if (elements.isEmpty()) {
+        return 0;
+      }
+      if (field.isPacked()) {
+        int index = sizes.reserve();
+        int dataSize = 0;
+        for (Object element : elements) {
+          if (element != null) {
+            dataSize += scalarSizeNoTag(field, element);
+          }
+        }
+        sizes.set(index, dataSize);
+        return dataSize == 0 ? 0 : tagSize + CodedOutputStream.computeUInt32SizeNoTag(dataSize) + dataSize;
+      }
+      int size = 0;
+      for (Object element : elements) {
+        if (element != null) {
+          size += elementSize(field, element, sizes);
+        }
+      }
+      return size;
+    } else if (!field.hasPresence() && isDefault(field, value)) {
+      return 0;
+    }
+    return elementSize(field, value, sizes);
+  }
+
+  protected void writeField(Descriptors.FieldDescriptor field, Object value, CodedOutputStream output, Sizes sizes)
+      throws IOException {
+    if (field.isMapField()) {
+      Descriptors.FieldDescriptor keyField = field.getMessageType().findFieldByNumber(1);
+      Descriptors.FieldDescriptor valueField = field.getMessageType().findFieldByNumber(2);
+      Function<Object, Object> keyConverter = toMapKeyConverter(keyField);
+      for (Map.Entry<?, ?> entry : toMap(field, value).entrySet()) {
+        if (entry.getKey() == null || entry.getValue() == null) {
+          continue;
+        }
+        output.writeTag(field.getNumber(), WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(sizes.next());
+        writeElement(keyField, keyConverter.apply(entry.getKey()), output, sizes);
+        writeElement(valueField, entry.getValue(), output, sizes);
+      }
+    } else if (field.isRepeated()) {
+      Collection<?> elements = toCollection(value);
+      if (elements.isEmpty()) {
+        return;
+      }
+      if (field.isPacked()) {
+        int dataSize = sizes.next();
+        if (dataSize == 0) {
+          return;
+        }
+        output.writeTag(field.getNumber(), WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(dataSize);
+        for (Object element : elements) {
+          if (element != null) {
+            writeScalarNoTag(field, element, output);
+          }
+        }
+        return;
+      }
+      for (Object element : elements) {
+        if (element != null) {
+          writeElement(field, element, output, sizes);
+        }
+      }
+    } else if (field.hasPresence() || !isDefault(field, value)) {
+      writeElement(field, value, output, sizes);
+    }
+  }
+
+  /**
+   * The size of a value with its tag, the size of a nested message is reserved before its fields are sized
+   */
+  @SuppressWarnings("unchecked")
+  protected int elementSize(Descriptors.FieldDescriptor field, Object value, Sizes sizes) {
+    int tagSize = CodedOutputStream.computeTagSize(field.getNumber());
+    if (field.getJavaType() != Descriptors.FieldDescriptor.JavaType.MESSAGE) {
+      return tagSize + scalarSizeNoTag(field, value);
+    }
+    int size;
+    if (value instanceof Message) {
+      size = ((Message) value).getSerializedSize();
+    } else {
+      int index = sizes.reserve();
+      Descriptors.Descriptor type = field.getMessageType();
+      if (SimpleProtobufMessageConverter.TIMESTAMP_TYPE.equals(type.getFullName())) {
+        size = converter.toTimestamp(value).getSerializedSize();
+      } else if (SimpleProtobufMessageConverter.WRAPPERS_FILE.equals(type.getFile().getName())) {
+        Descriptors.FieldDescriptor valueField = type.findFieldByNumber(1);
+        size = isDefault(valueField, value) ? 0 : elementSize(valueField, value, sizes);
+      } else if (value instanceof Map) {
+        size = messageSize(getWireFieldTable(type), (Map<String, ?>) value, sizes);
+      } else {
+        throw new MessageConvertException(
+            String.format("Expect a Map<String,?> value but got %s, message type: %s",
+                value.getClass().getName(), type.getFullName()));
+      }
+      sizes.set(index, size);
+    }
+    return tagSize + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+  }
+
+  @SuppressWarnings("unchecked")
+  protected void writeElement(Descriptors.FieldDescriptor field, Object value, CodedOutputStream output, Sizes sizes)
+      throws IOException {
+    if (field.getJavaType() != Descriptors.FieldDescriptor.JavaType.MESSAGE) {
+      output.writeTag(field.getNumber(), field.getLiteType().getWireType());
+      writeScalarNoTag(field, value, output);
+      return;
+    }
+    if (value instanceof Message) {
+      output.writeMessage(field.getNumber(), (Message) value);
+      return;
+    }
+    output.writeTag(field.getNumber(), WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    output.writeUInt32NoTag(sizes.next());
+    Descriptors.Descriptor type = field.getMessageType();
+    if (SimpleProtobufMessageConverter.TIMESTAMP_TYPE.equals(type.getFullName())) {
+      converter.toTimestamp(value).writeTo(output);
+    } else if (SimpleProtobufMessageConverter.WRAPPERS_FILE.equals(type.getFile().getName())) {
+      Descriptors.FieldDescriptor valueField = type.findFieldByNumber(1);
+      if (!isDefault(valueField, value)) {
+        writeElement(valueField, value, output, sizes);
+      }
+    } else {
+      writeMessage(getWireFieldTable(type), (Map<String, ?>) value, output, sizes);
+    }
+  }
+
+  protected int scalarSizeNoTag(Descriptors.FieldDescriptor field, Object value) {
+    switch (field.getType()) {
+      case DOUBLE:
+        return CodedOutputStream.computeDoubleSizeNoTag(converter.toNumber(value).doubleValue());
+      case FLOAT:
+        return CodedOutputStream.computeFloatSizeNoTag(converter.toNumber(value).floatValue());
+      case INT64:
+        return CodedOutputStream.computeInt64SizeNoTag(converter.toNumber(value).longValue());
+      case UINT64:
+        return CodedOutputStream.computeUInt64SizeNoTag(converter.toNumber(value).longValue());
+      case INT32:
+        return CodedOutputStream.computeInt32SizeNoTag(converter.toNumber(value).intValue());
+      case FIXED64:
+        return CodedOutputStream.computeFixed64SizeNoTag(converter.toNumber(value).longValue());
+      case FIXED32:
+        return CodedOutputStream.computeFixed32SizeNoTag(converter.toNumber(value).intValue());
+      case BOOL:
+        return CodedOutputStream.computeBoolSizeNoTag(converter.toBool(value));
+      case STRING:
+        return CodedOutputStream.computeStringSizeNoTag(converter.toStringValue(value));
+      case BYTES:
+        return CodedOutputStream.computeBytesSizeNoTag(toBytes(value));
+      case UINT32:
+        return CodedOutputStream.computeUInt32SizeNoTag(converter.toNumber(value).intValue());
+      case ENUM:
+        return CodedOutputStream.computeEnumSizeNoTag(toEnumNumber(field, value));
+      case SFIXED32:
+        return CodedOutputStream.computeSFixed32SizeNoTag(converter.toNumber(value).intValue());
+      case SFIXED64:
+        return CodedOutputStream.computeSFixed64SizeNoTag(converter.toNumber(value).longValue());
+      case SINT32:
+        return CodedOutputStream.computeSInt32SizeNoTag(converter.toNumber(value).intValue());
+      case SINT64:
+        return CodedOutputStream.computeSInt64SizeNoTag(converter.toNumber(value).longValue());
+      default:
+        throw new MessageConvertException("Unsupported field type: " + field.getType() + ", " + field.getFullName());
+    }
+  }
+
+  protected void writeScalarNoTag(Descriptors.FieldDescriptor field, Object value, CodedOutputStream output)
+      throws IOException {
+    switch (field.getType()) {
+      case DOUBLE:
+        output.writeDoubleNoTag(converter.toNumber(value).doubleValue());
+        break;
+      case FLOAT:
+        output.writeFloatNoTag(converter.toNumber(value).floatValue());
+        break;
+      case INT64:
+        output.writeInt64NoTag(converter.toNumber(value).longValue());
+        break;
+      case UINT64:
+        output.writeUInt64NoTag(converter.toNumber(value).longValue());
+        break;
+      case INT32:
+        output.writeInt32NoTag(converter.toNumber(value).intValue());
+        break;
+      case FIXED64:
+        output.writeFixed64NoTag(converter.toNumber(value).longValue());
+        break;
+      case FIXED32:
+        output.writeFixed32NoTag(converter.toNumber(value).intValue());
+        break;
+      case BOOL:
+        output.writeBoolNoTag(converter.toBool(value));
+        break;
+      case STRING:
+        output.writeStringNoTag(converter.toStringValue(value));
+        break;
+      case BYTES:
+        output.writeBytesNoTag(toBytes(value));
+        break;
+      case UINT32:
+        output.writeUInt32NoTag(converter.toNumber(value).intValue());
+        break;
+      case ENUM:
+        output.writeEnumNoTag(toEnumNumber(field, value));
+        break;
+      case SFIXED32:
+        output.writeSFixed32NoTag(converter.toNumber(value).intValue());
+        break;
+      case SFIXED64:
+        output.writeSFixed64NoTag(converter.toNumber(value).longValue());
+        break;
+      case SINT32:
+        output.writeSInt32NoTag(converter.toNumber(value).intValue());
+        break;
+      case SINT64:
+        output.writeSInt64NoTag(converter.toNumber(value).longValue());
+        break;
+      default:
+        throw new MessageConvertException("Unsupported field type: " + field.getType() + ", " + field.getFullName());
+    }
+  }
+
+  /**
+   * Whether the value is the default of a scalar field, which is not written if the field has no presence
+   */
+  protected boolean isDefault(Descriptors.FieldDescriptor field, Object value) {
+    switch (field.getJavaType()) {
+      case INT:
+      case LONG:
+        return converter.toNumber(value).longValue() == 0;
+      case FLOAT:
+      case DOUBLE:
+        return Double.doubleToRawLongBits(converter.toNumber(value).doubleValue()) == 0;
+      case BOOLEAN:
+        return !converter.toBool(value);
+      case STRING:
+        return converter.toStringValue(value).isEmpty();
+      case BYTE_STRING:
+        return toBytes(value).isEmpty();
+      case ENUM:
+        return toEnumNumber(field, value) == 0;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * The bytes of a property value, wrapped without copying since they are written right away
+   */
+  protected ByteString toBytes(Object value) {
+    if (value instanceof byte[]) {
+      return UnsafeByteOperations.unsafeWrap((byte[]) value);
+    } else if (value instanceof ByteBuffer) {
+      return UnsafeByteOperations.unsafeWrap(((ByteBuffer) value).duplicate());
+    }
+    return converter.toByteString(value);
+  }
+
+  protected int toEnumNumber(Descriptors.FieldDescriptor field, Object value) {
+    return converter.toEnumValue(field.getEnumType(), value).getNumber();
+  }
+
+  /**
+   * The converter of the map keys by the java type of the key field, e.g. {@code Integer} for {@code int32}
+   */
+  protected Function<Object, Object> toMapKeyConverter(Descriptors.FieldDescriptor keyField) {
+    return converter.toMapKeyConverter(keyField.getDefaultValue().getClass());
+  }
+
+  private static Map<?, ?> toMap(Descriptors.FieldDescriptor field, Object value) {
+    if (!(value instanceof Map)) {
+      throw new MessageConvertException(String.format("Expect a Map value of the map field \"%s\" but got %s",
+          field.getFullName(), value.getClass().getName()));
+    }
+    return (Map<?, ?>) value;
+  }
+
+  private static Collection<?> toCollection(Object value) {
+    if (value instanceof Collection) {
+      return (Collection<?>) value;
+    } else if (value instanceof Object[]) {
+      return Arrays.asList((Object[]) value);
+    }
+    return Collections.singletonList(value);
+  }
+
+  /**
+   * The sizes of the nested messages, packed fields and map entries, in the order they are written
+   */
+  protected static final class Sizes {
+    private int[] sizes = new int[16];
+    private int count;
+    private int cursor;
+
+    int reserve() {
+      if (count == sizes.length) {
+        sizes = Arrays.copyOf(sizes, count * 2);
+      }
+      return count++;
+    }
+
+    void set(int index, int size) {
+      sizes[index] = size;
+    }
+
+    int next() {
+      return sizes[cursor++];
+    }
+  }
+}
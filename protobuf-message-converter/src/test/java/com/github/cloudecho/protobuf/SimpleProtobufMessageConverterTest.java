@@ -1,21 +1,78 @@
 package com.github.cloudecho.protobuf;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
 
+import com.github.cloudecho.protobuf.converter.ArrayPropertySink;
+import com.github.cloudecho.protobuf.converter.AsyncProtobufMessageConverter;
+import com.github.cloudecho.protobuf.converter.BeanConverter;
+import com.github.cloudecho.protobuf.converter.BytecodeBeanConverter;
+import com.github.cloudecho.protobuf.converter.CachingProtobufMessageConverter;
+import com.github.cloudecho.protobuf.converter.ClassValueCache;
+import com.github.cloudecho.protobuf.converter.ConversionMetrics;
+import com.github.cloudecho.protobuf.converter.DescriptorProtobufMessageConverter;
+import com.github.cloudecho.protobuf.converter.DescriptorRegistry;
+import com.github.cloudecho.protobuf.converter.MapPropertySink;
+import com.github.cloudecho.protobuf.converter.MessageBuilderSink;
+import com.github.cloudecho.protobuf.converter.MessagePropertiesView;
+import com.github.cloudecho.protobuf.converter.MessageWarmUp;
+import com.github.cloudecho.protobuf.converter.PropertyMask;
+import com.github.cloudecho.protobuf.converter.PropertySink;
 import com.github.cloudecho.protobuf.converter.SimpleBeanConverter;
+import com.github.cloudecho.protobuf.converter.SimpleBeanMessageMapper;
+import com.github.cloudecho.protobuf.converter.SimpleConversionMetrics;
 import com.github.cloudecho.protobuf.converter.SimpleProtobufMessageConverter;
+import com.github.cloudecho.protobuf.exception.MessageConvertException;
 import com.github.cloudecho.protobuf.test.NestedMessage;
+import com.github.cloudecho.protobuf.test.Status;
 import com.github.cloudecho.protobuf.test.TestMessage;
+import com.github.cloudecho.protobuf.test.TestProto;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DoubleValue;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.FieldMask;
 import com.google.protobuf.Int32Value;
 import com.google.protobuf.Int64Value;
+import com.google.protobuf.Message;
 import com.google.protobuf.Timestamp;
+import com.google.protobuf.TimestampProto;
+import com.google.protobuf.UnknownFieldSet;
+import com.google.protobuf.WrappersProto;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
 
 public class SimpleProtobufMessageConverterTest {
   SimpleProtobufMessageConverter messageConverter = new SimpleProtobufMessageConverter();
@@ -66,6 +123,16 @@ public class SimpleProtobufMessageConverterTest {
         Arrays.asList("nested-str-21", "nested-str-22", "nested-str-23"));
   }
 
+  @Test
+  public void testDescriptorToProperties() {
+    TestMessage testMessage = createTestMessage();
+    DescriptorProtobufMessageConverter descriptorConverter = new DescriptorProtobufMessageConverter();
+    assertThat(descriptorConverter.toProperties(testMessage))
+        .isEqualTo(messageConverter.toProperties(testMessage));
+    assertThat(descriptorConverter.toProperties(TestMessage.getDefaultInstance()))
+        .isEqualTo(messageConverter.toProperties(TestMessage.getDefaultInstance()));
+  }
+
   @Test
   public void testToBean() {
     TestMessage testMessage = createTestMessage();
@@ -82,6 +149,957 @@ public class SimpleProtobufMessageConverterTest {
     // TODO assertions
   }
 
+  @Test
+  public void testOverriddenValueConversions() {
+    SimpleProtobufMessageConverter upperCaseConverter = new SimpleProtobufMessageConverter() {
+      @Override
+      protected Object toPropertyValue(Object value) {
+        return value instanceof String ? ((String) value).toUpperCase() : super.toPropertyValue(value);
+      }
+
+      @Override
+      protected Object toMessageValue(Type targetType, Object value) {
+        return value instanceof String ? ((String) value).toLowerCase() : super.toMessageValue(targetType, value);
+      }
+    };
+    TestMessage testMessage = createTestMessage();
+    Map<String, Object> properties = upperCaseConverter.toProperties(testMessage);
+    assertThat(properties).containsEntry("string", "A STRING VALUE");
+    assertThat(upperCaseConverter.buildMessage(TestMessage.class, properties).getString())
+        .isEqualTo(testMessage.getString());
+
+    // the hooks of the reflective conversion are honored by the plans as well
+    List<String> setters = new ArrayList<>();
+    SimpleProtobufMessageConverter hookConverter = new SimpleProtobufMessageConverter() {
+      @Override
+      protected boolean maybeMessageValuePresent(Message message, String getterName) {
+        return !"getString".equals(getterName) && super.maybeMessageValuePresent(message, getterName);
+      }
+
+      @Override
+      protected Optional<Method> getMessageSetterMethod(String propertyKey, Message.Builder builder) {
+        return "aLong".equals(propertyKey) ? Optional.empty() : super.getMessageSetterMethod(propertyKey, builder);
+      }
+
+      @Override
+      protected void buildMessageAttribute(Message.Builder builder, Method setter, Object value) {
+        setters.add(setter.getName());
+        super.buildMessageAttribute(builder, setter, value);
+      }
+    };
+    assertThat(hookConverter.toProperties(testMessage)).doesNotContainKey("string").containsKey("anInt");
+    TestMessage built = hookConverter.buildMessage(TestMessage.class, messageConverter.toProperties(testMessage));
+    assertThat(built.getALong()).isZero();
+    assertThat(built.getAnInt()).isEqualTo(testMessage.getAnInt());
+    assertThat(built.getString()).isEqualTo(testMessage.getString());
+    assertThat(setters).contains("setAnInt", "setString").doesNotContain("setALong");
+  }
+
+  @Test
+  public void testBytecodeBeanConverter() {
+    BytecodeBeanConverter bytecodeBeanConverter = new BytecodeBeanConverter();
+    TestBean bean = createTestBean();
+    assertThat(bytecodeBeanConverter.toProperties(bean))
+        .isEqualTo(beanConverter.toProperties(bean));
+
+    TestMessage testMessage = createTestMessage();
+    TestBean converted = messageConverter.toBean(TestBean.class, testMessage, bytecodeBeanConverter);
+    assertThat(bytecodeBeanConverter.toProperties(converted))
+        .isEqualTo(beanConverter.toProperties(messageConverter.toBean(TestBean.class, testMessage, beanConverter)));
+    assertThat(messageConverter.buildMessage(TestMessage.class, converted, bytecodeBeanConverter))
+        .isEqualTo(testMessage);
+  }
+
+  @Test
+  public void testBeanMessageMapper() {
+    SimpleBeanMessageMapper mapper = new SimpleBeanMessageMapper(messageConverter, beanConverter);
+    TestMessage testMessage = createTestMessage();
+    TestBean bean = mapper.toBean(TestBean.class, testMessage);
+    assertThat(beanConverter.toProperties(bean))
+        .isEqualTo(beanConverter.toProperties(messageConverter.toBean(TestBean.class, testMessage, beanConverter)));
+    assertThat(bean.getNestedDtos()[1].getNestedLongObject()).isEqualTo(403L);
+
+    assertThat(mapper.buildMessage(TestMessage.class, createTestBean())).isEqualTo(testMessage);
+    assertThat(mapper.buildMessage(TestMessage.class, new TestBean()))
+        .isEqualTo(messageConverter.buildMessage(TestMessage.class, new TestBean(), beanConverter));
+
+    // the repeated scalars are converted element by element, the null elements are skipped
+    assertThat(bean.getStringList()).containsExactly("str1", "str2");
+    TestBean withNull = createTestBean();
+    withNull.setStringList(Arrays.asList("str1", null, "str2"));
+    assertThat(mapper.buildMessage(TestMessage.class, withNull).getStringListList()).containsExactly("str1", "str2");
+  }
+
+  @Test
+  public void testToBeanStream() throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    for (int i = 0; i < 3; i++) {
+      createTestMessage().toBuilder().setAnInt(i).build().writeDelimitedTo(output);
+    }
+    TestMessage.getDefaultInstance().writeDelimitedTo(output);
+
+    try (Stream<TestBean> beans = messageConverter.toBeanStream(TestMessage.class, TestBean.class,
+        new ByteArrayInputStream(output.toByteArray()), beanConverter)) {
+      List<TestBean> result = beans.collect(Collectors.toList());
+      assertThat(result).hasSize(4);
+      assertThat(result.get(2).getAnInt()).isEqualTo(2);
+      assertThat(result.get(2).getNestedDtos()).hasSize(2);
+      assertThat(result.get(3).getString()).isNull();
+    }
+  }
+
+  @Test
+  public void testBatchConversion() {
+    List<TestMessage> messages = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      messages.add(createTestMessage().toBuilder().setAnInt(i).build());
+    }
+    SimpleProtobufMessageConverter parallelConverter = new SimpleProtobufMessageConverter();
+    parallelConverter.setForkJoinPool(ForkJoinPool.commonPool());
+    parallelConverter.setParallelThreshold(100);
+
+    List<TestBean> beans = parallelConverter.toBeans(TestBean.class, messages, beanConverter);
+    assertThat(beans).hasSize(300);
+    for (int i = 0; i < beans.size(); i++) {
+      assertThat(beans.get(i).getAnInt()).isEqualTo(i);
+    }
+    assertThat(parallelConverter.buildMessages(TestMessage.class, beans, beanConverter)).isEqualTo(messages);
+    assertThat(messageConverter.buildMessages(TestMessage.class, beans, beanConverter)).isEqualTo(messages);
+
+    // the results are mutable, as the ones of the interface defaults
+    beans.add(new TestBean());
+    assertThat(beans).hasSize(301);
+  }
+
+  @Test
+  public void testConversionMetrics() {
+    SimpleConversionMetrics metrics = new SimpleConversionMetrics();
+    SimpleProtobufMessageConverter measuredConverter = new SimpleProtobufMessageConverter();
+    SimpleBeanConverter measuredBeanConverter = new SimpleBeanConverter();
+    measuredConverter.setConversionMetrics(metrics);
+    measuredBeanConverter.setConversionMetrics(metrics);
+
+    TestBean bean = measuredConverter.toBean(TestBean.class, createTestMessage(), measuredBeanConverter);
+    measuredConverter.buildMessage(TestMessage.class, bean, measuredBeanConverter);
+    measuredConverter.toProperties(createTestMessage());
+
+    SimpleConversionMetrics.TypeMetrics toProperties =
+        metrics.get(ConversionMetrics.Operation.MESSAGE_TO_PROPERTIES, TestMessage.class);
+    assertThat(toProperties.getCount()).isEqualTo(2);
+    assertThat(toProperties.getFieldCount()).isEqualTo(18);
+    assertThat(Arrays.stream(toProperties.getHistogram()).sum()).isEqualTo(2);
+    // the nested messages are reported as well
+    assertThat(metrics.get(ConversionMetrics.Operation.MESSAGE_TO_PROPERTIES, NestedMessage.class).getCount())
+        .isEqualTo(6);
+    assertThat(metrics.get(ConversionMetrics.Operation.PROPERTIES_TO_BEAN, TestBean.class).getCount()).isEqualTo(1);
+    assertThat(metrics.get(ConversionMetrics.Operation.BEAN_TO_PROPERTIES, TestBean.class).getCount()).isEqualTo(1);
+    assertThat(metrics.get(ConversionMetrics.Operation.PROPERTIES_TO_MESSAGE, TestMessage.class).getCount())
+        .isEqualTo(1);
+
+    assertThatThrownBy(() -> measuredConverter.buildMessage(TestMessage.class,
+        Collections.singletonMap("nestedDto", "not a map")))
+        .isInstanceOf(MessageConvertException.class);
+    assertThat(metrics.get(ConversionMetrics.Operation.PROPERTIES_TO_MESSAGE, TestMessage.class).getFailures())
+        .isEqualTo(1);
+
+    ClassValueCache<?> planCache = metrics.getCaches(measuredConverter).get("CONVERSION_PLAN_CACHE");
+    measuredConverter.toProperties(createTestMessage());
+    assertThat(planCache.size()).isEqualTo(2);
+    assertThat(planCache.hitCount()).isPositive();
+    assertThat(planCache.requestCount()).isGreaterThanOrEqualTo(planCache.loadCount());
+    ClassValueCache<?> settersCache = metrics.getCaches(measuredConverter).get("MESSAGE_SETTERS_CACHE");
+    assertThat(settersCache.entryRequestCount()).isGreaterThanOrEqualTo(settersCache.entryLoadCount());
+
+    // each converter has its own caches
+    SimpleProtobufMessageConverter otherConverter = new SimpleProtobufMessageConverter();
+    otherConverter.setConversionMetrics(metrics);
+    assertThat(metrics.getCaches(otherConverter).get("CONVERSION_PLAN_CACHE")).isNotSameAs(planCache);
+    assertThat(metrics.getCaches(measuredConverter).get("CONVERSION_PLAN_CACHE")).isSameAs(planCache);
+  }
+
+  @Test
+  public void testClassValueCache() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    ClassValueCache<String> cache = new ClassValueCache<>(type -> type.getSimpleName() + loads.incrementAndGet());
+    cache.recordStats(true);
+    assertThat(cache.get(TestMessage.class)).isEqualTo("TestMessage1");
+    assertThat(cache.get(TestMessage.class)).isEqualTo("TestMessage1");
+    cache.invalidate(TestMessage.class);
+    assertThat(cache.get(TestMessage.class)).isEqualTo("TestMessage2");
+    assertThat(cache.loadCount()).isEqualTo(2);
+    assertThat(cache.hitCount()).isEqualTo(1);
+    assertThat(cache.size()).isEqualTo(1);
+
+    // the plans reference their converters, which are not pinned by the classes
+    assertThat(awaitCollected(newConverters(20))).isTrue();
+
+    // nor are the classes of a discarded loader pinned by the converter
+    assertThat(awaitCollected(Collections.singletonList(newMessageLoader(messageConverter)))).isTrue();
+  }
+
+  private List<WeakReference<?>> newConverters(int count) {
+    List<WeakReference<?>> converters = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      SimpleProtobufMessageConverter converter = new SimpleProtobufMessageConverter();
+      converter.toProperties(createTestMessage());
+      converters.add(new WeakReference<>(converter));
+    }
+    return converters;
+  }
+
+  /**
+   * Convert a message of the test classes loaded again by a throwaway loader
+   */
+  private WeakReference<?> newMessageLoader(SimpleProtobufMessageConverter converter) throws Exception {
+    String testPackage = TestMessage.class.getPackage().getName() + ".";
+    URL testClasses = TestMessage.class.getProtectionDomain().getCodeSource().getLocation();
+    try (URLClassLoader loader = new URLClassLoader(new URL[] {testClasses}, getClass().getClassLoader()) {
+      @Override
+      protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!name.startsWith(testPackage)) {
+          return super.loadClass(name, resolve);
+        }
+        synchronized (getClassLoadingLock(name)) {
+          Class<?> result = findLoadedClass(name);
+          return result != null ? result : findClass(name);
+        }
+      }
+    }) {
+      Class<?> type = loader.loadClass(TestMessage.class.getName());
+      assertThat(type).isNotSameAs(TestMessage.class);
+      Message message = converter.mergeMessageBuilder((Message) type.getMethod("getDefaultInstance").invoke(null),
+          converter.toProperties(createTestMessage())).build();
+      assertThat(message.toByteString()).isEqualTo(createTestMessage().toByteString());
+      return new WeakReference<>(loader);
+    }
+  }
+
+  /**
+   * Wait for the referents to be collected, a full GC is requested each round until all of them are cleared
+   */
+  private static boolean awaitCollected(List<WeakReference<?>> references) throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      if (references.stream().allMatch(ref -> ref.get() == null)) {
+        return true;
+      }
+      System.gc();
+      Thread.sleep(20);
+    }
+    return false;
+  }
+
+  @Test
+  public void testPropertySink() {
+    TestMessage testMessage = createTestMessage();
+    Map<String, Object> primitives = new HashMap<>();
+    Map<String, Object> objects = new HashMap<>();
+    messageConverter.convert(testMessage, new PropertySink() {
+      @Override
+      public void put(String key, Object value) {
+        objects.put(key, value);
+      }
+
+      @Override
+      public void putInt(String key, int value) {
+        primitives.put(key, value);
+      }
+
+      @Override
+      public void putLong(String key, long value) {
+        primitives.put(key, value);
+      }
+    });
+    assertThat(primitives).containsOnlyKeys("anInt", "integer", "aLong", "aLongObject");
+    assertThat(primitives.get("integer")).isEqualTo(100);
+    assertThat(primitives.get("aLongObject")).isEqualTo(102L);
+    assertThat(objects).containsOnlyKeys("string", "stringList", "date", "nestedDto", "nestedDtos");
+
+    MapPropertySink mapSink = new MapPropertySink();
+    messageConverter.convert(testMessage, mapSink);
+    assertThat(mapSink.getMap()).isEqualTo(messageConverter.toProperties(testMessage));
+
+    MessageBuilderSink builderSink = messageConverter.newMessageSink(TestMessage.class);
+    messageConverter.convert(testMessage, builderSink);
+    assertThat(builderSink.getBuilder().build()).isEqualTo(testMessage);
+
+    // the numeric values are narrowed or widened to the field type
+    builderSink = messageConverter.newMessageSink(TestMessage.class);
+    builderSink.putDouble("anInt", 7.9);
+    builderSink.putInt("aLongObject", 8);
+    builderSink.putLong("integer", 9L);
+    assertThat(builderSink.getBuilder().build()).isEqualTo(TestMessage.newBuilder()
+        .setAnInt(7)
+        .setALongObject(Int64Value.of(8))
+        .setInteger(Int32Value.of(9))
+        .build());
+  }
+
+  @Test
+  public void testNestedPropertySink() {
+    TestMessage testMessage = createTestMessage();
+    MapPropertySink mapSink = new MapPropertySink(16);
+    messageConverter.convert(testMessage, mapSink);
+    mapSink.clear();
+    messageConverter.convert(TestMessage.newBuilder().setAnInt(1).build(), mapSink);
+    assertThat(mapSink.getMap()).containsOnlyKeys("anInt", "aLong");
+
+    ArrayPropertySink arraySink = messageConverter.newArraySink(TestMessage.class);
+    messageConverter.convert(testMessage, arraySink);
+    assertThat(arraySink.getLong(TestMessage.ANINT_FIELD_NUMBER)).isEqualTo(99);
+    assertThat(arraySink.getLong(TestMessage.ALONGOBJECT_FIELD_NUMBER)).isEqualTo(102);
+    assertThat(arraySink.get(TestMessage.STRING_FIELD_NUMBER)).isEqualTo("a string value");
+    assertThat(arraySink.get(TestMessage.NESTEDDTO_FIELD_NUMBER)).isInstanceOf(Map.class);
+    arraySink.clear();
+    assertThat(arraySink.has(TestMessage.ANINT_FIELD_NUMBER)).isFalse();
+    messageConverter.convert(TestMessage.newBuilder().setString("next").build(), arraySink);
+    assertThat(arraySink.getLong(TestMessage.ALONGOBJECT_FIELD_NUMBER)).isZero();
+    // a large field number takes a single slot
+    messageConverter.convert(TestMessage.newBuilder().setBigNumber(7).build(), arraySink);
+    assertThat(arraySink.has(TestMessage.BIGNUMBER_FIELD_NUMBER)).isTrue();
+    assertThat(arraySink.getLong(TestMessage.BIGNUMBER_FIELD_NUMBER)).isEqualTo(7);
+    assertThat(arraySink.has(TestMessage.BIGNUMBER_FIELD_NUMBER - 1)).isFalse();
+    assertThat(arraySink.get(TestMessage.BIGNUMBER_FIELD_NUMBER + 1)).isNull();
+
+    // a streaming sink receives the nested messages and lists as events
+    StringBuilder events = new StringBuilder();
+    messageConverter.convert(testMessage.toBuilder().clearStringList().build(), new PropertySink() {
+      @Override
+      public void put(String key, Object value) {
+        if (key == null || key.startsWith("nestedInt")) {
+          events.append(key).append('=').append(value).append(' ');
+        }
+      }
+
+      @Override
+      public void putInt(String key, int value) {
+        put(key, value);
+      }
+
+      @Override
+      public boolean beginMessage(String key) {
+        events.append('{').append(key).append(' ');
+        return true;
+      }
+
+      @Override
+      public void endMessage() {
+        events.append("} ");
+      }
+
+      @Override
+      public boolean beginList(String key, int size) {
+        events.append('[').append(key).append(':').append(size).append(' ');
+        return !"stringList".equals(key);
+      }
+
+      @Override
+      public void endList() {
+        events.append("] ");
+      }
+    });
+    assertThat(events.toString()).isEqualTo("{nestedDto nestedInt=200 nestedInteger=201 [stringList:3 } "
+        + "[nestedDtos:2 {null nestedInt=300 nestedInteger=301 [stringList:3 } "
+        + "{null nestedInt=400 nestedInteger=401 [stringList:3 } ] ");
+  }
+
+  @Test
+  public void testWriteJson() {
+    String nested = "\"nestedInt\":300,\"nestedInteger\":301,\"nestedLong\":302,\"nestedLongObject\":303,"
+        + "\"nestedString\":\"nested string value-1\","
+        + "\"stringList\":[\"nested-str-11\",\"nested-str-12\",\"nested-str-13\"]";
+    String json = messageConverter.toJson(createTestMessage());
+    assertThat(json).startsWith("{\"anInt\":99,\"integer\":100,\"aLong\":101,\"aLongObject\":102,"
+        + "\"string\":\"a string value\",\"date\":100000,\"nestedDto\":{\"nestedInt\":200,");
+    assertThat(json).contains("\"stringList\":[\"str1\",\"str2\"],\"nestedDtos\":[{" + nested + "},{");
+    assertThat(json).endsWith("]}]}");
+
+    assertThat(messageConverter.toJson(TestMessage.newBuilder().setAnInt(-12).setString("a\"b\\c\n\u0001").build()))
+        .isEqualTo("{\"anInt\":-12,\"aLong\":0,\"string\":\"a\\\"b\\\\c\\n\\u0001\"}");
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    messageConverter.writeJson(createTestMessage(), output);
+    assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(json);
+  }
+
+  @Test
+  public void testReadJson() {
+    TestMessage testMessage = createTestMessage();
+    assertThat(messageConverter.fromJson(TestMessage.class, messageConverter.toJson(testMessage)))
+        .isEqualTo(testMessage);
+    assertThat(messageConverter.readJson(TestMessage.class,
+        new ByteArrayInputStream(messageConverter.toJson(testMessage).getBytes(StandardCharsets.UTF_8))).build())
+        .isEqualTo(testMessage);
+
+    TestMessage nonFinite = TestMessage.newBuilder()
+        .addRatios(Double.NaN).addRatios(Double.POSITIVE_INFINITY).addRatios(Double.NEGATIVE_INFINITY)
+        .putWeights("a", Float.NaN).putWeights("b", Float.NEGATIVE_INFINITY)
+        .setScore(DoubleValue.of(Double.POSITIVE_INFINITY))
+        .putBlobs("c", ByteString.copyFromUtf8("c"))
+        .build();
+    assertThat(messageConverter.fromJson(TestMessage.class, messageConverter.toJson(nonFinite)))
+        .isEqualTo(nonFinite);
+    assertThatThrownBy(() -> messageConverter.fromJson(TestMessage.class, "{\"ratios\": [\"1.5\"]}"))
+        .isInstanceOf(MessageConvertException.class)
+        .hasMessageContaining("test.TestMessage.ratios");
+
+    String json = "{ \"unknown\": {\"a\": [1, 2.5e3, null, true]},\n"
+        + "  \"aLong\": -9223372036854775808, \"aLongObject\": 1.0, \"string\": \"\\u0041\\\"\",\n"
+        + "  \"nestedDtos\": [{\"nestedInt\": 1}, {}], \"stringList\": [] }";
+    assertThat(messageConverter.fromJson(TestMessage.class, json)).isEqualTo(TestMessage.newBuilder()
+        .setALong(Long.MIN_VALUE)
+        .setALongObject(Int64Value.of(1))
+        .setString("A\"")
+        .addNestedDtos(NestedMessage.newBuilder().setNestedInt(1))
+        .addNestedDtos(NestedMessage.getDefaultInstance())
+        .build());
+
+    assertThatThrownBy(() -> messageConverter.fromJson(TestMessage.class, "{\"anInt\": 1"))
+        .isInstanceOf(MessageConvertException.class)
+        .hasMessageContaining("Malformed json");
+    assertThatThrownBy(() -> messageConverter.fromJson(TestMessage.class, "{\"anInt\": 1} garbage"))
+        .isInstanceOf(MessageConvertException.class)
+        .hasMessageContaining("Malformed json");
+    assertThat(messageConverter.fromJson(TestMessage.class, "{\"anInt\": 1} \n").getAnInt()).isEqualTo(1);
+
+    // the nesting is bounded, rather than overflowing the stack
+    StringBuilder deep = new StringBuilder("{\"x\":");
+    for (int i = 0; i < 100_000; i++) {
+      deep.append('[');
+    }
+    assertThatThrownBy(() -> messageConverter.fromJson(TestMessage.class, deep.toString()))
+        .isInstanceOf(MessageConvertException.class)
+        .hasMessageContaining("Malformed json");
+  }
+
+  @Test
+  public void testBytesMode() {
+    ByteString payload = ByteString.copyFromUtf8("payload");
+    TestMessage testMessage = TestMessage.newBuilder().setPayload(payload).build();
+    assertThat(messageConverter.toProperties(testMessage).get("payload")).isEqualTo(payload.toByteArray());
+
+    SimpleProtobufMessageConverter viewConverter = new SimpleProtobufMessageConverter();
+    viewConverter.setBytesMode(SimpleProtobufMessageConverter.BytesMode.BYTE_BUFFER);
+    ByteBuffer view = (ByteBuffer) viewConverter.toProperties(testMessage).get("payload");
+    assertThat(view.isReadOnly()).isTrue();
+    assertThat(ByteString.copyFrom(view)).isEqualTo(payload);
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(4).put(new byte[] {1, 2, 3, 4});
+    direct.flip();
+    TestMessage built = viewConverter.buildMessage(TestMessage.class, Collections.singletonMap("payload", direct));
+    assertThat(built.getPayload().toByteArray()).containsExactly(1, 2, 3, 4);
+    assertThat(direct.position()).isZero();
+    assertThat(messageConverter.buildMessage(TestMessage.class, Collections.singletonMap("payload", direct)))
+        .isEqualTo(built);
+
+    viewConverter.setBytesMode(SimpleProtobufMessageConverter.BytesMode.BYTE_STRING);
+    assertThat(viewConverter.toProperties(testMessage).get("payload")).isSameAs(testMessage.getPayload());
+    assertThat(viewConverter.fromJson(TestMessage.class, viewConverter.toJson(testMessage))).isEqualTo(testMessage);
+  }
+
+  @Test
+  public void testPropertiesView() {
+    TestMessage testMessage = createTestMessage();
+    Map<String, Object> view = messageConverter.toPropertiesView(testMessage);
+    assertThat(view.get("anInt")).isEqualTo(99);
+    assertThat(view.get("nestedDto")).isInstanceOf(MessagePropertiesView.class);
+    assertThat(((Map<String, ?>) view.get("nestedDto")).get("nestedLongObject")).isEqualTo(203L);
+    assertThat(((List<Map<String, ?>>) view.get("nestedDtos")).get(1).get("nestedInt")).isEqualTo(400);
+    assertThat(view.containsKey("payload")).isFalse();
+    assertThat(view.get("unknown")).isNull();
+
+    assertThat(view).isEqualTo(messageConverter.toProperties(testMessage));
+    assertThat(messageConverter.toProperties(testMessage)).isEqualTo(view);
+    assertThat(messageConverter.toPropertiesView(TestMessage.getDefaultInstance()))
+        .isEqualTo(messageConverter.toProperties(TestMessage.getDefaultInstance()));
+    assertThat(beanConverter.toProperties(beanConverter.toBean(TestBean.class, view)))
+        .isEqualTo(beanConverter.toProperties(messageConverter.toBean(TestBean.class, testMessage, beanConverter)));
+    assertThatThrownBy(() -> view.put("anInt", 1)).isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  public void testFieldMask() {
+    TestMessage testMessage = createTestMessage();
+    FieldMask mask = FieldMask.newBuilder()
+        .addPaths("anInt")
+        .addPaths("nestedDto.nestedInt")
+        .addPaths("nested_dtos.string_list")
+        .build();
+    Map<String, Object> properties = messageConverter.toProperties(testMessage, mask);
+    assertThat(properties).containsOnlyKeys("anInt", "nestedDto", "nestedDtos");
+    assertThat(properties.get("nestedDto")).isEqualTo(Collections.singletonMap("nestedInt", 200));
+    assertThat((List<Map<String, ?>>) properties.get("nestedDtos")).hasSize(2)
+        .allSatisfy(nested -> assertThat(nested).containsOnlyKeys("stringList"));
+    assertThat(messageConverter.toProperties(testMessage, FieldMask.getDefaultInstance()))
+        .isEqualTo(messageConverter.toProperties(testMessage));
+
+    TestMessage built = (TestMessage) messageConverter.newMessageBuilder(TestMessage.class,
+        messageConverter.toProperties(testMessage), mask).build();
+    assertThat(built).isEqualTo(TestMessage.newBuilder()
+        .setAnInt(99)
+        .setNestedDto(NestedMessage.newBuilder().setNestedInt(200))
+        .addNestedDtos(NestedMessage.newBuilder()
+            .addAllStringList(testMessage.getNestedDtos(0).getStringListList()))
+        .addNestedDtos(NestedMessage.newBuilder()
+            .addAllStringList(testMessage.getNestedDtos(1).getStringListList()))
+        .build());
+    assertThat(messageConverter.toProperties(built, mask)).isEqualTo(properties);
+  }
+
+  @Test
+  public void testMergeMessage() {
+    TestMessage testMessage = createTestMessage();
+    TestMessage changed = testMessage.toBuilder()
+        .setAnInt(98)
+        .clearInteger()
+        .clearStringList()
+        .addStringList("str3")
+        .build();
+    Map<String, Object> delta = messageConverter.toPropertiesDelta(testMessage, changed);
+    assertThat(delta).containsOnlyKeys("anInt", "integer", "stringList");
+    assertThat(delta.get("anInt")).isEqualTo(98);
+    assertThat(delta.get("integer")).isNull();
+    assertThat(delta.get("stringList")).isEqualTo(Collections.singletonList("str3"));
+    assertThat(messageConverter.toPropertiesDelta(testMessage, createTestMessage())).isEmpty();
+
+    Map<String, Object> properties = messageConverter.toProperties(testMessage);
+    assertThat(messageConverter.diffProperties(properties, messageConverter.toProperties(changed)))
+        .isEqualTo(delta);
+    assertThat(messageConverter.mergeMessageBuilder(testMessage, messageConverter.toProperties(changed)).build())
+        .isEqualTo(changed);
+
+    TestBean bean = createTestBean();
+    bean.setString("another string value");
+    bean.getNestedDto().setNestedInt(199);
+    assertThat(messageConverter.mergeMessageBuilder(testMessage, bean, beanConverter).build())
+        .isEqualTo(messageConverter.buildMessage(TestMessage.class, bean, beanConverter));
+  }
+
+  @Test
+  public void testCachingConverter() {
+    CachingProtobufMessageConverter cachingConverter = new CachingProtobufMessageConverter(messageConverter);
+    TestMessage testMessage = createTestMessage();
+    Map<String, ?> properties = cachingConverter.toProperties(testMessage);
+    assertThat(properties).isEqualTo(messageConverter.toProperties(testMessage));
+    assertThat(cachingConverter.toProperties(testMessage)).isEqualTo(properties)
+        .extracting("nestedDto").isSameAs(properties.get("nestedDto"));
+    assertThat(cachingConverter.toProperties(createTestMessage())).isNotSameAs(properties);
+    assertThat(cachingConverter.stats().hitCount()).isEqualTo(1);
+    assertThat(cachingConverter.stats().missCount()).isEqualTo(2);
+    assertThatThrownBy(() -> ((Map<String, Object>) properties.get("nestedDto")).put("nestedInt", 0))
+        .isInstanceOf(UnsupportedOperationException.class);
+    assertThat(cachingConverter.toBean(TestBean.class, testMessage, beanConverter)).usingRecursiveComparison()
+        .isEqualTo(messageConverter.toBean(TestBean.class, testMessage, beanConverter));
+    // the keys of a map<int32, ...> field are kept, the maps are thawed for the mutable date
+    TestMessage indexed = testMessage.toBuilder()
+        .putNestedIndex(7, NestedMessage.newBuilder().setNestedInt(7).build())
+        .putCounters("a", 1L)
+        .build();
+    Map<String, ?> indexedProperties = cachingConverter.toProperties(indexed);
+    assertThat(indexedProperties).isEqualTo(messageConverter.toProperties(indexed));
+    assertThat((Map<Integer, ?>) indexedProperties.get("nestedIndex")).containsOnlyKeys(7);
+    assertThat(cachingConverter.toProperties(indexed)).isEqualTo(indexedProperties);
+
+    Map<String, ?> dated = cachingConverter.toProperties(testMessage);
+    ((Date) dated.get("date")).setTime(0);
+    assertThat(cachingConverter.toProperties(testMessage).get("date")).isEqualTo(new Date(100 * 1000));
+    assertThat(dated).isNotSameAs(properties);
+
+    CachingProtobufMessageConverter equalityConverter = new CachingProtobufMessageConverter(messageConverter,
+        CacheBuilder.newBuilder()
+            .maximumWeight(1000)
+            .weigher(CachingProtobufMessageConverter.PROPERTY_COUNT_WEIGHER),
+        CachingProtobufMessageConverter.KeyMode.EQUALITY);
+    assertThat(equalityConverter.toProperties(createTestMessage()).get("nestedDtos"))
+        .isSameAs(equalityConverter.toProperties(testMessage).get("nestedDtos"));
+    assertThat(equalityConverter.stats().hitCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testWarmUp() throws Exception {
+    SimpleProtobufMessageConverter converter = new SimpleProtobufMessageConverter();
+    assertThat(converter.warmUp(TestMessage.class)).isEqualTo(2);
+    assertThat(converter.warmUp(TestProto.getDescriptor())).isEqualTo(2);
+    assertThat(converter.warmUpAsync(ForkJoinPool.commonPool(),
+        Arrays.asList(TestMessage.class, NestedMessage.class)).get()).isEqualTo(2);
+
+    StringWriter manifest = new StringWriter();
+    converter.writeWarmUpManifest(manifest);
+    assertThat(manifest.toString().split("\n")).containsExactly(
+        SimpleProtobufMessageConverter.WARM_UP_MANIFEST_HEADER,
+        NestedMessage.class.getName(),
+        TestMessage.class.getName());
+
+    SimpleProtobufMessageConverter nextBoot = new SimpleProtobufMessageConverter();
+    assertThat(nextBoot.warmUp(new StringReader(manifest + "com.example.Missing\n"))).isEqualTo(2);
+    assertThat(nextBoot.toProperties(createTestMessage())).isEqualTo(messageConverter.toProperties(createTestMessage()));
+
+    // the outer class is renamed if a nested message has the same name, as protoc does
+    Descriptors.FileDescriptor file = Descriptors.FileDescriptor.buildFrom(
+        DescriptorProtos.FileDescriptorProto.newBuilder()
+            .setName("shop/order_item.proto")
+            .setPackage("shop")
+            .addMessageType(DescriptorProtos.DescriptorProto.newBuilder()
+                .setName("Cart")
+                .addNestedType(DescriptorProtos.DescriptorProto.newBuilder().setName("OrderItem")))
+            .build(),
+        new Descriptors.FileDescriptor[0]);
+    new MessageWarmUp(converter) {
+      {
+        assertThat(toMessageClassName(file.findMessageTypeByName("Cart")))
+            .isEqualTo("shop.OrderItemOuterClass$Cart");
+        assertThat(toMessageClass(file.findMessageTypeByName("Cart"))).isNull();
+      }
+    };
+  }
+
+  @Test
+  public void testRepeatedEnum() {
+    TestMessage testMessage = TestMessage.newBuilder()
+        .addStates(Status.ACTIVE)
+        .addStates(Status.INACTIVE)
+        .addStatesValue(99)
+        .build();
+    Map<String, Object> properties = messageConverter.toProperties(testMessage);
+    assertThat(properties).containsKey("states").doesNotContainKey("statesValue");
+    assertThat((List<Integer>) properties.get("states")).containsExactly(1, 2, 99);
+    assertThat(new DescriptorProtobufMessageConverter().toProperties(testMessage)).isEqualTo(properties);
+    assertThat(messageConverter.toProperties(TestMessage.getDescriptor(), testMessage.toByteArray()))
+        .isEqualTo(properties);
+
+    assertThat(messageConverter.buildMessage(TestMessage.class, properties)).isEqualTo(testMessage);
+    assertThat(messageConverter.fromJson(TestMessage.class, messageConverter.toJson(testMessage)))
+        .isEqualTo(testMessage);
+  }
+
+  @Test
+  public void testUnrecognizedEnum() {
+    TestMessage testMessage = createTestMessage().toBuilder().setStatusValue(99).build();
+    Map<String, Object> properties = messageConverter.toProperties(testMessage);
+    assertThat(properties).containsEntry("status", 99);
+    assertThat(messageConverter.toPropertiesView(testMessage)).containsEntry("status", 99).isEqualTo(properties);
+    assertThat(messageConverter.toPropertiesDelta(createTestMessage(), testMessage))
+        .containsOnlyKeys("status")
+        .containsEntry("status", 99);
+    assertThat(messageConverter.buildMessage(TestMessage.class, properties)).isEqualTo(testMessage);
+  }
+
+  @Test
+  public void testEmptyMapValues() throws Exception {
+    TestMessage testMessage = TestMessage.newBuilder()
+        .putLabels("a", "")
+        .putLabels("b", "x")
+        .putBlobs("e", ByteString.EMPTY)
+        .putBlobs("f", ByteString.copyFromUtf8("f"))
+        .build();
+    Map<String, Object> properties = messageConverter.toProperties(testMessage);
+    assertThat((Map<String, Object>) properties.get("labels")).containsEntry("a", null).containsEntry("b", "x");
+    assertThat((Map<String, Object>) properties.get("blobs")).containsEntry("e", null);
+    DynamicMessage dynamicMessage = DynamicMessage.parseFrom(TestMessage.getDescriptor(), testMessage.toByteArray());
+    for (Map<String, Object> other : Arrays.asList(
+        new DescriptorProtobufMessageConverter().toProperties(dynamicMessage),
+        messageConverter.toPropertiesView(testMessage))) {
+      assertThat(other.get("labels")).isEqualTo(properties.get("labels"));
+      assertThat((Map<String, Object>) other.get("blobs")).containsEntry("e", null).containsOnlyKeys("e", "f");
+      assertThat((byte[]) ((Map<String, Object>) other.get("blobs")).get("f")).isEqualTo(new byte[] {'f'});
+    }
+  }
+
+  @Test
+  public void testMapAndOneof() {
+    TestMessage testMessage = createTestMessage().toBuilder()
+        .putCounters("a", 1L)
+        .putCounters("b", 2L)
+        .putCounters("", 3L)
+        .putNestedIndex(7, NestedMessage.newBuilder().setNestedInt(7).build())
+        .putStatuses("s", Status.ACTIVE)
+        .setCode(0)
+        .build();
+    Map<String, Object> properties = messageConverter.toProperties(testMessage);
+    assertThat(properties).containsKeys("counters", "nestedIndex", "statuses", "code")
+        .doesNotContainKeys("countersMap", "countersCount", "statusesValue", "choiceCase", "label", "nestedChoice");
+    assertThat((Map<String, Long>) properties.get("counters")).containsExactly(entry("a", 1L), entry("b", 2L), entry("", 3L));
+    assertThat((Map<Integer, Map<String, ?>>) properties.get("nestedIndex")).containsOnlyKeys(7);
+    assertThat(properties.get("statuses")).isEqualTo(Collections.singletonMap("s", Status.ACTIVE_VALUE));
+    assertThat(properties.get("code")).isEqualTo(0);
+    assertThat(new DescriptorProtobufMessageConverter().toProperties(testMessage)).isEqualTo(properties);
+
+    assertThat(messageConverter.buildMessage(TestMessage.class, properties)).isEqualTo(testMessage);
+    assertThat(messageConverter.fromJson(TestMessage.class, messageConverter.toJson(testMessage)))
+        .isEqualTo(testMessage);
+
+    TestMessage nestedChoice = testMessage.toBuilder()
+        .setNestedChoice(NestedMessage.newBuilder().setNestedInt(1))
+        .build();
+    assertThat(messageConverter.toProperties(nestedChoice)).containsKey("nestedChoice")
+        .doesNotContainKeys("code", "label");
+    assertThat(messageConverter.toProperties(createTestMessage())).doesNotContainKeys("counters", "code");
+  }
+
+  @Test
+  public void testDynamicMessage() throws Exception {
+    DescriptorProtos.FileDescriptorSet fileDescriptorSet = DescriptorProtos.FileDescriptorSet.newBuilder()
+        .addFile(TestProto.getDescriptor().toProto())
+        .addFile(TimestampProto.getDescriptor().toProto())
+        .addFile(WrappersProto.getDescriptor().toProto())
+        .build();
+    DescriptorRegistry registry = DescriptorRegistry.parseFrom(new ByteArrayInputStream(fileDescriptorSet.toByteArray()));
+    Descriptors.Descriptor type = registry.get("type.googleapis.com/test.TestMessage");
+    assertThat(type).isNotSameAs(TestMessage.getDescriptor());
+    assertThat(registry.find("test.NestedMessage")).isNotNull();
+    assertThat(registry.find("test.Missing")).isNull();
+
+    TestMessage testMessage = createTestMessage().toBuilder()
+        .putCounters("a", 1L)
+        .putNestedIndex(7, NestedMessage.newBuilder().setNestedInt(7).build())
+        .putStatuses("s", Status.INACTIVE)
+        .setLabel("label")
+        .setPayload(ByteString.copyFromUtf8("payload"))
+        .build();
+    Map<String, Object> properties = messageConverter.toProperties(testMessage);
+    DescriptorProtobufMessageConverter descriptorConverter = new DescriptorProtobufMessageConverter();
+    assertThat(descriptorConverter.toProperties(DynamicMessage.parseFrom(type, testMessage.toByteArray())))
+        .usingRecursiveComparison().isEqualTo(properties);
+    assertThat(descriptorConverter.toProperties(type, testMessage.toByteArray()))
+        .usingRecursiveComparison().isEqualTo(properties);
+    ByteBuffer buffer = testMessage.toByteString().asReadOnlyByteBuffer();
+    assertThat(descriptorConverter.toProperties(type, buffer))
+        .usingRecursiveComparison().isEqualTo(properties);
+    assertThat(buffer.position()).isZero();
+
+    DynamicMessage built = descriptorConverter.buildMessage(type, properties);
+    assertThat(built.getDescriptorForType()).isSameAs(type);
+    assertThat(TestMessage.parseFrom(built.toByteArray())).isEqualTo(testMessage);
+    assertThatThrownBy(() -> descriptorConverter.buildMessage(type, Collections.singletonMap("anInt", "x")))
+        .isInstanceOf(MessageConvertException.class);
+  }
+
+  @Test
+  public void testWireDecoder() {
+    TestMessage testMessage = createTestMessage().toBuilder()
+        .putCounters("a", 1L)
+        .putNestedIndex(7, NestedMessage.newBuilder().setNestedInt(7).build())
+        .putStatuses("s", Status.INACTIVE)
+        .setLabel("label")
+        .setPayload(ByteString.copyFromUtf8("payload"))
+        .addAllNumbers(Arrays.asList(1, -2, 300))
+        .setUnknownFields(UnknownFieldSet.newBuilder()
+            .addField(100, UnknownFieldSet.Field.newBuilder().addVarint(5).build())
+            .build())
+        .build();
+    Map<String, Object> properties = messageConverter.toProperties(testMessage);
+    assertThat(messageConverter.toProperties(TestMessage.getDescriptor(), testMessage.toByteArray()))
+        .usingRecursiveComparison().isEqualTo(properties);
+    assertThat(messageConverter.toProperties(TestMessage.getDescriptor(), testMessage.toByteString().asReadOnlyByteBuffer()))
+        .usingRecursiveComparison().isEqualTo(properties);
+    assertThat(messageConverter.buildMessage(TestMessage.class,
+        messageConverter.toProperties(TestMessage.getDescriptor(), testMessage.toByteArray())).getNumbersList())
+        .containsExactly(1, -2, 300);
+    assertThat(messageConverter.toProperties(TestMessage.getDescriptor(), new byte[0]))
+        .isEqualTo(messageConverter.toProperties(TestMessage.getDefaultInstance()));
+
+    PropertyMask mask = messageConverter.toPropertyMask(FieldMask.newBuilder()
+        .addPaths("aLong")
+        .addPaths("nestedDtos.nestedInt")
+        .build());
+    assertThat(messageConverter.toProperties(TestMessage.getDescriptor(), testMessage.toByteArray(), mask))
+        .isEqualTo(messageConverter.toProperties(testMessage, mask));
+
+    // the last value of a oneof wins
+    byte[] concatenated = testMessage.toBuilder().setCode(3).build().toByteString()
+        .concat(TestMessage.newBuilder().setLabel("last").build().toByteString())
+        .toByteArray();
+    assertThat(messageConverter.toProperties(TestMessage.getDescriptor(), concatenated))
+        .containsEntry("label", "last")
+        .doesNotContainKey("code");
+  }
+
+  @Test
+  public void testWireDecoderEmptyValues() {
+    TestMessage testMessage = TestMessage.newBuilder()
+        .addAllStringList(Arrays.asList("", "s"))
+        .addAllChunks(Arrays.asList(ByteString.EMPTY, ByteString.copyFromUtf8("c")))
+        .putLabels("a", "")
+        .putBlobs("e", ByteString.EMPTY)
+        .setLabel("")
+        .build();
+    Map<String, Object> properties = messageConverter.toProperties(testMessage);
+    assertThat((List<Object>) properties.get("stringList")).containsExactly(null, "s");
+    assertThat(messageConverter.toProperties(TestMessage.getDescriptor(), testMessage.toByteArray()))
+        .usingRecursiveComparison().isEqualTo(properties);
+    Map<String, Object> decoded = messageConverter.toProperties(TestMessage.getDescriptor(), testMessage.toByteArray());
+    assertThat((List<Object>) decoded.get("chunks")).hasSize(2).first().isNull();
+    assertThat((Map<String, Object>) decoded.get("labels")).containsEntry("a", null);
+    assertThat((Map<String, Object>) decoded.get("blobs")).containsEntry("e", null);
+  }
+
+  @Test
+  public void testWireDecoderRecursionLimit() throws Exception {
+    Descriptors.Descriptor node = Descriptors.FileDescriptor.buildFrom(
+        DescriptorProtos.FileDescriptorProto.newBuilder()
+            .setName("node.proto")
+            .setSyntax("proto3")
+            .addMessageType(DescriptorProtos.DescriptorProto.newBuilder()
+                .setName("Node")
+                .addField(DescriptorProtos.FieldDescriptorProto.newBuilder()
+                    .setName("child")
+                    .setNumber(1)
+                    .setType(DescriptorProtos.FieldDescriptorProto.Type.TYPE_MESSAGE)
+                    .setTypeName(".Node")))
+            .build(),
+        new Descriptors.FileDescriptor[0]).findMessageTypeByName("Node");
+    ByteString nested = ByteString.EMPTY;
+    for (int i = 0; i < 100; i++) {
+      nested = UnknownFieldSet.newBuilder()
+          .addField(1, UnknownFieldSet.Field.newBuilder().addLengthDelimited(nested).build())
+          .build().toByteString();
+    }
+    assertThat(messageConverter.toProperties(node, nested.toByteArray())).containsOnlyKeys("child");
+
+    byte[] tooDeep = UnknownFieldSet.newBuilder()
+        .addField(1, UnknownFieldSet.Field.newBuilder().addLengthDelimited(nested).build())
+        .build().toByteArray();
+    assertThatThrownBy(() -> messageConverter.toProperties(node, tooDeep))
+        .isInstanceOf(MessageConvertException.class)
+        .hasMessageContaining("nested too deep");
+  }
+
+  @Test
+  public void testWireEncoder() throws Exception {
+    TestMessage testMessage = createTestMessage();
+    assertThat(messageConverter.toByteArray(TestMessage.class, messageConverter.toProperties(testMessage)))
+        .isEqualTo(testMessage.toByteArray());
+
+    TestMessage withMaps = testMessage.toBuilder()
+        .putCounters("a", 1L)
+        .putNestedIndex(7, NestedMessage.newBuilder().setNestedInt(7).build())
+        .putStatuses("s", Status.INACTIVE)
+        .setNestedChoice(NestedMessage.newBuilder().setNestedLong(8))
+        .setPayload(ByteString.copyFromUtf8("payload"))
+        .build();
+    Map<String, Object> properties = messageConverter.toProperties(withMaps);
+    byte[] encoded = messageConverter.toByteArray(TestMessage.class, properties);
+    assertThat(TestMessage.parseFrom(encoded)).isEqualTo(withMaps);
+    assertThat(messageConverter.computeSerializedSize(TestMessage.getDescriptor(), properties))
+        .isEqualTo(withMaps.getSerializedSize());
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    messageConverter.writeTo(TestMessage.getDescriptor(), properties, output);
+    assertThat(output.toByteArray()).isEqualTo(encoded);
+
+    TestBean bean = createTestBean();
+    assertThat(TestMessage.parseFrom(messageConverter.toByteArray(TestMessage.class, bean, beanConverter)))
+        .isEqualTo(messageConverter.buildMessage(TestMessage.class, bean, beanConverter));
+    assertThat(messageConverter.toByteArray(TestMessage.class, new HashMap<>())).isEmpty();
+
+    // packed elements skipping nulls, a single element, and the string keys of JSON
+    Map<String, Object> coerced = new HashMap<>();
+    coerced.put("numbers", Arrays.asList(1, null, 300));
+    coerced.put("stringList", "single");
+    coerced.put("nestedIndex", Collections.singletonMap("7", Collections.singletonMap("nestedInt", 7)));
+    assertThat(TestMessage.parseFrom(messageConverter.toByteArray(TestMessage.class, coerced)))
+        .isEqualTo(TestMessage.newBuilder()
+            .addAllNumbers(Arrays.asList(1, 300))
+            .addStringList("single")
+            .putNestedIndex(7, NestedMessage.newBuilder().setNestedInt(7).build())
+            .build());
+    assertThat(messageConverter.toByteArray(TestMessage.class,
+        Collections.singletonMap("numbers", Collections.singletonList(null)))).isEmpty();
+  }
+
+  @Test
+  public void testAsyncConverter() throws Exception {
+    AsyncProtobufMessageConverter asyncConverter = new AsyncProtobufMessageConverter(messageConverter);
+    TestMessage testMessage = createTestMessage();
+    assertThat(asyncConverter.toPropertiesAsync(testMessage).get())
+        .isEqualTo(messageConverter.toProperties(testMessage));
+    assertThat(asyncConverter.buildMessageAsync(TestMessage.class, createTestBean(), beanConverter).get())
+        .isEqualTo(testMessage);
+
+    List<TestMessage> messages = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      messages.add(testMessage.toBuilder().setAnInt(i).build());
+    }
+    List<TestBean> beans = asyncConverter.toBeansAsync(TestBean.class, messages, beanConverter).get();
+    assertThat(beans).extracting(TestBean::getAnInt).isEqualTo(
+        messages.stream().map(TestMessage::getAnInt).collect(Collectors.toList()));
+    assertThat(asyncConverter.buildMessagesAsync(TestMessage.class, beans, beanConverter).get()).isEqualTo(messages);
+    List<TestBean> iterated = new ArrayList<>();
+    asyncConverter.toBeanIterator(TestBean.class, messages.iterator(), beanConverter).forEachRemaining(iterated::add);
+    assertThat(iterated).extracting(TestBean::getAnInt).isEqualTo(
+        messages.stream().map(TestMessage::getAnInt).collect(Collectors.toList()));
+
+    // the synchronous methods are run by the delegate, e.g. its batch conversions
+    AtomicInteger batches = new AtomicInteger();
+    SimpleProtobufMessageConverter batchConverter = new SimpleProtobufMessageConverter() {
+      @Override
+      public <T> List<T> toBeans(Class<T> beanType, List<? extends Message> messages, BeanConverter beanConverter) {
+        batches.incrementAndGet();
+        return super.toBeans(beanType, messages, beanConverter);
+      }
+
+      @Override
+      public <T extends Message> List<T>
+      buildMessages(Class<T> messageType, List<?> beans, BeanConverter beanConverter) {
+        batches.incrementAndGet();
+        return super.buildMessages(messageType, beans, beanConverter);
+      }
+    };
+    AsyncProtobufMessageConverter delegatingConverter = new AsyncProtobufMessageConverter(batchConverter);
+    assertThat(delegatingConverter.buildMessages(TestMessage.class,
+        delegatingConverter.toBeans(TestBean.class, messages, beanConverter), beanConverter)).isEqualTo(messages);
+    assertThat(batches.get()).isEqualTo(2);
+
+    // the conversions are bounded, and the failures complete the futures
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    SimpleProtobufMessageConverter slowConverter = new SimpleProtobufMessageConverter() {
+      @Override
+      public Map<String, Object> toProperties(Message message) {
+        if (!(message instanceof TestMessage)) {
+          return super.toProperties(message);
+        }
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+          Thread.sleep(5);
+          return super.toProperties(message);
+        } catch (InterruptedException ex) {
+          throw new MessageConvertException(ex);
+        } finally {
+          running.decrementAndGet();
+        }
+      }
+    };
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      AsyncProtobufMessageConverter boundedConverter = new AsyncProtobufMessageConverter(slowConverter, executor, 2);
+      CompletableFuture.allOf(messages.stream().limit(20)
+          .map(boundedConverter::toPropertiesAsync)
+          .toArray(CompletableFuture[]::new)).get();
+      assertThat(maxRunning.get()).isBetween(1, 2);
+      assertThat(boundedConverter.getInFlight()).isZero();
+      assertThat(boundedConverter.getPending()).isZero();
+      assertThatThrownBy(() -> boundedConverter.buildMessageAsync(TestMessage.class,
+          Collections.singletonMap("anInt", new Object())).join())
+          .hasCauseInstanceOf(MessageConvertException.class);
+    } finally {
+      executor.shutdown();
+    }
+
+    // beyond maxPending the conversions are rejected rather than queued
+    List<Runnable> tasks = new ArrayList<>();
+    AsyncProtobufMessageConverter rejectingConverter =
+        new AsyncProtobufMessageConverter(messageConverter, tasks::add, 1, 1);
+    CompletableFuture<Map<String, ?>> first = rejectingConverter.toPropertiesAsync(createTestMessage());
+    CompletableFuture<Map<String, ?>> waiting = rejectingConverter.toPropertiesAsync(createTestMessage());
+    assertThatThrownBy(() -> rejectingConverter.toPropertiesAsync(createTestMessage()).join())
+        .hasCauseInstanceOf(RejectedExecutionException.class);
+    assertThat(rejectingConverter.getPending()).isEqualTo(1);
+    tasks.remove(0).run();
+    tasks.remove(0).run();
+    assertThat(first.join()).isEqualTo(waiting.join());
+    assertThat(rejectingConverter.getPending()).isZero();
+  }
+
   private TestMessage createTestMessage() {
     return TestMessage
         .newBuilder()
@@ -0,0 +1,19 @@
+package com.github.cloudecho.protobuf.processor;
+
+import javax.lang.model.element.Element;
+
+/**
+ * A mapper cannot be generated, reported as a compile error on the element
+ */
+class MapperException extends RuntimeException {
+  private final transient Element element;
+
+  MapperException(String message, Element element) {
+    super(message);
+    this.element = element;
+  }
+
+  Element getElement() {
+    return element;
+  }
+}
@@ -0,0 +1,719 @@
+package com.github.cloudecho.protobuf.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Generate the source of the {@code MessageMapper} of a bean type and its message type. <br>
+ * The property keys and setters are resolved by the same rules as {@code SimpleProtobufMessageConverter}
+ * ({@code List} suffix stripping, enum {@code Value} setters, {@code addAll} list setters) and
+ * {@code SimpleBeanConverter}, the values are unwrapped and coerced as theirs as well.
+ */
+class MapperGenerator {
+  private static final String GETTER_PREFIX = "get";
+  private static final String SETTER_PREFIX = "set";
+  private static final String HASSER_PREFIX = "has";
+  private static final String LIST_SETTER_PREFIX = "addAll";
+
+  private static final String BUILDER_SUFFIX = "OrBuilder";
+  private static final String BYTES_SUFFIX = "Bytes";
+  private static final String COUNT_SUFFIX = "Count";
+  private static final String LIST_SUFFIX = "List";
+  private static final String VALUE_SUFFIX = "Value";
+
+  private static final List<String> PROTOBUF_INTERNAL_METHODS = Arrays.asList(
+      "getDefaultInstance",
+      "getDefaultInstanceForType",
+      "getDescriptor",
+      "getParserForType",
+      "getSerializedSize",
+      "getUnknownFields"
+  );
+
+  private static final String MESSAGE = "com.google.protobuf.Message";
+  private static final String PROTOCOL_MESSAGE_ENUM = "com.google.protobuf.ProtocolMessageEnum";
+  private static final String BYTE_STRING = "com.google.protobuf.ByteString";
+  private static final String TIMESTAMP = "com.google.protobuf.Timestamp";
+  private static final String MESSAGE_MAPPER = "com.github.cloudecho.protobuf.converter.MessageMapper";
+  private static final String MESSAGE_MAPPERS = "com.github.cloudecho.protobuf.converter.MessageMappers";
+
+  private static final Map<String, String> WRAPPER_VALUE_TYPES = new HashMap<>();
+
+  static {
+    WRAPPER_VALUE_TYPES.put("com.google.protobuf.DoubleValue", "double");
+    WRAPPER_VALUE_TYPES.put("com.google.protobuf.FloatValue", "float");
+    WRAPPER_VALUE_TYPES.put("com.google.protobuf.Int64Value", "long");
+    WRAPPER_VALUE_TYPES.put("com.google.protobuf.UInt64Value", "long");
+    WRAPPER_VALUE_TYPES.put("com.google.protobuf.Int32Value", "int");
+    WRAPPER_VALUE_TYPES.put("com.google.protobuf.UInt32Value", "int");
+    WRAPPER_VALUE_TYPES.put("com.google.protobuf.BoolValue", "boolean");
+    WRAPPER_VALUE_TYPES.put("com.google.protobuf.StringValue", "java.lang.String");
+    WRAPPER_VALUE_TYPES.put("com.google.protobuf.BytesValue", BYTE_STRING);
+  }
+
+  private enum Kind {
+    PRIMITIVE, BOXED, STRING, BYTES, ENUM, TIMESTAMP, WRAPPER, MESSAGE, LIST, UNSUPPORTED
+  }
+
+  private final Elements elements;
+  private final Types types;
+  private final TypeElement beanType;
+  private final TypeElement messageType;
+  private final TypeElement builderType;
+  private final Map<String, ExecutableElement> messageGetters;
+  private final List<ExecutableElement> messageMethods;
+  private final List<ExecutableElement> beanMethods;
+  private final StringBuilder out = new StringBuilder();
+
+  MapperGenerator(ProcessingEnvironment env, TypeElement beanType, TypeElement messageType) {
+    this.elements = env.getElementUtils();
+    this.types = env.getTypeUtils();
+    this.beanType = beanType;
+    this.messageType = messageType;
+    if (messageType == null || !isSubtype(messageType.asType(), MESSAGE)) {
+      throw new MapperException("@ProtobufMessage requires a protobuf message type", beanType);
+    }
+    this.builderType = findBuilderType(messageType);
+    this.messageMethods = ElementFilter.methodsIn(messageType.getEnclosedElements());
+    this.messageGetters = getMessageGetterList(messageMethods);
+    this.beanMethods = new ArrayList<>();
+    for (ExecutableElement m : ElementFilter.methodsIn(elements.getAllMembers(beanType))) {
+      if (m.getModifiers().contains(Modifier.PUBLIC) && !m.getModifiers().contains(Modifier.STATIC)) {
+        beanMethods.add(m);
+      }
+    }
+  }
+
+  String getMapperName() {
+    return mapperName(beanType);
+  }
+
+  String generate() {
+    checkBeanType();
+    String beanName = beanType.getQualifiedName().toString();
+    String messageName = messageType.getQualifiedName().toString();
+    String mapperName = getMapperName();
+    int dot = mapperName.lastIndexOf('.');
+
+    if (dot > 0) {
+      line(0, "package %s;", mapperName.substring(0, dot));
+      line(0, "");
+    }
+    line(0, "/**");
+    line(0, " * Generated by ProtobufMessageProcessor, do not edit.");
+    line(0, " */");
+    line(0, "public final class %s implements %s<%s, %s> {",
+        mapperName.substring(dot + 1), MESSAGE_MAPPER, beanName, messageName);
+    line(1, "public static final %s INSTANCE = new %s();", mapperName, mapperName);
+    line(0, "");
+
+    line(1, "@Override");
+    line(1, "public %s toBean(%s message) {", beanName, messageName);
+    line(2, "%s bean = new %s();", beanName, beanName);
+    for (ExecutableElement getter : messageGetters.values()) {
+      generateToBeanProperty(getter);
+    }
+    line(2, "return bean;");
+    line(1, "}");
+    line(0, "");
+
+    line(1, "@Override");
+    line(1, "public %s.Builder newMessageBuilder(%s bean) {", messageName, beanName);
+    line(2, "%s.Builder builder = %s.newBuilder();", messageName, messageName);
+    for (ExecutableElement getter : beanMethods) {
+      if (isBeanGetter(getter)) {
+        generateToMessageProperty(getter);
+      }
+    }
+    line(2, "return builder;");
+    line(1, "}");
+    line(0, "");
+
+    line(1, "@Override");
+    line(1, "public %s buildMessage(%s bean) {", messageName, beanName);
+    line(2, "return newMessageBuilder(bean).build();");
+    line(1, "}");
+    line(0, "}");
+    return out.toString();
+  }
+
+  // message -> bean
+
+  private void generateToBeanProperty(ExecutableElement getter) {
+    String propertyKey = toPropertyKey(getter);
+    ExecutableElement beanGetter = findBeanMethod(toGetterName(propertyKey), null);
+    if (beanGetter == null || !isBeanGetter(beanGetter)) {
+      return;
+    }
+    TypeMirror propertyType = beanGetter.getReturnType();
+    ExecutableElement beanSetter = findBeanMethod("s" + beanGetter.getSimpleName().toString().substring(1), propertyType);
+    if (beanSetter == null) {
+      return;
+    }
+
+    String name = getter.getSimpleName().toString();
+    String value = "message." + name + "()";
+    TypeMirror valueType = getter.getReturnType();
+    Kind kind = kindOf(valueType);
+    if (kind == Kind.UNSUPPORTED) {
+      throw new MapperException(String.format("Unsupported type %s of %s.%s",
+          valueType, messageType.getQualifiedName(), name), beanGetter);
+    }
+
+    List<String> conditions = new ArrayList<>();
+    String hasser = HASSER_PREFIX + name.substring(GETTER_PREFIX.length());
+    if (findMethod(messageMethods, hasser, 0) != null) {
+      conditions.add("message." + hasser + "()");
+    }
+    if (kind == Kind.STRING || kind == Kind.BYTES || kind == Kind.LIST) {
+      conditions.add("!" + value + ".isEmpty()");
+    }
+
+    if (!conditions.isEmpty()) {
+      line(2, "if (%s) {", String.join(" && ", conditions));
+    }
+    int indent = conditions.isEmpty() ? 2 : 3;
+    if (kind == Kind.LIST) {
+      generateToBeanList(indent, value, valueType, beanSetter, propertyType);
+    } else {
+      line(indent, "bean.%s(%s);", beanSetter.getSimpleName(),
+          toBeanValue(valueType, value, false, propertyType, beanGetter));
+    }
+    if (!conditions.isEmpty()) {
+      line(2, "}");
+    }
+  }
+
+  private void generateToBeanList(int indent, String value, TypeMirror valueType,
+                                  ExecutableElement beanSetter, TypeMirror propertyType) {
+    TypeMirror elementType = listElementType(valueType);
+    TypeMirror componentType = beanComponentType(propertyType);
+    if (elementType == null || componentType == null) {
+      throw new MapperException(String.format("Cannot map %s to %s", valueType, propertyType), beanSetter);
+    }
+    String e = toBeanValue(elementType, "e", true, componentType, beanSetter);
+    if (propertyType.getKind() == TypeKind.ARRAY) {
+      line(indent, "%s array = new %s[%s.size()];",
+          propertyType, types.erasure(componentType), value);
+      line(indent, "int i = 0;");
+      line(indent, "for (%s e : %s) {", elementType, value);
+      line(indent + 1, "array[i++] = %s;", e);
+      line(indent, "}");
+      line(indent, "bean.%s(array);", beanSetter.getSimpleName());
+    } else {
+      line(indent, "java.util.List<%s> list = new java.util.ArrayList<>(%s.size());", componentType, value);
+      line(indent, "for (%s e : %s) {", elementType, value);
+      line(indent + 1, "list.add(%s);", e);
+      line(indent, "}");
+      line(indent, "bean.%s(list);", beanSetter.getSimpleName());
+    }
+  }
+
+  /**
+   * The expression converting a message value to the bean property type
+   */
+  private String toBeanValue(TypeMirror valueType, String value, boolean element,
+                             TypeMirror propertyType, Element site) {
+    TypeMirror type;
+    switch (kindOf(valueType)) {
+      case PRIMITIVE:
+      case BOXED:
+        type = valueType;
+        break;
+      case STRING:
+        type = valueType;
+        value = element ? MESSAGE_MAPPERS + ".emptyToNull(" + value + ")" : value;
+        break;
+      case BYTES:
+        type = types.getArrayType(types.getPrimitiveType(TypeKind.BYTE));
+        value = MESSAGE_MAPPERS + ".unwrap(" + value + ")";
+        break;
+      case ENUM:
+        type = types.getPrimitiveType(TypeKind.INT);
+        value = value + ".getNumber()";
+        break;
+      case TIMESTAMP:
+        type = typeOf("java.util.Date");
+        value = MESSAGE_MAPPERS + ".toDate(" + value + ")";
+        break;
+      case WRAPPER:
+        type = typeOf(WRAPPER_VALUE_TYPES.get(qualifiedName(valueType)));
+        value = value + ".getValue()";
+        break;
+      case MESSAGE:
+        return mapperOf(propertyType, valueType, site) + ".INSTANCE.toBean(" + value + ")";
+      default:
+        throw new MapperException(String.format("Unsupported type %s", valueType), site);
+    }
+
+    if (types.isAssignable(type, propertyType)) {
+      return value;
+    }
+    TypeKind target = numericKind(propertyType);
+    if (target != null && numericKind(type) != null) {
+      return numberValue(type, value, target);
+    }
+    throw new MapperException(String.format("Cannot map %s to %s", valueType, propertyType), site);
+  }
+
+  // bean -> message
+
+  private void generateToMessageProperty(ExecutableElement getter) {
+    String propertyKey = toPropertiesMapKey(getter.getSimpleName().toString());
+    String setterName = toMessageSetterName(propertyKey);
+    ExecutableElement messageGetter = messageGetters.get("g" + setterName.substring(1));
+    boolean isList = false;
+    TypeMirror targetType;
+
+    if (messageGetter == null) {
+      messageGetter = messageGetters.get("g" + setterName.substring(1) + LIST_SUFFIX);
+      if (messageGetter == null) {
+        return;
+      }
+      setterName = LIST_SETTER_PREFIX + setterName.substring(SETTER_PREFIX.length());
+      isList = true;
+      targetType = listElementType(messageGetter.getReturnType());
+      if (targetType == null) {
+        return;
+      }
+      if (kindOf(targetType) == Kind.ENUM) {
+        setterName += VALUE_SUFFIX;
+        targetType = typeOf("java.lang.Integer");
+      }
+      if (findMethod(ElementFilter.methodsIn(builderType.getEnclosedElements()), setterName, 1) == null) {
+        return;
+      }
+    } else {
+      targetType = messageGetter.getReturnType();
+      if (kindOf(targetType) == Kind.ENUM) {
+        setterName += VALUE_SUFFIX;
+        targetType = types.getPrimitiveType(TypeKind.INT);
+      }
+      ExecutableElement setter = findMethod(ElementFilter.methodsIn(builderType.getEnclosedElements()), setterName, 1);
+      if (setter == null || !types.isSameType(
+          types.erasure(setter.getParameters().get(0).asType()), types.erasure(targetType))) {
+        return;
+      }
+    }
+
+    TypeMirror propertyType = getter.getReturnType();
+    boolean nullable = !propertyType.getKind().isPrimitive();
+    line(2, "{");
+    line(3, "%s v = bean.%s();", propertyType, getter.getSimpleName());
+    int indent = 3;
+    if (nullable) {
+      line(3, "if (v != null) {");
+      indent = 4;
+    }
+    if (isList) {
+      generateToMessageList(indent, setterName, targetType, propertyType, getter);
+    } else {
+      line(indent, "builder.%s(%s);", setterName, toMessageValue(propertyType, "v", targetType, getter));
+    }
+    if (nullable) {
+      line(3, "}");
+    }
+    line(2, "}");
+  }
+
+  private void generateToMessageList(int indent, String setterName, TypeMirror elementType,
+                                     TypeMirror propertyType, Element site) {
+    TypeMirror componentType = beanComponentType(propertyType);
+    if (componentType == null) {
+      throw new MapperException(String.format("Cannot map %s to a repeated field", propertyType), site);
+    }
+    line(indent, "java.util.List<%s> list = new java.util.ArrayList<>();", elementType);
+    line(indent, "for (%s e : v) {", componentType);
+    String e = toMessageValue(componentType, "e", elementType, site);
+    if (componentType.getKind().isPrimitive()) {
+      line(indent + 1, "list.add(%s);", e);
+    } else {
+      line(indent + 1, "if (e != null) {");
+      line(indent + 2, "list.add(%s);", e);
+      line(indent + 1, "}");
+    }
+    line(indent, "}");
+    line(indent, "if (!list.isEmpty()) {");
+    line(indent + 1, "builder.%s(list);", setterName);
+    line(indent, "}");
+  }
+
+  /**
+   * The expression converting a non-null bean property value to the message value type
+   */
+  private String toMessageValue(TypeMirror propertyType, String value, TypeMirror targetType, Element site) {
+    Kind kind = kindOf(targetType);
+    switch (kind) {
+      case STRING:
+        if (isByteArray(propertyType)) {
+          return "new java.lang.String(" + value + ", java.nio.charset.Charset.defaultCharset())";
+        }
+        return "java.lang.String.valueOf(" + value + ")";
+      case TIMESTAMP:
+        if (isSubtype(propertyType, "java.util.Date")) {
+          return MESSAGE_MAPPERS + ".toTimestamp(" + value + ")";
+        } else if (numericKind(propertyType) == TypeKind.LONG) {
+          return MESSAGE_MAPPERS + ".toTimestamp((long) " + value + ")";
+        }
+        break;
+      case WRAPPER:
+        String wrapper = qualifiedName(targetType);
+        TypeMirror wrapped = typeOf(WRAPPER_VALUE_TYPES.get(wrapper));
+        return wrapper + ".of(" + toMessageValue(propertyType, value, wrapped, site) + ")";
+      case BYTES:
+        if (isByteArray(propertyType)
+            || isSubtype(propertyType, "java.lang.String")
+            || isSubtype(propertyType, "java.nio.ByteBuffer")) {
+          return MESSAGE_MAPPERS + ".toByteString(" + value + ")";
+        }
+        break;
+      case MESSAGE:
+        return mapperOf(propertyType, targetType, site) + ".INSTANCE.buildMessage(" + value + ")";
+      case PRIMITIVE:
+      case BOXED:
+        TypeKind target = numericKind(targetType);
+        if (target == TypeKind.INT || target == TypeKind.LONG) {
+          if (numericKind(propertyType) != null || isSubtype(propertyType, "java.lang.Number")) {
+            return numberValue(propertyType, value, target);
+          }
+        } else if (typeKind(targetType) == TypeKind.BOOLEAN) {
+          if (typeKind(propertyType) == TypeKind.BOOLEAN) {
+            return value;
+          } else if (numericKind(propertyType) != null) {
+            return numberValue(propertyType, value, TypeKind.INT) + " != 0";
+          } else if (isSubtype(propertyType, "java.lang.String")) {
+            return "!" + value + ".isEmpty()";
+          }
+        } else if (types.isAssignable(propertyType, targetType)) {
+          return value;
+        }
+        break;
+      default:
+    }
+    throw new MapperException(String.format("Cannot map %s to %s", propertyType, targetType), site);
+  }
+
+  // types
+
+  private Kind kindOf(TypeMirror type) {
+    if (type.getKind().isPrimitive()) {
+      return Kind.PRIMITIVE;
+    } else if (type.getKind() != TypeKind.DECLARED) {
+      return Kind.UNSUPPORTED;
+    } else if (isType(type, "java.lang.String")) {
+      return Kind.STRING;
+    } else if (isType(type, BYTE_STRING)) {
+      return Kind.BYTES;
+    } else if (isSubtype(type, PROTOCOL_MESSAGE_ENUM)) {
+      return Kind.ENUM;
+    } else if (isType(type, TIMESTAMP)) {
+      return Kind.TIMESTAMP;
+    } else if (WRAPPER_VALUE_TYPES.containsKey(qualifiedName(type))) {
+      return Kind.WRAPPER;
+    } else if (isSubtype(type, MESSAGE)) {
+      return Kind.MESSAGE;
+    } else if (isSubtype(type, "java.util.List")) {
+      return Kind.LIST;
+    } else if (typeKind(type).isPrimitive()) {
+      return Kind.BOXED;
+    }
+    return Kind.UNSUPPORTED;
+  }
+
+  /**
+   * The primitive kind of a primitive or boxed type, otherwise {@code null}
+   */
+  private TypeKind typeKind(TypeMirror type) {
+    if (type.getKind().isPrimitive()) {
+      return type.getKind();
+    }
+    try {
+      return types.unboxedType(type).getKind();
+    } catch (IllegalArgumentException ex) {
+      return TypeKind.NONE;
+    }
+  }
+
+  /**
+   * The numeric primitive kind of a primitive or boxed type, otherwise {@code null}
+   */
+  private TypeKind numericKind(TypeMirror type) {
+    TypeKind kind = typeKind(type);
+    switch (kind) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+      case SHORT:
+      case BYTE:
+        return kind;
+      default:
+        return null;
+    }
+  }
+
+  private String numberValue(TypeMirror type, String value, TypeKind target) {
+    String primitive = target.name().toLowerCase();
+    if (type.getKind().isPrimitive()) {
+      return "(" + primitive + ") " + value;
+    }
+    return value + "." + primitive + "Value()";
+  }
+
+  private boolean isByteArray(TypeMirror type) {
+    return type.getKind() == TypeKind.ARRAY
+        && ((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE;
+  }
+
+  private TypeMirror listElementType(TypeMirror type) {
+    if (type.getKind() != TypeKind.DECLARED) {
+      return null;
+    }
+    DeclaredType declared = (DeclaredType) type;
+    if (((TypeElement) declared.asElement()).getQualifiedName().contentEquals("java.util.List")) {
+      return declared.getTypeArguments().isEmpty() ? null : declared.getTypeArguments().get(0);
+    }
+    for (TypeMirror s : types.directSupertypes(type)) {
+      TypeMirror elementType = listElementType(s);
+      if (elementType != null) {
+        return elementType;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * The component type of an array or a {@code List} bean property, otherwise {@code null}
+   */
+  private TypeMirror beanComponentType(TypeMirror propertyType) {
+    if (propertyType.getKind() == TypeKind.ARRAY) {
+      return ((ArrayType) propertyType).getComponentType();
+    } else if (isType(propertyType, "java.util.List")) {
+      List<? extends TypeMirror> args = ((DeclaredType) propertyType).getTypeArguments();
+      return args.isEmpty() ? null : args.get(0);
+    }
+    return null;
+  }
+
+  private String mapperOf(TypeMirror propertyType, TypeMirror messageType, Element site) {
+    if (propertyType.getKind() == TypeKind.DECLARED) {
+      TypeElement nestedBeanType = (TypeElement) ((DeclaredType) propertyType).asElement();
+      TypeElement nestedMessageType = ProtobufMessageProcessor.getMessageType(nestedBeanType);
+      if (nestedMessageType != null && isType(messageType, nestedMessageType.getQualifiedName().toString())) {
+        return mapperName(nestedBeanType);
+      }
+    }
+    throw new MapperException(String.format("%s must be annotated with @ProtobufMessage(%s.class)",
+        propertyType, qualifiedName(messageType)), site);
+  }
+
+  private TypeMirror typeOf(String name) {
+    switch (name) {
+      case "int":
+        return types.getPrimitiveType(TypeKind.INT);
+      case "long":
+        return types.getPrimitiveType(TypeKind.LONG);
+      case "float":
+        return types.getPrimitiveType(TypeKind.FLOAT);
+      case "double":
+        return types.getPrimitiveType(TypeKind.DOUBLE);
+      case "boolean":
+        return types.getPrimitiveType(TypeKind.BOOLEAN);
+      default:
+        return elements.getTypeElement(name).asType();
+    }
+  }
+
+  private boolean isType(TypeMirror type, String name) {
+    TypeElement element = elements.getTypeElement(name);
+    return element != null && types.isSameType(types.erasure(type), types.erasure(element.asType()));
+  }
+
+  private boolean isSubtype(TypeMirror type, String name) {
+    TypeElement element = elements.getTypeElement(name);
+    return element != null && types.isAssignable(types.erasure(type), types.erasure(element.asType()));
+  }
+
+  private String qualifiedName(TypeMirror type) {
+    if (type.getKind() != TypeKind.DECLARED) {
+      return type.toString();
+    }
+    return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+  }
+
+  // elements
+
+  private void checkBeanType() {
+    if (beanType.getModifiers().contains(Modifier.ABSTRACT)) {
+      throw new MapperException("@ProtobufMessage bean must not be abstract", beanType);
+    }
+    if (beanType.getNestingKind() == NestingKind.MEMBER && !beanType.getModifiers().contains(Modifier.STATIC)) {
+      throw new MapperException("@ProtobufMessage bean must be a top level or static nested class", beanType);
+    }
+    List<ExecutableElement> constructors = ElementFilter.constructorsIn(beanType.getEnclosedElements());
+    boolean noArg = constructors.isEmpty();
+    for (ExecutableElement c : constructors) {
+      noArg |= c.getParameters().isEmpty() && c.getModifiers().contains(Modifier.PUBLIC);
+    }
+    if (!noArg) {
+      throw new MapperException("@ProtobufMessage bean requires a public no-arg constructor", beanType);
+    }
+  }
+
+  private TypeElement findBuilderType(TypeElement messageType) {
+    for (TypeElement t : ElementFilter.typesIn(messageType.getEnclosedElements())) {
+      if (t.getSimpleName().contentEquals("Builder")) {
+        return t;
+      }
+    }
+    throw new MapperException(String.format("No builder type in %s", messageType.getQualifiedName()), beanType);
+  }
+
+  /**
+   * The same getters as {@code SimpleProtobufMessageConverter.getMessageGetterList0}
+   */
+  private Map<String, ExecutableElement> getMessageGetterList(List<ExecutableElement> methods) {
+    Map<String, ExecutableElement> result = new LinkedHashMap<>();
+    for (ExecutableElement m : methods) {
+      String name = m.getSimpleName().toString();
+      if (name.startsWith(GETTER_PREFIX)
+          && !name.endsWith(BUILDER_SUFFIX)
+          && !name.endsWith(BUILDER_SUFFIX + LIST_SUFFIX)
+          && m.getParameters().isEmpty()
+          && !m.getModifiers().contains(Modifier.STATIC)
+          && !PROTOBUF_INTERNAL_METHODS.contains(name)) {
+        result.put(name, m);
+      }
+    }
+    for (String k : result.keySet().toArray(new String[0])) {
+      ExecutableElement getter = result.get(k);
+      if (getter == null) {
+        continue;
+      }
+      result.remove(k + BYTES_SUFFIX);
+      Kind kind = kindOf(getter.getReturnType());
+      if (k.endsWith(LIST_SUFFIX) && kind == Kind.LIST) {
+        result.remove(k.substring(0, k.length() - LIST_SUFFIX.length()) + COUNT_SUFFIX);
+      }
+      if (kind == Kind.ENUM) {
+        result.remove(k + VALUE_SUFFIX);
+      }
+    }
+    return result;
+  }
+
+  private ExecutableElement findBeanMethod(String name, TypeMirror parameterType) {
+    for (ExecutableElement m : beanMethods) {
+      if (!m.getSimpleName().contentEquals(name)) {
+        continue;
+      }
+      if (parameterType == null && m.getParameters().isEmpty()) {
+        return m;
+      }
+      if (parameterType != null && m.getParameters().size() == 1
+          && types.isSameType(m.getParameters().get(0).asType(), parameterType)) {
+        return m;
+      }
+    }
+    return null;
+  }
+
+  private static ExecutableElement findMethod(List<ExecutableElement> methods, String name, int parameterCount) {
+    for (ExecutableElement m : methods) {
+      if (m.getKind() == ElementKind.METHOD
+          && m.getSimpleName().contentEquals(name)
+          && m.getParameters().size() == parameterCount) {
+        return m;
+      }
+    }
+    return null;
+  }
+
+  private boolean isBeanGetter(ExecutableElement m) {
+    String name = m.getSimpleName().toString();
+    return m.getParameters().isEmpty()
+        && name.startsWith(GETTER_PREFIX)
+        && name.length() > GETTER_PREFIX.length()
+        && m.getReturnType().getKind() != TypeKind.VOID
+        && !"getClass".equals(name);
+  }
+
+  // names
+
+  /**
+   * The same as {@code SimpleProtobufMessageConverter.toPropertyKey(Method)}
+   */
+  private String toPropertyKey(ExecutableElement getter) {
+    String getterName = getter.getSimpleName().toString();
+    if (kindOf(getter.getReturnType()) == Kind.LIST && getterName.endsWith(LIST_SUFFIX)) {
+      getterName = getterName.substring(0, getterName.length() - LIST_SUFFIX.length());
+    }
+    return toPropertiesMapKey(getterName);
+  }
+
+  private static String toPropertiesMapKey(String getterName) {
+    int n = GETTER_PREFIX.length();
+    return Character.toLowerCase(getterName.charAt(n)) + getterName.substring(n + 1);
+  }
+
+  /**
+   * The same as {@code SimpleBeanConverter.toGetterName}
+   */
+  private static String toGetterName(String propertyKey) {
+    int n = propertyKey.length();
+    if (n == 1) {
+      return GETTER_PREFIX + Character.toUpperCase(propertyKey.charAt(0));
+    } else if (Character.isUpperCase(propertyKey.charAt(1))) {
+      return GETTER_PREFIX + Character.toLowerCase(propertyKey.charAt(0))
+          + propertyKey.substring(1);
+    } else {
+      return GETTER_PREFIX + Character.toUpperCase(propertyKey.charAt(0))
+          + propertyKey.substring(1);
+    }
+  }
+
+  private static String toMessageSetterName(String propertyKey) {
+    return SETTER_PREFIX
+        + Character.toUpperCase(propertyKey.charAt(0))
+        + propertyKey.substring(1);
+  }
+
+  /**
+   * e.g. com.foo.Bean -&gt; com.foo.BeanMessageMapper, com.foo.Outer.Bean -&gt; com.foo.Outer_BeanMessageMapper
+   */
+  private String mapperName(TypeElement beanType) {
+    String packageName = elements.getPackageOf(beanType).getQualifiedName().toString();
+    StringBuilder name = new StringBuilder(beanType.getSimpleName());
+    for (Element e = beanType.getEnclosingElement(); e instanceof TypeElement; e = e.getEnclosingElement()) {
+      name.insert(0, e.getSimpleName() + "_");
+    }
+    name.append(ProtobufMessageProcessor.MAPPER_SUFFIX);
+    return packageName.isEmpty() ? name.toString() : packageName + "." + name;
+  }
+
+  private void line(int indent, String format, Object... args) {
+    for (int i = 0; i < indent; i++) {
+      out.append("  ");
+    }
+    out.append(args.length == 0 ? format : String.format(format, args)).append('\n');
+  }
+}
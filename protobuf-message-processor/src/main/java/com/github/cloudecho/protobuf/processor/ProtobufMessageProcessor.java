@@ -0,0 +1,93 @@
+package com.github.cloudecho.protobuf.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generate a {@code MessageMapper} for each java bean annotated with {@code @ProtobufMessage}. <br>
+ * The generated mappers call the getters and setters directly, following the same naming and value
+ * rules as {@code SimpleProtobufMessageConverter} and {@code SimpleBeanConverter}.
+ */
+@SupportedAnnotationTypes(ProtobufMessageProcessor.ANNOTATION)
+public class ProtobufMessageProcessor extends AbstractProcessor {
+  static final String ANNOTATION = "com.github.cloudecho.protobuf.annotation.ProtobufMessage";
+  static final String MAPPER_SUFFIX = "MessageMapper";
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    TypeElement annotation = processingEnv.getElementUtils().getTypeElement(ANNOTATION);
+    if (annotation == null) {
+      return false;
+    }
+    for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+      if (element.getKind() != ElementKind.CLASS) {
+        error("@ProtobufMessage is only applicable to classes", element);
+        continue;
+      }
+      TypeElement beanType = (TypeElement) element;
+      try {
+        MapperGenerator generator = new MapperGenerator(processingEnv, beanType, getMessageType(beanType));
+        writeSource(generator.getMapperName(), generator.generate(), beanType);
+      } catch (MapperException ex) {
+        error(ex.getMessage(), ex.getElement() != null ? ex.getElement() : beanType);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The message type declared by {@code @ProtobufMessage} of the given bean type, or {@code null} if not annotated
+   */
+  static TypeElement getMessageType(TypeElement beanType) {
+    for (AnnotationMirror mirror : beanType.getAnnotationMirrors()) {
+      TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+      if (!ANNOTATION.contentEquals(annotationType.getQualifiedName())) {
+        continue;
+      }
+      for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e : mirror.getElementValues().entrySet()) {
+        if (e.getKey().getSimpleName().contentEquals("value")) {
+          TypeMirror type = (TypeMirror) e.getValue().getValue();
+          return (TypeElement) ((DeclaredType) type).asElement();
+        }
+      }
+    }
+    return null;
+  }
+
+  private void writeSource(String name, String source, TypeElement beanType) {
+    try {
+      JavaFileObject file = processingEnv.getFiler().createSourceFile(name, beanType);
+      try (Writer writer = file.openWriter()) {
+        writer.write(source);
+      }
+    } catch (IOException ex) {
+      error(String.format("Cannot write %s: %s", name, ex.getMessage()), beanType);
+    }
+  }
+
+  private void error(String message, Element element) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+}
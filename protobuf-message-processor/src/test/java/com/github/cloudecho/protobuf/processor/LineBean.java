@@ -0,0 +1,35 @@
+package com.github.cloudecho.protobuf.processor;
+
+import com.github.cloudecho.protobuf.annotation.ProtobufMessage;
+import com.github.cloudecho.protobuf.processor.test.LineMessage;
+
+@ProtobufMessage(LineMessage.class)
+public class LineBean {
+  private String sku;
+  private int quantity;
+  private Double price;
+
+  public String getSku() {
+    return sku;
+  }
+
+  public void setSku(String sku) {
+    this.sku = sku;
+  }
+
+  public int getQuantity() {
+    return quantity;
+  }
+
+  public void setQuantity(int quantity) {
+    this.quantity = quantity;
+  }
+
+  public Double getPrice() {
+    return price;
+  }
+
+  public void setPrice(Double price) {
+    this.price = price;
+  }
+}
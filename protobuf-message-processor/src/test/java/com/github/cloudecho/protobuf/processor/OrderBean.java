@@ -0,0 +1,119 @@
+package com.github.cloudecho.protobuf.processor;
+
+import java.util.Date;
+import java.util.List;
+
+import com.github.cloudecho.protobuf.annotation.ProtobufMessage;
+import com.github.cloudecho.protobuf.processor.test.OrderMessage;
+
+@ProtobufMessage(OrderMessage.class)
+public class OrderBean {
+  private int id;
+  private Long amount;
+  private String name;
+  private byte[] payload;
+  private Integer status;
+  private Date created;
+  private LineBean primaryLine;
+  private List<LineBean> lines;
+  private List<String> tags;
+  private List<Long> counts;
+  private Boolean paid;
+  private double ratio;
+
+  public int getId() {
+    return id;
+  }
+
+  public void setId(int id) {
+    this.id = id;
+  }
+
+  public Long getAmount() {
+    return amount;
+  }
+
+  public void setAmount(Long amount) {
+    this.amount = amount;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public byte[] getPayload() {
+    return payload;
+  }
+
+  public void setPayload(byte[] payload) {
+    this.payload = payload;
+  }
+
+  public Integer getStatus() {
+    return status;
+  }
+
+  public void setStatus(Integer status) {
+    this.status = status;
+  }
+
+  public Date getCreated() {
+    return created;
+  }
+
+  public void setCreated(Date created) {
+    this.created = created;
+  }
+
+  public LineBean getPrimaryLine() {
+    return primaryLine;
+  }
+
+  public void setPrimaryLine(LineBean primaryLine) {
+    this.primaryLine = primaryLine;
+  }
+
+  public List<LineBean> getLines() {
+    return lines;
+  }
+
+  public void setLines(List<LineBean> lines) {
+    this.lines = lines;
+  }
+
+  public List<String> getTags() {
+    return tags;
+  }
+
+  public void setTags(List<String> tags) {
+    this.tags = tags;
+  }
+
+  public List<Long> getCounts() {
+    return counts;
+  }
+
+  public void setCounts(List<Long> counts) {
+    this.counts = counts;
+  }
+
+  public Boolean getPaid() {
+    return paid;
+  }
+
+  public void setPaid(Boolean paid) {
+    this.paid = paid;
+  }
+
+  public double getRatio() {
+    return ratio;
+  }
+
+  public void setRatio(double ratio) {
+    this.ratio = ratio;
+  }
+}
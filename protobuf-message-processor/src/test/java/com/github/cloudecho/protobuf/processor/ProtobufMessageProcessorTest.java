@@ -0,0 +1,76 @@
+package com.github.cloudecho.protobuf.processor;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.cloudecho.protobuf.converter.SimpleBeanConverter;
+import com.github.cloudecho.protobuf.converter.SimpleProtobufMessageConverter;
+import com.github.cloudecho.protobuf.processor.test.LineMessage;
+import com.github.cloudecho.protobuf.processor.test.OrderMessage;
+import com.github.cloudecho.protobuf.processor.test.Status;
+import com.google.protobuf.BoolValue;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.DoubleValue;
+import com.google.protobuf.Int64Value;
+import com.google.protobuf.Timestamp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProtobufMessageProcessorTest {
+  SimpleProtobufMessageConverter messageConverter = new SimpleProtobufMessageConverter();
+  SimpleBeanConverter beanConverter = new SimpleBeanConverter();
+
+  @Test
+  public void testToBean() {
+    OrderMessage message = createOrderMessage();
+    OrderBean bean = OrderBeanMessageMapper.INSTANCE.toBean(message);
+    assertThat(bean.getStatus()).isEqualTo(Status.PAID_VALUE);
+    assertThat(bean.getCreated()).isEqualTo(new Date(100 * 1000));
+    assertThat(bean.getLines().get(1).getPrice()).isEqualTo(2.5);
+    assertThat(bean).usingRecursiveComparison()
+        .isEqualTo(messageConverter.toBean(OrderBean.class, message, beanConverter));
+
+    OrderBean empty = OrderBeanMessageMapper.INSTANCE.toBean(OrderMessage.getDefaultInstance());
+    assertThat(empty).usingRecursiveComparison()
+        .isEqualTo(messageConverter.toBean(OrderBean.class, OrderMessage.getDefaultInstance(), beanConverter));
+  }
+
+  @Test
+  public void testBuildMessage() {
+    OrderMessage message = createOrderMessage();
+    OrderBean bean = OrderBeanMessageMapper.INSTANCE.toBean(message);
+    assertThat(OrderBeanMessageMapper.INSTANCE.buildMessage(bean)).isEqualTo(message);
+    assertThat(OrderBeanMessageMapper.INSTANCE.buildMessage(bean))
+        .isEqualTo(messageConverter.buildMessage(OrderMessage.class, bean, beanConverter));
+    assertThat(OrderBeanMessageMapper.INSTANCE.buildMessage(new OrderBean()))
+        .isEqualTo(messageConverter.buildMessage(OrderMessage.class, new OrderBean(), beanConverter));
+  }
+
+  private OrderMessage createOrderMessage() {
+    return OrderMessage.newBuilder()
+        .setId(1)
+        .setAmount(Int64Value.of(1000L))
+        .setName("order-1")
+        .setPayload(ByteString.copyFromUtf8("payload"))
+        .setStatus(Status.PAID)
+        .setCreated(Timestamp.newBuilder().setSeconds(100))
+        .setPrimaryLine(LineMessage.newBuilder()
+            .setSku("sku-0")
+            .setQuantity(1)
+            .setPrice(DoubleValue.of(0.5)))
+        .addLines(LineMessage.newBuilder()
+            .setSku("sku-1")
+            .setQuantity(2))
+        .addLines(LineMessage.newBuilder()
+            .setSku("sku-2")
+            .setQuantity(3)
+            .setPrice(DoubleValue.of(2.5)))
+        .addAllTags(Arrays.asList("a", "b"))
+        .addAllCounts(Arrays.asList(7L, 8L))
+        .setPaid(BoolValue.of(true))
+        .setRatio(0.25)
+        .build();
+  }
+}